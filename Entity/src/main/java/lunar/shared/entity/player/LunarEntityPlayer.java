@@ -17,8 +17,9 @@ public abstract class LunarEntityPlayer extends LunarEntity {
     // use getConnection() for override functionality like custom
     // connection handlers
     protected AbstractConnectionHandler connection;
-    protected long positionSendRate, velocitySendRate;
-    protected long lastPosition, lastVelocity;
+    // how often the state of this player is sent in milliseconds
+    protected long stateSendRate;
+    protected long lastState;
 
     public LunarEntityPlayer(Entity entity, boolean addDefaultComponents) {
         super(entity, addDefaultComponents);
@@ -64,31 +65,36 @@ public abstract class LunarEntityPlayer extends LunarEntity {
         return ignoreOtherPlayerCollision;
     }
 
+    /**
+     * Set the send rate of the state of this player in milliseconds
+     * A value of {@code 50} will send position and velocity every 50 milliseconds.
+     *
+     * @param state the milliseconds send time
+     */
+    public void setNetworkSendRateInMs(long state) {
+        stateSendRate = state;
+    }
+
     /**
      * Set the send rate of velocity and position packets in milliseconds
-     * A value of {@code 50} will send velocity and/or position packets every 50 milliseconds.
+     * Both are sent together within a single state, the lower of the two rates is used.
      *
      * @param velocity the velocity milliseconds send time
      * @param position the position milliseconds send time
      */
     public void setNetworkSendRateInMs(long velocity, long position) {
-        velocitySendRate = velocity;
-        positionSendRate = position;
+        stateSendRate = Math.min(velocity, position);
     }
 
     /**
-     * Send related position and velocity packets if it's time to do so.
+     * Queue the state of this player if it's time to do so.
+     * It is sent with the next flush of the connection, replacing any state that is still pending.
      */
     public void updateNetworkPositionAndVelocity() {
         final long now = System.currentTimeMillis();
-        if (lastPosition == 0 || (now - lastPosition) >= positionSendRate) {
-            getConnection().updatePosition(getPosition(), getAngle());
-            lastPosition = now;
-        }
-
-        if (lastVelocity == 0 || (now - lastVelocity) >= velocitySendRate) {
-            getConnection().updateVelocity(getVelocity(), getAngle());
-            lastVelocity = now;
+        if (lastState == 0 || (now - lastState) >= stateSendRate) {
+            getConnection().updateState(getPosition(), getVelocity(), getAngle(), getFacingDirection());
+            lastState = now;
         }
         getConnection().update();
     }
@@ -0,0 +1,498 @@
+package gdx.lunar.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates codecs for packets annotated with {@code PacketCodec}.
+ * <p>
+ * For each packet a {@code <Packet>Codec} class is generated next to it with:
+ * {@code encode(packet, out)} writing the packet ID then every {@code PacketField} in declaration order,
+ * {@code decode(packet, in)} reading them back into the provided instance,
+ * and {@code encodedSize(packet)} returning the exact amount of bytes {@code encode} writes.
+ * Packets with {@code Interned} fields also get {@code encode(packet, out, strings)} and {@code decode(packet, in, strings)}
+ * taking the string table of the connection, their {@code encodedSize} is an upper bound since tokens are shorter.
+ * <p>
+ * Fixed size fields are written without any branches, only optional fields and varints depend on their value.
+ * Nothing is allocated other than the strings that are decoded.
+ * <p>
+ * Packets declaring a static {@code handle(ServerPacketHandler, ByteBuf)} or {@code handle(ClientPacketHandler, ByteBuf)} bridge
+ * are also registered by the generated {@code PacketCodecRegistry}, which {@code GdxProtocol} registers its default handlers with.
+ * Annotations are matched by name so the protocol does not need to depend on this processor.
+ */
+@SupportedAnnotationTypes(PacketCodecProcessor.PACKET_CODEC)
+public final class PacketCodecProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "gdx.lunar.protocol.packet.annotation.";
+    static final String PACKET_CODEC = PACKAGE + "PacketCodec";
+    private static final String PACKET_FIELD = PACKAGE + "PacketField";
+    private static final String VAR_INT = PACKAGE + "VarInt";
+    private static final String QUANTIZED = PACKAGE + "Quantized";
+    private static final String OPTIONAL = PACKAGE + "OptionalField";
+    private static final String INTERNED = PACKAGE + "Interned";
+    private static final String STRING_TABLE = "gdx.lunar.protocol.codec.StringTable";
+    private static final String SERVER_HANDLER = "gdx.lunar.protocol.handlers.ServerPacketHandler";
+    private static final String CLIENT_HANDLER = "gdx.lunar.protocol.handlers.ClientPacketHandler";
+    private static final String BYTE_BUF = "io.netty.buffer.ByteBuf";
+    private static final String REGISTRY_PACKAGE = "gdx.lunar.protocol.packet";
+    private static final String REGISTRY = "PacketCodecRegistry";
+
+    // presence bits are a single byte
+    private static final int MAX_OPTIONAL_FIELDS = 8;
+
+    // packets with a handle bridge, by the handler they are handled with
+    private final List<Registration> serverPackets = new ArrayList<>();
+    private final List<Registration> clientPackets = new ArrayList<>();
+    private boolean registryWritten;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        final TypeElement codec = processingEnv.getElementUtils().getTypeElement(PACKET_CODEC);
+        if (codec == null) return false;
+
+        for (Element element : round.getElementsAnnotatedWith(codec)) {
+            if (element.getKind() != ElementKind.CLASS || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                error(element, "@PacketCodec is only supported on top level classes");
+                continue;
+            }
+
+            final TypeElement type = (TypeElement) element;
+            final List<Field> fields = collectFields(type);
+            if (fields == null) continue;
+
+            final int id = (Integer) value(annotation(type, PACKET_CODEC), "id");
+            try {
+                write(type, id, fields);
+            } catch (IOException exception) {
+                error(type, "Failed to write codec: " + exception.getMessage());
+            }
+
+            final String handler = handlerOf(type);
+            if (SERVER_HANDLER.equals(handler)) {
+                serverPackets.add(new Registration(type.getQualifiedName().toString(), id));
+            } else if (CLIENT_HANDLER.equals(handler)) {
+                clientPackets.add(new Registration(type.getQualifiedName().toString(), id));
+            }
+        }
+
+        // codecs are all generated within the first round, nothing generated is annotated
+        if (!registryWritten && !(serverPackets.isEmpty() && clientPackets.isEmpty())) {
+            registryWritten = true;
+            try {
+                writeRegistry();
+            } catch (IOException exception) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + REGISTRY + ": " + exception.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param type the packet
+     * @return the handler type of the static {@code handle(handler, ByteBuf)} bridge of the packet, or {@code null} if none
+     */
+    private String handlerOf(TypeElement type) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getSimpleName().contentEquals("handle") || !method.getModifiers().contains(Modifier.STATIC)
+                    || !method.getModifiers().contains(Modifier.PUBLIC) || method.getParameters().size() != 2) continue;
+
+            final String handler = method.getParameters().get(0).asType().toString();
+            if (method.getParameters().get(1).asType().toString().equals(BYTE_BUF)
+                    && (handler.equals(SERVER_HANDLER) || handler.equals(CLIENT_HANDLER))) return handler;
+        }
+        return null;
+    }
+
+    /**
+     * Collect and validate the encoded fields of the provided packet
+     *
+     * @param type the packet
+     * @return the fields or {@code null} if any were invalid
+     */
+    private List<Field> collectFields(TypeElement type) {
+        final List<Field> fields = new ArrayList<>();
+        boolean valid = true;
+        int optional = 0;
+
+        for (VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (annotation(variable, PACKET_FIELD) == null) {
+                if (annotation(variable, VAR_INT) != null || annotation(variable, QUANTIZED) != null || annotation(variable, OPTIONAL) != null
+                        || annotation(variable, INTERNED) != null) {
+                    error(variable, "Field must be annotated with @PacketField");
+                    valid = false;
+                }
+                continue;
+            }
+
+            final Set<Modifier> modifiers = variable.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+                error(variable, "@PacketField must not be private, static or final");
+                valid = false;
+                continue;
+            }
+
+            final Field field = new Field(variable.getSimpleName().toString(), encodingOf(variable));
+            if (field.encoding == null) {
+                valid = false;
+                continue;
+            }
+
+            if (annotation(variable, OPTIONAL) != null) {
+                if (field.encoding != Encoding.STRING) {
+                    error(variable, "@OptionalField is only supported on String fields");
+                    valid = false;
+                    continue;
+                }
+                if (optional == MAX_OPTIONAL_FIELDS) {
+                    error(variable, "At most " + MAX_OPTIONAL_FIELDS + " fields can be @OptionalField");
+                    valid = false;
+                    continue;
+                }
+                field.presenceBit = 1 << optional++;
+            }
+
+            if (annotation(variable, INTERNED) != null) {
+                if (field.encoding != Encoding.STRING) {
+                    error(variable, "@Interned is only supported on String fields");
+                    valid = false;
+                    continue;
+                }
+                field.interned = true;
+            }
+
+            final AnnotationMirror quantized = annotation(variable, QUANTIZED);
+            if (quantized != null) {
+                field.min = (Float) value(quantized, "min");
+                field.max = (Float) value(quantized, "max");
+                field.bits = (Integer) value(quantized, "bits");
+                if (!Float.isFinite(field.min) || !Float.isFinite(field.max) || field.min >= field.max) {
+                    error(variable, "@Quantized min must be less than max");
+                    valid = false;
+                }
+            }
+            fields.add(field);
+        }
+        return valid ? fields : null;
+    }
+
+    /**
+     * @param variable the field
+     * @return how the field is written or {@code null} if it is not supported
+     */
+    private Encoding encodingOf(VariableElement variable) {
+        final TypeMirror type = variable.asType();
+        final boolean varInt = annotation(variable, VAR_INT) != null;
+        final AnnotationMirror quantized = annotation(variable, QUANTIZED);
+
+        if (varInt && type.getKind() != TypeKind.INT) {
+            error(variable, "@VarInt is only supported on int fields");
+            return null;
+        }
+        if (quantized != null) {
+            if (type.getKind() != TypeKind.FLOAT) {
+                error(variable, "@Quantized is only supported on float fields");
+                return null;
+            }
+            return switch ((Integer) value(quantized, "bits")) {
+                case 8 -> Encoding.QUANTIZED_8;
+                case 16 -> Encoding.QUANTIZED_16;
+                case 24 -> Encoding.QUANTIZED_24;
+                case 32 -> Encoding.QUANTIZED_32;
+                default -> {
+                    error(variable, "@Quantized bits must be 8, 16, 24 or 32");
+                    yield null;
+                }
+            };
+        }
+
+        return switch (type.getKind()) {
+            case BOOLEAN -> Encoding.BOOLEAN;
+            case BYTE -> Encoding.BYTE;
+            case SHORT -> Encoding.SHORT;
+            case INT -> varInt ? Encoding.VAR_INT : Encoding.INT;
+            case LONG -> Encoding.LONG;
+            case FLOAT -> Encoding.FLOAT;
+            case DOUBLE -> Encoding.DOUBLE;
+            case DECLARED -> {
+                if (type.toString().equals("java.lang.String")) yield Encoding.STRING;
+                error(variable, "Unsupported @PacketField type " + type);
+                yield null;
+            }
+            default -> {
+                error(variable, "Unsupported @PacketField type " + type);
+                yield null;
+            }
+        };
+    }
+
+    private void write(TypeElement type, int id, List<Field> fields) throws IOException {
+        final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String packet = type.getSimpleName().toString();
+        final String name = packet + "Codec";
+
+        int fixedSize = 4;
+        boolean hasOptional = false, hasInterned = false;
+        for (Field field : fields) {
+            fixedSize += field.encoding.size;
+            hasOptional |= field.presenceBit != 0;
+            hasInterned |= field.interned;
+        }
+        if (hasOptional) fixedSize++;
+
+        final StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("/**\n * Codec of {@link ").append(packet).append("}, generated from its {@code @PacketField} declarations.\n */\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(PacketCodecProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(name).append(" {\n\n");
+        out.append("    public static final int PACKET_ID = ").append(id).append(";\n");
+        out.append("    // bytes of the packet ID and every fixed size field\n");
+        out.append("    public static final int FIXED_SIZE = ").append(fixedSize).append(";\n\n");
+        out.append("    private ").append(name).append("() {\n    }\n\n");
+
+        // encode
+        if (hasInterned) {
+            out.append("    public static void encode(").append(packet).append(" packet, io.netty.buffer.ByteBuf out) {\n");
+            out.append("        encode(packet, out, null);\n");
+            out.append("    }\n\n");
+            out.append("    public static void encode(").append(packet).append(" packet, io.netty.buffer.ByteBuf out, ")
+                    .append(STRING_TABLE).append(" strings) {\n");
+        } else {
+            out.append("    public static void encode(").append(packet).append(" packet, io.netty.buffer.ByteBuf out) {\n");
+        }
+        out.append("        out.writeInt(PACKET_ID);\n");
+        if (hasOptional) {
+            out.append("        int present = 0;\n");
+            for (Field field : fields) {
+                if (field.presenceBit != 0) {
+                    out.append("        if (packet.").append(field.name).append(" != null) present |= ").append(field.presenceBit).append(";\n");
+                }
+            }
+            out.append("        out.writeByte(present);\n");
+        }
+        for (Field field : fields) {
+            final String value = "packet." + field.name;
+            if (field.presenceBit != 0) {
+                out.append("        if ((present & ").append(field.presenceBit).append(") != 0) {\n");
+                writeField(out, field, value, "            ");
+                out.append("        }\n");
+            } else {
+                writeField(out, field, value, "        ");
+            }
+        }
+        out.append("    }\n\n");
+
+        // decode
+        if (hasInterned) {
+            out.append("    public static void decode(").append(packet).append(" packet, io.netty.buffer.ByteBuf in) {\n");
+            out.append("        decode(packet, in, null);\n");
+            out.append("    }\n\n");
+            out.append("    public static void decode(").append(packet).append(" packet, io.netty.buffer.ByteBuf in, ")
+                    .append(STRING_TABLE).append(" strings) {\n");
+        } else {
+            out.append("    public static void decode(").append(packet).append(" packet, io.netty.buffer.ByteBuf in) {\n");
+        }
+        if (hasOptional) out.append("        final int present = in.readUnsignedByte();\n");
+        for (Field field : fields) {
+            out.append("        packet.").append(field.name).append(" = ");
+            if (field.presenceBit != 0) {
+                out.append("(present & ").append(field.presenceBit).append(") != 0 ? ").append(readField(field)).append(" : null;\n");
+            } else {
+                out.append(readField(field)).append(";\n");
+            }
+        }
+        out.append("    }\n\n");
+
+        // size
+        out.append("    public static int encodedSize(").append(packet).append(" packet) {\n");
+        out.append("        int size = FIXED_SIZE;\n");
+        for (Field field : fields) {
+            final String value = "packet." + field.name;
+            if (field.encoding == Encoding.VAR_INT) {
+                out.append("        size += gdx.lunar.protocol.codec.ProtocolFraming.varIntLength(").append(value).append(");\n");
+            } else if (field.encoding == Encoding.STRING) {
+                final String length = field.interned
+                        ? STRING_TABLE + ".maxEncodedLength(" + value + ")"
+                        : "4 + io.netty.buffer.ByteBufUtil.utf8Bytes(" + value + ")";
+                if (field.presenceBit != 0) {
+                    out.append("        if (").append(value).append(" != null) size += ").append(length).append(";\n");
+                } else {
+                    out.append("        size += ").append(length).append(";\n");
+                }
+            }
+        }
+        out.append("        return size;\n");
+        out.append("    }\n\n");
+        out.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(packageName + "." + name, type).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void writeRegistry() throws IOException {
+        serverPackets.sort(Comparator.comparingInt(Registration::id));
+        clientPackets.sort(Comparator.comparingInt(Registration::id));
+
+        final StringBuilder out = new StringBuilder();
+        out.append("package ").append(REGISTRY_PACKAGE).append(";\n\n");
+        out.append("/**\n * Handlers of every packet with a generated codec and a {@code handle} bridge, by packet ID.\n */\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(PacketCodecProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(REGISTRY).append(" {\n\n");
+        out.append("    private ").append(REGISTRY).append("() {\n    }\n\n");
+        writeRegistration(out, "registerServerHandlers", SERVER_HANDLER, serverPackets);
+        out.append("\n");
+        writeRegistration(out, "registerClientHandlers", CLIENT_HANDLER, clientPackets);
+        out.append("\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private static void writeRegistration(StringBuilder out, String method, String handler, List<Registration> packets) {
+        out.append("    public static void ").append(method).append("(java.util.function.ObjIntConsumer<java.util.function.BiConsumer<")
+                .append(BYTE_BUF).append(", ").append(handler).append(">> registrar) {\n");
+        for (Registration packet : packets) {
+            out.append("        registrar.accept((buf, handler) -> ").append(packet.packet()).append(".handle(handler, buf), ")
+                    .append(packet.id()).append(");\n");
+        }
+        out.append("    }\n");
+    }
+
+    private static void writeField(StringBuilder out, Field field, String value, String indent) {
+        out.append(indent);
+        switch (field.encoding) {
+            case BOOLEAN -> out.append("out.writeBoolean(").append(value).append(");\n");
+            case BYTE -> out.append("out.writeByte(").append(value).append(");\n");
+            case SHORT -> out.append("out.writeShort(").append(value).append(");\n");
+            case INT -> out.append("out.writeInt(").append(value).append(");\n");
+            case VAR_INT -> out.append("gdx.lunar.protocol.codec.ProtocolFraming.writeVarInt(out, ").append(value).append(");\n");
+            case LONG -> out.append("out.writeLong(").append(value).append(");\n");
+            case FLOAT -> out.append("out.writeFloat(").append(value).append(");\n");
+            case DOUBLE -> out.append("out.writeDouble(").append(value).append(");\n");
+            case STRING -> {
+                if (field.interned) {
+                    out.append(STRING_TABLE).append(".write(out, ").append(value).append(", strings);\n");
+                } else {
+                    out.append("out.writeInt(io.netty.buffer.ByteBufUtil.utf8Bytes(").append(value).append("));\n")
+                            .append(indent).append("io.netty.buffer.ByteBufUtil.writeUtf8(out, ").append(value).append(");\n");
+                }
+            }
+            default -> {
+                // clamp then scale into the range of the bits, rounding to the nearest step
+                final String quantized = "(int) Math.round((Math.max(" + field.min + "f, Math.min(" + field.max + "f, " + value + ")) - "
+                        + field.min + "d) * " + field.scale() + "d)";
+                out.append(switch (field.encoding) {
+                    case QUANTIZED_8 -> "out.writeByte(";
+                    case QUANTIZED_16 -> "out.writeShort(";
+                    case QUANTIZED_24 -> "out.writeMedium(";
+                    default -> "out.writeInt(";
+                }).append(quantized).append(");\n");
+            }
+        }
+    }
+
+    private static String readField(Field field) {
+        return switch (field.encoding) {
+            case BOOLEAN -> "in.readBoolean()";
+            case BYTE -> "in.readByte()";
+            case SHORT -> "in.readShort()";
+            case INT -> "in.readInt()";
+            case VAR_INT -> "gdx.lunar.protocol.codec.ProtocolFraming.readVarInt(in)";
+            case LONG -> "in.readLong()";
+            case FLOAT -> "in.readFloat()";
+            case DOUBLE -> "in.readDouble()";
+            case STRING -> field.interned
+                    ? STRING_TABLE + ".read(in, strings)"
+                    : "in.readCharSequence(in.readInt(), java.nio.charset.StandardCharsets.UTF_8).toString()";
+            case QUANTIZED_8 -> dequantize(field, "in.readUnsignedByte()");
+            case QUANTIZED_16 -> dequantize(field, "in.readUnsignedShort()");
+            case QUANTIZED_24 -> dequantize(field, "in.readUnsignedMedium()");
+            case QUANTIZED_32 -> dequantize(field, "in.readUnsignedInt()");
+        };
+    }
+
+    private static String dequantize(Field field, String read) {
+        return "(float) (" + field.min + "d + " + read + " / " + field.scale() + "d)";
+    }
+
+    private AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) return mirror;
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String key) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(key)) return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * How a field is written, and the amount of bytes if fixed.
+     */
+    private enum Encoding {
+        BOOLEAN(1), BYTE(1), SHORT(2), INT(4), VAR_INT(0), LONG(8), FLOAT(4), DOUBLE(8), STRING(0),
+        QUANTIZED_8(1), QUANTIZED_16(2), QUANTIZED_24(3), QUANTIZED_32(4);
+
+        private final int size;
+
+        Encoding(int size) {
+            this.size = size;
+        }
+    }
+
+    private record Registration(String packet, int id) {
+    }
+
+    private static final class Field {
+        private final String name;
+        private final Encoding encoding;
+        // bit within the presence byte, 0 if required
+        private int presenceBit;
+        // written through the string table
+        private boolean interned;
+        // quantization range and bits
+        private float min, max;
+        private int bits;
+
+        private Field(String name, Encoding encoding) {
+            this.name = name;
+            this.encoding = encoding;
+        }
+
+        /**
+         * @return steps per unit of a quantized field
+         */
+        private double scale() {
+            return ((1L << bits) - 1) / ((double) max - min);
+        }
+    }
+
+}
@@ -2,11 +2,13 @@ package gdx.lunar.protocol;
 
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
+import gdx.lunar.protocol.packet.PacketCodecRegistry;
 import gdx.lunar.protocol.packet.client.*;
 import gdx.lunar.protocol.packet.server.*;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -16,6 +18,9 @@ import java.util.function.Consumer;
  * Basic protocol handler and interface.
  * Client Packet IDs (22xx)
  * Server Packet IDs (11xx)
+ * <p>
+ * Packet IDs are shared between server, client and custom packets, registering an ID twice across them will fail.
+ * Inbound frames are dispatched through a {@link PacketDispatchTable} rebuilt on each registration.
  */
 public class GdxProtocol {
 
@@ -30,6 +35,10 @@ public class GdxProtocol {
     private final Map<Integer, BiConsumer<ByteBuf, ClientPacketHandler>> client = new HashMap<>();
     private final Map<Integer, Consumer<ByteBuf>> custom = new HashMap<>();
 
+    // resolved handlers for inbound frames, server handlers for clients and client handlers for servers.
+    private volatile PacketDispatchTable<ServerPacketHandler> serverTable = PacketDispatchTable.build(server, custom);
+    private volatile PacketDispatchTable<ClientPacketHandler> clientTable = PacketDispatchTable.build(client, custom);
+
     /**
      * Initialize a new protocol.
      *
@@ -65,24 +74,38 @@ public class GdxProtocol {
     }
 
     /**
-     * @return a map of all server packet handlers
+     * @return a read-only map of all server packet handlers
      */
     public Map<Integer, BiConsumer<ByteBuf, ServerPacketHandler>> getServerHandlers() {
-        return server;
+        return Collections.unmodifiableMap(server);
     }
 
     /**
-     * @return a map of all client packet handlers
+     * @return a read-only map of all client packet handlers
      */
     public Map<Integer, BiConsumer<ByteBuf, ClientPacketHandler>> getClientHandlers() {
-        return client;
+        return Collections.unmodifiableMap(client);
     }
 
     /**
-     * @return a map of all custom packet handlers
+     * @return a read-only map of all custom packet handlers
      */
     public Map<Integer, Consumer<ByteBuf>> getCustomHandlers() {
-        return custom;
+        return Collections.unmodifiableMap(custom);
+    }
+
+    /**
+     * @return the dispatch table for packets sent from the server
+     */
+    public PacketDispatchTable<ServerPacketHandler> getServerDispatchTable() {
+        return serverTable;
+    }
+
+    /**
+     * @return the dispatch table for packets sent from clients
+     */
+    public PacketDispatchTable<ClientPacketHandler> getClientDispatchTable() {
+        return clientTable;
     }
 
     /**
@@ -91,30 +114,58 @@ public class GdxProtocol {
     private void initializeDefaults() {
         initializeClientHandlers();
         initializeServerHandlers();
+        rebuildDispatchTables();
     }
 
+    /**
+     * Packets with a generated codec are registered by {@link PacketCodecRegistry},
+     * the rest are hand-written since their layout depends on the framing or movement codec of the connection.
+     */
     private void initializeServerHandlers() {
-        server.put(S2CPacketAuthenticate.PACKET_ID, (buf, handler) -> S2CPacketAuthenticate.handle(handler, buf));
-        server.put(S2CPacketCreatePlayer.PACKET_ID, (buf, handler) -> S2CPacketCreatePlayer.handle(handler, buf));
-        server.put(S2CPacketDisconnected.PACKET_ID, (buf, handler) -> S2CPacketDisconnected.handle(handler, buf));
-        server.put(S2CPacketJoinWorld.PACKET_ID, (buf, handler) -> S2CPacketJoinWorld.handle(handler, buf));
-        server.put(S2CPacketPing.PACKET_ID, (buf, handler) -> S2CPacketPing.handle(handler, buf));
-        server.put(S2CPacketPlayerPosition.PACKET_ID, (buf, handler) -> S2CPacketPlayerPosition.handle(handler, buf));
-        server.put(S2CPacketPlayerVelocity.PACKET_ID, (buf, handler) -> S2CPacketPlayerVelocity.handle(handler, buf));
-        server.put(S2CPacketRemovePlayer.PACKET_ID, (buf, handler) -> S2CPacketRemovePlayer.handle(handler, buf));
-        server.put(S2CPacketSetEntityProperties.PACKET_ID, (buf, handler) -> S2CPacketSetEntityProperties.handle(handler, buf));
-        server.put(S2CPacketStartGame.PACKET_ID, (buf, handler) -> S2CPacketStartGame.handle(handler, buf));
-        server.put(S2CPacketWorldInvalid.PACKET_ID, (buf, handler) -> S2CPacketWorldInvalid.handle(handler, buf));
+        PacketCodecRegistry.registerServerHandlers((handler, pid) -> put(server, pid, handler));
+        put(server, S2CPacketAuthenticate.PACKET_ID, (buf, handler) -> S2CPacketAuthenticate.handle(handler, buf));
+        put(server, S2CPacketCreatePlayer.PACKET_ID, (buf, handler) -> S2CPacketCreatePlayer.handle(handler, buf));
+        put(server, S2CPacketJoinWorld.PACKET_ID, (buf, handler) -> S2CPacketJoinWorld.handle(handler, buf));
+        put(server, S2CPacketPlayerPosition.PACKET_ID, (buf, handler) -> S2CPacketPlayerPosition.handle(handler, buf));
+        put(server, S2CPacketPlayerVelocity.PACKET_ID, (buf, handler) -> S2CPacketPlayerVelocity.handle(handler, buf));
+        put(server, S2CPacketRemovePlayer.PACKET_ID, (buf, handler) -> S2CPacketRemovePlayer.handle(handler, buf));
+        put(server, S2CPacketStartGame.PACKET_ID, (buf, handler) -> S2CPacketStartGame.handle(handler, buf));
+        put(server, S2CPacketWorldSnapshot.PACKET_ID, (buf, handler) -> S2CPacketWorldSnapshot.handle(handler, buf));
     }
 
     private void initializeClientHandlers() {
-        client.put(C2SPacketAuthenticate.PACKET_ID, (buf, handler) -> C2SPacketAuthenticate.handle(handler, buf));
-        client.put(C2SPacketDisconnected.PACKET_ID, (buf, handler) -> C2SPacketDisconnected.handle(handler, buf));
-        client.put(C2SPacketJoinWorld.PACKET_ID, (buf, handler) -> C2SPacketJoinWorld.handle(handler, buf));
-        client.put(C2SPacketPing.PACKET_ID, (buf, handler) -> C2SPacketPing.handle(handler, buf));
-        client.put(C2SPacketPlayerPosition.PACKET_ID, (buf, handler) -> C2SPacketPlayerPosition.handle(handler, buf));
-        client.put(C2SPacketPlayerVelocity.PACKET_ID, (buf, handler) -> C2SPacketPlayerVelocity.handle(handler, buf));
-        client.put(C2SPacketWorldLoaded.PACKET_ID, (buf, handler) -> C2SPacketWorldLoaded.handle(handler, buf));
+        PacketCodecRegistry.registerClientHandlers((handler, pid) -> put(client, pid, handler));
+        put(client, C2SPacketAuthenticate.PACKET_ID, (buf, handler) -> C2SPacketAuthenticate.handle(handler, buf));
+        put(client, C2SPacketPlayerPosition.PACKET_ID, (buf, handler) -> C2SPacketPlayerPosition.handle(handler, buf));
+        put(client, C2SPacketPlayerVelocity.PACKET_ID, (buf, handler) -> C2SPacketPlayerVelocity.handle(handler, buf));
+        put(client, C2SPacketPlayerState.PACKET_ID, (buf, handler) -> C2SPacketPlayerState.handle(handler, buf));
+    }
+
+    /**
+     * Put a handler into the provided table, ensuring the ID is not used by any other table.
+     *
+     * @param table   the table
+     * @param pid     the packet ID
+     * @param handler the handler
+     * @param <T>     handler type
+     */
+    private <T> void put(Map<Integer, T> table, int pid, T handler) {
+        if (table != server && server.containsKey(pid))
+            throw new IllegalArgumentException("Packet ID %d is already registered as a server packet".formatted(pid));
+        if (table != client && client.containsKey(pid))
+            throw new IllegalArgumentException("Packet ID %d is already registered as a client packet".formatted(pid));
+        if (table != custom && custom.containsKey(pid))
+            throw new IllegalArgumentException("Packet ID %d is already registered as a custom packet".formatted(pid));
+
+        table.put(pid, handler);
+    }
+
+    /**
+     * Rebuild the dispatch tables after handlers have changed
+     */
+    private synchronized void rebuildDispatchTables() {
+        serverTable = PacketDispatchTable.build(server, custom);
+        clientTable = PacketDispatchTable.build(client, custom);
     }
 
     /**
@@ -154,8 +205,9 @@ public class GdxProtocol {
      * @param pid     the pid
      * @param handler the new handler
      */
-    public void changeServerPacketHandler(int pid, BiConsumer<ByteBuf, ServerPacketHandler> handler) {
-        server.put(pid, handler);
+    public synchronized void changeServerPacketHandler(int pid, BiConsumer<ByteBuf, ServerPacketHandler> handler) {
+        put(server, pid, handler);
+        rebuildDispatchTables();
     }
 
     /**
@@ -165,8 +217,9 @@ public class GdxProtocol {
      * @param pid     the pid
      * @param handler the new handler
      */
-    public void changeClientPacketHandler(int pid, BiConsumer<ByteBuf, ClientPacketHandler> handler) {
-        client.put(pid, handler);
+    public synchronized void changeClientPacketHandler(int pid, BiConsumer<ByteBuf, ClientPacketHandler> handler) {
+        put(client, pid, handler);
+        rebuildDispatchTables();
     }
 
     /**
@@ -176,8 +229,9 @@ public class GdxProtocol {
      * @param pid     the id
      * @param handler the handler
      */
-    public void registerClientPacket(int pid, BiConsumer<ByteBuf, ClientPacketHandler> handler) {
-        client.put(pid, handler);
+    public synchronized void registerClientPacket(int pid, BiConsumer<ByteBuf, ClientPacketHandler> handler) {
+        put(client, pid, handler);
+        rebuildDispatchTables();
     }
 
     /**
@@ -187,8 +241,9 @@ public class GdxProtocol {
      * @param pid     the id
      * @param handler the handler
      */
-    public void registerServerPacket(int pid, BiConsumer<ByteBuf, ServerPacketHandler> handler) {
-        server.put(pid, handler);
+    public synchronized void registerServerPacket(int pid, BiConsumer<ByteBuf, ServerPacketHandler> handler) {
+        put(server, pid, handler);
+        rebuildDispatchTables();
     }
 
     /**
@@ -196,43 +251,55 @@ public class GdxProtocol {
      *
      * @param pid the pid
      * @param buf the consumer
+     * @throws IllegalArgumentException if the ID is already registered as a server or client packet
      */
-    public void registerPacket(int pid, Consumer<ByteBuf> buf) {
-        custom.put(pid, buf);
+    public synchronized void registerPacket(int pid, Consumer<ByteBuf> buf) {
+        put(custom, pid, buf);
+        rebuildDispatchTables();
     }
 
     /**
-     * Handle a server packet
-     * The provided {@code in} buffer should be released by decoder.
+     * Handle a server or custom packet
+     * The provided {@code in} buffer should be released by the decoder.
      *
      * @param pid     the packet ID
      * @param in      the ByteBuf in
      * @param handler the handler
      * @param context the context (allowed to be null)
+     * @return {@code true} if a handler was registered for the packet
      */
-    public void handleServerPacket(int pid, ByteBuf in, ServerPacketHandler handler, ChannelHandlerContext context) {
+    public boolean handleServerPacket(int pid, ByteBuf in, ServerPacketHandler handler, ChannelHandlerContext context) {
+        final BiConsumer<ByteBuf, ServerPacketHandler> consumer = serverTable.get(pid);
+        if (consumer == null) return false;
+
         try {
-            server.get(pid).accept(in, handler);
+            consumer.accept(in, handler);
         } catch (Exception exception) {
             if (context != null) context.fireExceptionCaught(exception);
         }
+        return true;
     }
 
     /**
-     * Handle a client packet
+     * Handle a client or custom packet
      * The provided {@code in} buffer should be released by the decoder.
      *
      * @param pid     the packet ID
      * @param in      the ByteBuf in
      * @param handler the handler
      * @param context the context (allowed to be null)
+     * @return {@code true} if a handler was registered for the packet
      */
-    public void handleClientPacket(int pid, ByteBuf in, ClientPacketHandler handler, ChannelHandlerContext context) {
+    public boolean handleClientPacket(int pid, ByteBuf in, ClientPacketHandler handler, ChannelHandlerContext context) {
+        final BiConsumer<ByteBuf, ClientPacketHandler> consumer = clientTable.get(pid);
+        if (consumer == null) return false;
+
         try {
-            client.get(pid).accept(in, handler);
+            consumer.accept(in, handler);
         } catch (Exception exception) {
             if (context != null) context.fireExceptionCaught(exception);
         }
+        return true;
     }
 
     /**
@@ -251,9 +318,10 @@ public class GdxProtocol {
         }
     }
 
-    public void dispose() {
+    public synchronized void dispose() {
         client.clear();
         server.clear();
+        rebuildDispatchTables();
     }
 
 }
@@ -0,0 +1,120 @@
+package gdx.lunar.protocol;
+
+import com.badlogic.gdx.utils.IntMap;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A frozen, dense table of packet handlers.
+ * Packet IDs are remapped to an index relative to the lowest registered ID,
+ * so resolving the handler of a frame is a single array lookup with no boxing or hashing.
+ * The array covers at most {@code MAX_ID_SPAN} IDs, chosen to hold as many registered IDs as possible,
+ * IDs outside of it are resolved through a map instead.
+ * <p>
+ * Tables are immutable, {@link GdxProtocol} builds a new one each time a handler is registered.
+ *
+ * @param <H> the packet handler type
+ */
+public final class PacketDispatchTable<H> {
+
+    // the max range of packet IDs the array covers
+    public static final int MAX_ID_SPAN = 65536;
+
+    private final BiConsumer<ByteBuf, H>[] handlers;
+    // the lowest packet ID, index 0 of the table
+    private final int base;
+    // handlers of IDs outside the array, null if none
+    private final IntMap<BiConsumer<ByteBuf, H>> overflow;
+    // the amount of registered IDs, the array holds empty slots between them
+    private final int size;
+
+    private PacketDispatchTable(BiConsumer<ByteBuf, H>[] handlers, int base, IntMap<BiConsumer<ByteBuf, H>> overflow, int size) {
+        this.handlers = handlers;
+        this.base = base;
+        this.overflow = overflow;
+        this.size = size;
+    }
+
+    /**
+     * Get the handler for the provided packet ID
+     *
+     * @param pid the packet ID
+     * @return the handler or {@code null} if none is registered
+     */
+    public BiConsumer<ByteBuf, H> get(int pid) {
+        final int index = pid - base;
+        // unsigned compare covers both a negative index and one out of bounds
+        if (Integer.compareUnsigned(index, handlers.length) >= 0) return overflow == null ? null : overflow.get(pid);
+        return handlers[index];
+    }
+
+    /**
+     * @return the amount of packet IDs with a handler within this table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Build a new table from the provided handlers
+     * Custom handlers are resolved into the same table, so one lookup covers both.
+     *
+     * @param typed  handlers for packets of this side
+     * @param custom custom packet handlers
+     * @param <H>    the packet handler type
+     * @return the new table
+     */
+    static <H> PacketDispatchTable<H> build(Map<Integer, BiConsumer<ByteBuf, H>> typed, Map<Integer, Consumer<ByteBuf>> custom) {
+        if (typed.isEmpty() && custom.isEmpty()) return new PacketDispatchTable<>(newHandlers(0), 0, null, 0);
+
+        final int[] ids = new int[typed.size() + custom.size()];
+        int count = 0;
+        for (int pid : typed.keySet()) ids[count++] = pid;
+        for (int pid : custom.keySet()) ids[count++] = pid;
+        Arrays.sort(ids);
+
+        // the window of at most MAX_ID_SPAN IDs holding the most registered IDs
+        int start = 0, bestStart = 0, bestEnd = 0;
+        for (int end = 0; end < ids.length; end++) {
+            while ((long) ids[end] - ids[start] >= MAX_ID_SPAN) start++;
+            if (end - start > bestEnd - bestStart) {
+                bestStart = start;
+                bestEnd = end;
+            }
+        }
+
+        final int min = ids[bestStart], max = ids[bestEnd];
+        final BiConsumer<ByteBuf, H>[] handlers = newHandlers(max - min + 1);
+        final IntMap<BiConsumer<ByteBuf, H>> overflow = new IntMap<>();
+        for (Map.Entry<Integer, BiConsumer<ByteBuf, H>> entry : typed.entrySet()) {
+            put(handlers, overflow, min, max, entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Integer, Consumer<ByteBuf>> entry : custom.entrySet()) {
+            final Consumer<ByteBuf> handler = entry.getValue();
+            put(handlers, overflow, min, max, entry.getKey(), (buf, ignored) -> handler.accept(buf));
+        }
+
+        int size = overflow.size;
+        for (BiConsumer<ByteBuf, H> handler : handlers) if (handler != null) size++;
+        return new PacketDispatchTable<>(handlers, min, overflow.isEmpty() ? null : overflow, size);
+    }
+
+    private static <H> void put(BiConsumer<ByteBuf, H>[] handlers, IntMap<BiConsumer<ByteBuf, H>> overflow,
+                                int min, int max, int pid, BiConsumer<ByteBuf, H> handler) {
+        if (pid >= min && pid <= max) {
+            handlers[pid - min] = handler;
+        } else {
+            overflow.put(pid, handler);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <H> BiConsumer<ByteBuf, H>[] newHandlers(int length) {
+        return (BiConsumer<ByteBuf, H>[]) new BiConsumer<?, ?>[length];
+    }
+
+}
@@ -0,0 +1,157 @@
+package gdx.lunar.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses outbound frames at or above a size threshold with zlib.
+ * Placed between the transport and the packet encoder, so frames shared between connections are handled too.
+ * <p>
+ * Disabled until {@link #enable(int)}, from then on every frame carries a varint of its uncompressed length
+ * before the packet ID, or {@code 0} if the frame was not compressed. See {@link FrameInflater}.
+ */
+public class FrameCompressor extends MessageToMessageEncoder<ByteBuf> {
+
+    // the name of this handler within the pipeline
+    public static final String NAME = "lunar-compressor";
+
+    private final Deflater deflater = new Deflater();
+    private ChannelHandlerContext context;
+    // frames smaller than this are not compressed, -1 if disabled.
+    private int threshold = -1;
+
+    // payload bytes before and after compression, only written by the event loop
+    private volatile long rawBytes, writtenBytes;
+    private volatile long framesCompressed, framesSkipped;
+
+    /**
+     * Enable compression for frames written after this call
+     *
+     * @param threshold the minimum frame length to compress
+     */
+    public void enable(int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("Threshold must be positive");
+
+        if (context == null || context.executor().inEventLoop()) {
+            this.threshold = threshold;
+        } else {
+            context.executor().execute(() -> this.threshold = threshold);
+        }
+    }
+
+    /**
+     * @return the threshold or {@code -1} if disabled
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return amount of frame bytes before compression
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return amount of frame bytes written after compression
+     */
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    public long getFramesCompressed() {
+        return framesCompressed;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.context = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        deflater.end();
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        if (threshold < 0) {
+            out.add(msg.retain());
+            return;
+        }
+
+        final ProtocolFraming framing = ProtocolFraming.outbound(ctx.channel());
+        final int length = framing.readLength(msg);
+        final ByteBuf compressed = length >= threshold ? deflate(ctx.alloc(), msg, length) : null;
+
+        final ByteBuf header = ctx.alloc().ioBuffer(10);
+        if (compressed == null) {
+            framing.writeLength(header, length + 1);
+            header.writeByte(0);
+            out.add(header);
+            out.add(msg.readRetainedSlice(length));
+
+            framesSkipped++;
+            writtenBytes += length;
+        } else {
+            framing.writeLength(header, ProtocolFraming.varIntLength(length) + compressed.readableBytes());
+            ProtocolFraming.writeVarInt(header, length);
+            out.add(header);
+            out.add(compressed);
+
+            framesCompressed++;
+            writtenBytes += compressed.readableBytes();
+        }
+        rawBytes += length;
+    }
+
+    /**
+     * Deflate the payload of a frame
+     *
+     * @return the compressed payload or {@code null} if it would not be smaller
+     */
+    private ByteBuf deflate(ByteBufAllocator alloc, ByteBuf msg, int length) {
+        final ByteBuf compressed = alloc.ioBuffer(length);
+        try {
+            final ByteBuffer input = msg.nioBuffer(msg.readerIndex(), length);
+            if (input.isReadOnly() && !input.isDirect()) {
+                // read-only heap buffers have no accessible array, shared frames are read-only.
+                final byte[] contents = new byte[length];
+                msg.getBytes(msg.readerIndex(), contents);
+                deflater.setInput(contents);
+            } else {
+                deflater.setInput(input);
+            }
+            deflater.finish();
+            while (!deflater.finished() && compressed.writerIndex() < length) {
+                final int written = deflater.deflate(compressed.nioBuffer(compressed.writerIndex(), length - compressed.writerIndex()));
+                compressed.writerIndex(compressed.writerIndex() + written);
+            }
+
+            if (!deflater.finished()) {
+                // not worth it
+                compressed.release();
+                return null;
+            }
+            msg.skipBytes(length);
+            return compressed;
+        } catch (Exception any) {
+            compressed.release();
+            throw any;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+}
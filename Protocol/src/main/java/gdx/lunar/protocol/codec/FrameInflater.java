@@ -0,0 +1,107 @@
+package gdx.lunar.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AttributeKey;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Inflates frames written by {@link FrameCompressor}.
+ * Enabled per channel, the decoder inflates each frame after the length is stripped.
+ */
+public final class FrameInflater {
+
+    public static final AttributeKey<FrameInflater> KEY = AttributeKey.valueOf("lunar.inflater");
+
+    private final Inflater inflater = new Inflater();
+    private final int maxFrameLength;
+
+    // payload bytes received and after inflating, only written by the event loop
+    private volatile long receivedBytes, inflatedBytes;
+
+    private FrameInflater(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Inflate frames read from the provided channel from now on, this should be called from the decoder.
+     *
+     * @param channel        the channel
+     * @param maxFrameLength the max length of an inflated frame
+     */
+    public static void enable(Channel channel, int maxFrameLength) {
+        final FrameInflater inflater = new FrameInflater(maxFrameLength);
+        if (channel.attr(KEY).setIfAbsent(inflater) == null) {
+            channel.closeFuture().addListener(future -> inflater.inflater.end());
+        }
+    }
+
+    /**
+     * @param channel the channel
+     * @return the inflater of the channel or {@code null} if not enabled
+     */
+    public static FrameInflater of(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    /**
+     * Inflate the provided frame
+     *
+     * @param frame the frame, positioned after the length
+     * @param alloc the allocator
+     * @return {@code frame} if it was not compressed, otherwise a new buffer the caller must release.
+     */
+    public ByteBuf inflate(ByteBuf frame, ByteBufAllocator alloc) {
+        final int length = ProtocolFraming.readVarInt(frame);
+        receivedBytes += frame.readableBytes();
+        if (length == 0) {
+            inflatedBytes += frame.readableBytes();
+            return frame;
+        }
+        if (length > maxFrameLength) throw new TooLongFrameException("Inflated frame length exceeds " + maxFrameLength + ": " + length);
+
+        final ByteBuf inflated = alloc.heapBuffer(length, length);
+        try {
+            inflater.setInput(frame.nioBuffer());
+            while (!inflater.finished() && inflated.isWritable()) {
+                final int read = inflater.inflate(inflated.nioBuffer(inflated.writerIndex(), inflated.writableBytes()));
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                inflated.writerIndex(inflated.writerIndex() + read);
+            }
+
+            if (!inflater.finished() || inflated.isWritable()) {
+                throw new DecoderException("Badly compressed frame, expected " + length + " bytes");
+            }
+            inflatedBytes += length;
+            return inflated;
+        } catch (DataFormatException exception) {
+            inflated.release();
+            throw new DecoderException(exception);
+        } catch (Exception any) {
+            inflated.release();
+            throw any;
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * @return amount of frame bytes received
+     */
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    /**
+     * @return amount of frame bytes after inflating
+     */
+    public long getInflatedBytes() {
+        return inflatedBytes;
+    }
+
+}
@@ -0,0 +1,146 @@
+package gdx.lunar.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Writes and reads the position, velocity and rotation fields of movement packets.
+ * The codec is configured per world and sent to the client within {@code S2CPacketJoinWorld}.
+ */
+public interface MovementCodec {
+
+    // writes raw floats, the default.
+    MovementCodec RAW = new MovementCodec() {
+        @Override
+        public void writePositionX(ByteBuf out, float x) {
+            out.writeFloat(x);
+        }
+
+        @Override
+        public void writePositionY(ByteBuf out, float y) {
+            out.writeFloat(y);
+        }
+
+        @Override
+        public void writeVelocity(ByteBuf out, float velocity) {
+            out.writeFloat(velocity);
+        }
+
+        @Override
+        public void writeRotation(ByteBuf out, float rotation) {
+            out.writeFloat(rotation);
+        }
+
+        @Override
+        public float readPositionX(ByteBuf in) {
+            return in.readFloat();
+        }
+
+        @Override
+        public float readPositionY(ByteBuf in) {
+            return in.readFloat();
+        }
+
+        @Override
+        public float readVelocity(ByteBuf in) {
+            return in.readFloat();
+        }
+
+        @Override
+        public float readRotation(ByteBuf in) {
+            return in.readFloat();
+        }
+
+        @Override
+        public int positionLength() {
+            return 4;
+        }
+
+        @Override
+        public int velocityLength() {
+            return 4;
+        }
+
+        @Override
+        public int rotationLength() {
+            return 4;
+        }
+
+        @Override
+        public float getPositionX(ByteBuf in, int index) {
+            return in.getFloat(index);
+        }
+
+        @Override
+        public float getPositionY(ByteBuf in, int index) {
+            return in.getFloat(index);
+        }
+
+        @Override
+        public float getVelocity(ByteBuf in, int index) {
+            return in.getFloat(index);
+        }
+
+        @Override
+        public float getRotation(ByteBuf in, int index) {
+            return in.getFloat(index);
+        }
+    };
+
+    void writePositionX(ByteBuf out, float x);
+
+    void writePositionY(ByteBuf out, float y);
+
+    void writeVelocity(ByteBuf out, float velocity);
+
+    void writeRotation(ByteBuf out, float rotation);
+
+    float readPositionX(ByteBuf in);
+
+    float readPositionY(ByteBuf in);
+
+    float readVelocity(ByteBuf in);
+
+    float readRotation(ByteBuf in);
+
+    // fields are always written with the same amount of bytes, so they can be read in place.
+
+    int positionLength();
+
+    int velocityLength();
+
+    int rotationLength();
+
+    float getPositionX(ByteBuf in, int index);
+
+    float getPositionY(ByteBuf in, int index);
+
+    float getVelocity(ByteBuf in, int index);
+
+    float getRotation(ByteBuf in, int index);
+
+    /**
+     * Write the parameters of the provided codec
+     *
+     * @param out   the buffer
+     * @param codec the codec
+     */
+    static void write(ByteBuf out, MovementCodec codec) {
+        if (codec instanceof QuantizedMovementCodec quantized) {
+            out.writeBoolean(true);
+            quantized.writeParameters(out);
+        } else {
+            out.writeBoolean(false);
+        }
+    }
+
+    /**
+     * Read the parameters of a codec written with {@link #write(ByteBuf, MovementCodec)}
+     *
+     * @param in the buffer
+     * @return the codec
+     */
+    static MovementCodec read(ByteBuf in) {
+        return in.readBoolean() ? QuantizedMovementCodec.readParameters(in) : RAW;
+    }
+
+}
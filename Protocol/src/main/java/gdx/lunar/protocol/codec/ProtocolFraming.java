@@ -0,0 +1,338 @@
+package gdx.lunar.protocol.codec;
+
+import gdx.lunar.protocol.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AttributeKey;
+
+/**
+ * The wire format of frames, selected by the protocol version sent within {@code C2SPacketAuthenticate}.
+ * <p>
+ * v1: int length, int packet ID, payload.
+ * v2: varint length, varint packet ID, payload. Entity IDs within player packets are varints.
+ * <p>
+ * Every connection starts with v1, the client switches outbound frames after sending its authentication
+ * and the server switches inbound frames after accepting it. The server only accepts versions it supports,
+ * so the version the client sent is always the version used. The authentication response is always v1,
+ * each side then switches the other direction.
+ */
+public enum ProtocolFraming {
+
+    V1(1) {
+        @Override
+        public void writeFrame(Packet packet, ByteBuf out, StringTable strings) {
+            final int lengthIndex = out.writerIndex();
+            // reserve the length, written once the packet is encoded.
+            out.writeInt(0);
+            packet.encode(out, this, strings);
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+
+        @Override
+        public int frameCapacity(int encodedSize) {
+            return 4 + encodedSize;
+        }
+
+        @Override
+        public int readId(ByteBuf frame) {
+            return frame.readInt();
+        }
+
+        @Override
+        public void writeLength(ByteBuf out, int length) {
+            out.writeInt(length);
+        }
+
+        @Override
+        public int readLength(ByteBuf frame) {
+            return frame.readInt();
+        }
+
+        @Override
+        public void writeEntityId(ByteBuf out, int entityId) {
+            out.writeInt(entityId);
+        }
+
+        @Override
+        public int readEntityId(ByteBuf in) {
+            return in.readInt();
+        }
+    },
+
+    V2(2) {
+        @Override
+        public void writeFrame(Packet packet, ByteBuf out, StringTable strings) {
+            final int start = out.writerIndex();
+            // reserve room for the largest header, the int ID the packet writes is rewritten into it.
+            out.writeZero(MAX_HEADER_LENGTH - 4);
+            final int idIndex = out.writerIndex();
+            packet.encode(out, this, strings);
+
+            final int bodyIndex = idIndex + 4;
+            final int end = out.writerIndex();
+            if (end < bodyIndex || out.getInt(idIndex) != packet.getId()) {
+                throw new IllegalStateException("Packet " + packet.getId() + " must write its ID first");
+            }
+
+            final int id = packet.getId();
+            final int frameLength = varIntLength(id) + (end - bodyIndex);
+            final int headerIndex = bodyIndex - varIntLength(frameLength) - varIntLength(id);
+            setVarInt(out, setVarInt(out, headerIndex, frameLength), id);
+
+            if (out.readerIndex() == start) {
+                // nothing before this frame, skip the unused reserved bytes instead of moving the frame.
+                out.readerIndex(headerIndex);
+            } else {
+                final ByteBuf frame = out.copy(headerIndex, end - headerIndex);
+                try {
+                    out.writerIndex(start);
+                    out.writeBytes(frame);
+                } finally {
+                    frame.release();
+                }
+            }
+        }
+
+        @Override
+        public int frameCapacity(int encodedSize) {
+            // the reserved header is written in front of the int ID
+            return MAX_HEADER_LENGTH - 4 + encodedSize;
+        }
+
+        @Override
+        public int readId(ByteBuf frame) {
+            return readVarInt(frame);
+        }
+
+        @Override
+        public void writeLength(ByteBuf out, int length) {
+            writeVarInt(out, length);
+        }
+
+        @Override
+        public int readLength(ByteBuf frame) {
+            return readVarInt(frame);
+        }
+
+        @Override
+        public void writeEntityId(ByteBuf out, int entityId) {
+            writeVarInt(out, entityId);
+        }
+
+        @Override
+        public int readEntityId(ByteBuf in) {
+            return readVarInt(in);
+        }
+    };
+
+    // outbound and inbound framing of a channel, v1 if unset.
+    public static final AttributeKey<ProtocolFraming> OUTBOUND = AttributeKey.valueOf("lunar.framing.outbound");
+    public static final AttributeKey<ProtocolFraming> INBOUND = AttributeKey.valueOf("lunar.framing.inbound");
+
+    // 5 byte varint length and 5 byte varint ID, the largest header of any framing
+    public static final int MAX_HEADER_LENGTH = 10;
+
+    private final int version;
+
+    ProtocolFraming(int version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the protocol version of this framing
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Write the frame header + packet into {@code out}
+     *
+     * @param packet the packet
+     * @param out    the frame buffer
+     */
+    public void writeFrame(Packet packet, ByteBuf out) {
+        writeFrame(packet, out, null);
+    }
+
+    /**
+     * Write the frame header + packet into {@code out}
+     *
+     * @param packet  the packet
+     * @param out     the frame buffer
+     * @param strings the string table of the connection or {@code null} if none
+     */
+    public abstract void writeFrame(Packet packet, ByteBuf out, StringTable strings);
+
+    /**
+     * @param encodedSize the encoded size of a packet, see {@link Packet#getEncodedSize()}
+     * @return the capacity {@link #writeFrame(Packet, ByteBuf)} needs to write the packet without growing the buffer
+     */
+    public abstract int frameCapacity(int encodedSize);
+
+    /**
+     * Read the packet ID of a frame, the length is already stripped.
+     *
+     * @param frame the frame
+     * @return the packet ID
+     */
+    public abstract int readId(ByteBuf frame);
+
+    /**
+     * Write the length header of a frame
+     *
+     * @param out    the buffer
+     * @param length the length of the frame, excluding the header
+     */
+    public abstract void writeLength(ByteBuf out, int length);
+
+    /**
+     * Read the length header of a complete frame written by {@link #writeFrame(Packet, ByteBuf)}
+     *
+     * @param frame the frame
+     * @return the length of the frame, excluding the header
+     */
+    public abstract int readLength(ByteBuf frame);
+
+    public abstract void writeEntityId(ByteBuf out, int entityId);
+
+    public abstract int readEntityId(ByteBuf in);
+
+    /**
+     * @param version the protocol version
+     * @return the framing to use for the provided protocol version
+     */
+    public static ProtocolFraming forVersion(int version) {
+        return version >= V2.version ? V2 : V1;
+    }
+
+    /**
+     * @param channel the channel
+     * @return the framing of frames written to the channel
+     */
+    public static ProtocolFraming outbound(Channel channel) {
+        final ProtocolFraming framing = channel.attr(OUTBOUND).get();
+        return framing == null ? V1 : framing;
+    }
+
+    /**
+     * @param channel the channel
+     * @return the framing of frames read from the channel
+     */
+    public static ProtocolFraming inbound(Channel channel) {
+        final ProtocolFraming framing = channel.attr(INBOUND).get();
+        return framing == null ? V1 : framing;
+    }
+
+    /**
+     * Set the framing of frames written to the channel.
+     * Off the event loop this is ordered after any writes already submitted.
+     *
+     * @param channel the channel
+     * @param framing the framing
+     */
+    public static void setOutbound(Channel channel, ProtocolFraming framing) {
+        if (channel.eventLoop().inEventLoop()) {
+            channel.attr(OUTBOUND).set(framing);
+        } else {
+            channel.eventLoop().execute(() -> channel.attr(OUTBOUND).set(framing));
+        }
+    }
+
+    /**
+     * Set the framing of frames read from the channel, this should be called from the decoder.
+     *
+     * @param channel the channel
+     * @param framing the framing
+     */
+    public static void setInbound(Channel channel, ProtocolFraming framing) {
+        channel.attr(INBOUND).set(framing);
+    }
+
+    /**
+     * Read a v2 frame, the header is stripped.
+     *
+     * @param in             cumulated bytes
+     * @param maxFrameLength the max length of a frame
+     * @return the frame or {@code null} if not enough bytes were received yet
+     */
+    public static ByteBuf readVarIntFrame(ByteBuf in, int maxFrameLength) {
+        int index = in.readerIndex();
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= 35) {
+                in.skipBytes(in.readableBytes());
+                throw new CorruptedFrameException("Frame length is malformed");
+            }
+            if (index >= in.writerIndex()) return null;
+
+            final byte b = in.getByte(index++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+
+        if (length < 0 || length > maxFrameLength) {
+            // the stream cannot be resynchronized
+            in.skipBytes(in.readableBytes());
+            throw new TooLongFrameException("Adjusted frame length exceeds " + maxFrameLength + ": " + length);
+        }
+        if (in.writerIndex() - index < length) return null;
+
+        in.readerIndex(index);
+        return in.readRetainedSlice(length);
+    }
+
+    /**
+     * @param value the value
+     * @return the amount of bytes the value takes as a varint
+     */
+    public static int varIntLength(int value) {
+        if ((value & 0xFFFFFF80) == 0) return 1;
+        if ((value & 0xFFFFC000) == 0) return 2;
+        if ((value & 0xFFE00000) == 0) return 3;
+        if ((value & 0xF0000000) == 0) return 4;
+        return 5;
+    }
+
+    public static void writeVarInt(ByteBuf out, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read a varint, frames are complete once read, so running out of bytes means the frame is corrupted.
+     *
+     * @param in the buffer
+     * @return the value
+     */
+    public static int readVarInt(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!in.isReadable()) throw new CorruptedFrameException("VarInt is truncated");
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new CorruptedFrameException("VarInt is too long");
+    }
+
+    /**
+     * Set a varint at the provided index
+     *
+     * @return the index after the varint
+     */
+    private static int setVarInt(ByteBuf out, int index, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            out.setByte(index++, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.setByte(index++, value);
+        return index;
+    }
+
+}
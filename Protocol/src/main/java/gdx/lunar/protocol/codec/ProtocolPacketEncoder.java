@@ -1,31 +1,114 @@
 package gdx.lunar.protocol.codec;
 
 import gdx.lunar.protocol.packet.Packet;
+import gdx.lunar.protocol.packet.PooledGamePacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
 /**
  * Encodes incoming packets then appends the length + packet.
+ * Packets are written directly into the outbound frame and the length is written after.
+ * The header format is the {@link ProtocolFraming} of the channel.
+ * Pooled packets are returned to their pool once written.
+ * Frames of packets that know their encoded size are allocated with exactly the capacity they need.
+ * Subclasses may customise framing by overriding {@link #writeFrame(Packet, ByteBuf, ProtocolFraming, StringTable)}.
  * <p>
  * 10-12-2021: Allow this to be extended.
  */
 @ChannelHandler.Sharable
 public class ProtocolPacketEncoder extends MessageToByteEncoder<Packet> {
+
+    // encodes frames shared between channels with the default framing
+    private static final ProtocolPacketEncoder SHARED = new ProtocolPacketEncoder();
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Packet packet, ByteBuf out) {
+        final StringTable strings = StringTable.outbound(ctx.channel());
+        final int start = out.writerIndex();
+        final int defined = strings == null ? 0 : strings.size();
         try {
-            packet.encode();
-
-            final int length = packet.getBuffer().readableBytes();
-            out.writeInt(length);
-            out.writeBytes(packet.getBuffer());
+            writeFrame(packet, out, ProtocolFraming.outbound(ctx.channel()), strings);
         } catch (Exception any) {
+            // discard anything partially written, including strings defined within it
+            out.writerIndex(start);
+            if (strings != null) strings.rollback(defined);
             ctx.fireExceptionCaught(any);
         } finally {
-            packet.release();
+            if (packet instanceof PooledGamePacket pooled) pooled.release();
+        }
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Packet packet, boolean preferDirect) throws Exception {
+        final int size = packet.getEncodedSize();
+        if (size < 0) return super.allocateBuffer(ctx, packet, preferDirect);
+
+        final int capacity = ProtocolFraming.outbound(ctx.channel()).frameCapacity(size);
+        return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
+    }
+
+    /**
+     * Encode the provided packet once into a read-only frame that can be written to many channels.
+     * Each channel should be given a {@code retainedDuplicate()} of the frame, the frame itself must be released by the caller.
+     *
+     * @param allocator the allocator
+     * @param packet    the packet
+     * @return the encoded frame
+     */
+    public static ByteBuf encodeShared(ByteBufAllocator allocator, Packet packet) {
+        return encodeShared(allocator, packet, ProtocolFraming.V1);
+    }
+
+    /**
+     * Encode the provided packet once with the default encoder, see {@link #encodeFrame(ByteBufAllocator, Packet, ProtocolFraming)}
+     *
+     * @param allocator the allocator
+     * @param packet    the packet
+     * @param framing   the framing
+     * @return the encoded frame
+     * @throws IllegalArgumentException if the packet uses the string table
+     */
+    public static ByteBuf encodeShared(ByteBufAllocator allocator, Packet packet, ProtocolFraming framing) {
+        return SHARED.encodeFrame(allocator, packet, framing);
+    }
+
+    /**
+     * Encode the provided packet once into a read-only frame that can be written to many channels using the same framing.
+     * Each channel should be given a {@code retainedDuplicate()} of the frame, the frame itself must be released by the caller.
+     *
+     * @param allocator the allocator
+     * @param packet    the packet
+     * @param framing   the framing
+     * @return the encoded frame
+     * @throws IllegalArgumentException if the packet uses the string table
+     */
+    public ByteBuf encodeFrame(ByteBufAllocator allocator, Packet packet, ProtocolFraming framing) {
+        if (packet.usesStringTable()) throw new IllegalArgumentException("Packet " + packet.getId() + " uses the string table and cannot be shared");
+        final int size = packet.getEncodedSize();
+        final ByteBuf frame = size < 0 ? allocator.ioBuffer() : allocator.ioBuffer(framing.frameCapacity(size));
+        try {
+            writeFrame(packet, frame, framing, null);
+        } catch (Exception any) {
+            frame.release();
+            throw any;
         }
+        return frame.asReadOnly();
+    }
+
+    /**
+     * Write the frame header + packet into {@code out}, override to customise framing.
+     * Both frames written to a single channel and shared frames are written with this.
+     *
+     * @param packet  the packet
+     * @param out     the frame buffer
+     * @param framing the framing of the channel
+     * @param strings the string table of the channel or {@code null} if none
+     */
+    protected void writeFrame(Packet packet, ByteBuf out, ProtocolFraming framing, StringTable strings) {
+        framing.writeFrame(packet, out, strings);
     }
 
 }
@@ -0,0 +1,241 @@
+package gdx.lunar.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Packs movement fields into fixed-point integers.
+ * <p>
+ * Positions are relative to the world bounds and written with 16, 24 or 32 bits per axis,
+ * velocities are written with 16 bits within {@code -maxVelocity} to {@code maxVelocity},
+ * and rotation is wrapped into {@code 0} to {@code rotationRange} and written with 8 to 16 bits.
+ * <p>
+ * Values outside of their range are clamped, values within are guaranteed to be within
+ * {@link #getPositionErrorX()}, {@link #getPositionErrorY()}, {@link #getVelocityError()} and {@link #getRotationError()}
+ * of what was written. The bounds include float rounding of the value read back.
+ */
+public final class QuantizedMovementCodec implements MovementCodec {
+
+    // range of a full turn in radians.
+    public static final float FULL_TURN = (float) (Math.PI * 2.0);
+
+    private static final int VELOCITY_STEPS = Short.MAX_VALUE;
+
+    private final float minX, minY, maxX, maxY;
+    private final float maxVelocity, rotationRange;
+    private final int positionBits, rotationBits;
+
+    // max fixed-point position and rotation values
+    private final long positionSteps;
+    private final int rotationSteps;
+
+    /**
+     * Initialize a new codec
+     *
+     * @param minX          world bounds min X
+     * @param minY          world bounds min Y
+     * @param maxX          world bounds max X
+     * @param maxY          world bounds max Y
+     * @param positionBits  bits per position axis, 16, 24 or 32
+     * @param maxVelocity   the max velocity on either axis
+     * @param rotationBits  bits for rotation, 8 to 16
+     * @param rotationRange rotation range, usually {@link #FULL_TURN}
+     */
+    public QuantizedMovementCodec(float minX, float minY, float maxX, float maxY, int positionBits,
+                                  float maxVelocity, int rotationBits, float rotationRange) {
+        if (!(maxX > minX) || !(maxY > minY)) throw new IllegalArgumentException("Invalid world bounds");
+        if (positionBits != 16 && positionBits != 24 && positionBits != 32)
+            throw new IllegalArgumentException("Position bits must be 16, 24 or 32, got " + positionBits);
+        if (!(maxVelocity > 0)) throw new IllegalArgumentException("Max velocity must be positive");
+        if (rotationBits < 8 || rotationBits > 16)
+            throw new IllegalArgumentException("Rotation bits must be within 8 and 16, got " + rotationBits);
+        if (!(rotationRange > 0)) throw new IllegalArgumentException("Rotation range must be positive");
+
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.positionBits = positionBits;
+        this.maxVelocity = maxVelocity;
+        this.rotationBits = rotationBits;
+        this.rotationRange = rotationRange;
+        this.positionSteps = (1L << positionBits) - 1;
+        this.rotationSteps = 1 << rotationBits;
+    }
+
+    /**
+     * Initialize a new codec with 16 bit positions and 10 bit rotation over a full turn
+     *
+     * @param minX        world bounds min X
+     * @param minY        world bounds min Y
+     * @param maxX        world bounds max X
+     * @param maxY        world bounds max Y
+     * @param maxVelocity the max velocity on either axis
+     */
+    public QuantizedMovementCodec(float minX, float minY, float maxX, float maxY, float maxVelocity) {
+        this(minX, minY, maxX, maxY, 16, maxVelocity, 10, FULL_TURN);
+    }
+
+    /**
+     * @return the max error of a position X within bounds
+     */
+    public float getPositionErrorX() {
+        return (float) ((maxX - (double) minX) / positionSteps / 2.0) + Math.ulp(Math.max(Math.abs(minX), Math.abs(maxX)));
+    }
+
+    /**
+     * @return the max error of a position Y within bounds
+     */
+    public float getPositionErrorY() {
+        return (float) ((maxY - (double) minY) / positionSteps / 2.0) + Math.ulp(Math.max(Math.abs(minY), Math.abs(maxY)));
+    }
+
+    /**
+     * @return the max error of a velocity within range
+     */
+    public float getVelocityError() {
+        return maxVelocity / VELOCITY_STEPS / 2.0f + Math.ulp(maxVelocity);
+    }
+
+    /**
+     * @return the max error of a rotation, after wrapping
+     */
+    public float getRotationError() {
+        return rotationRange / rotationSteps / 2.0f + Math.ulp(rotationRange);
+    }
+
+    @Override
+    public void writePositionX(ByteBuf out, float x) {
+        writePosition(out, quantize(x, minX, maxX, positionSteps));
+    }
+
+    @Override
+    public void writePositionY(ByteBuf out, float y) {
+        writePosition(out, quantize(y, minY, maxY, positionSteps));
+    }
+
+    @Override
+    public void writeVelocity(ByteBuf out, float velocity) {
+        final float clamped = Math.max(-maxVelocity, Math.min(maxVelocity, velocity));
+        out.writeShort(Math.round(clamped / maxVelocity * VELOCITY_STEPS));
+    }
+
+    @Override
+    public void writeRotation(ByteBuf out, float rotation) {
+        double wrapped = rotation % (double) rotationRange;
+        if (wrapped < 0) wrapped += rotationRange;
+
+        final int value = (int) Math.round(wrapped / rotationRange * rotationSteps) & (rotationSteps - 1);
+        if (rotationBits <= 8) {
+            out.writeByte(value);
+        } else {
+            out.writeShort(value);
+        }
+    }
+
+    @Override
+    public float readPositionX(ByteBuf in) {
+        return dequantize(readPosition(in), minX, maxX, positionSteps);
+    }
+
+    @Override
+    public float readPositionY(ByteBuf in) {
+        return dequantize(readPosition(in), minY, maxY, positionSteps);
+    }
+
+    @Override
+    public float readVelocity(ByteBuf in) {
+        return in.readShort() * maxVelocity / VELOCITY_STEPS;
+    }
+
+    @Override
+    public float readRotation(ByteBuf in) {
+        final int value = rotationBits <= 8 ? in.readUnsignedByte() : in.readUnsignedShort();
+        return (float) ((double) value * rotationRange / rotationSteps);
+    }
+
+    @Override
+    public int positionLength() {
+        return positionBits / 8;
+    }
+
+    @Override
+    public int velocityLength() {
+        return 2;
+    }
+
+    @Override
+    public int rotationLength() {
+        return rotationBits <= 8 ? 1 : 2;
+    }
+
+    @Override
+    public float getPositionX(ByteBuf in, int index) {
+        return dequantize(getPosition(in, index), minX, maxX, positionSteps);
+    }
+
+    @Override
+    public float getPositionY(ByteBuf in, int index) {
+        return dequantize(getPosition(in, index), minY, maxY, positionSteps);
+    }
+
+    @Override
+    public float getVelocity(ByteBuf in, int index) {
+        return in.getShort(index) * maxVelocity / VELOCITY_STEPS;
+    }
+
+    @Override
+    public float getRotation(ByteBuf in, int index) {
+        final int value = rotationBits <= 8 ? in.getUnsignedByte(index) : in.getUnsignedShort(index);
+        return (float) ((double) value * rotationRange / rotationSteps);
+    }
+
+    private void writePosition(ByteBuf out, long value) {
+        switch (positionBits) {
+            case 16 -> out.writeShort((int) value);
+            case 24 -> out.writeMedium((int) value);
+            default -> out.writeInt((int) value);
+        }
+    }
+
+    private long readPosition(ByteBuf in) {
+        return switch (positionBits) {
+            case 16 -> in.readUnsignedShort();
+            case 24 -> in.readUnsignedMedium();
+            default -> in.readUnsignedInt();
+        };
+    }
+
+    private long getPosition(ByteBuf in, int index) {
+        return switch (positionBits) {
+            case 16 -> in.getUnsignedShort(index);
+            case 24 -> in.getUnsignedMedium(index);
+            default -> in.getUnsignedInt(index);
+        };
+    }
+
+    void writeParameters(ByteBuf out) {
+        out.writeFloat(minX);
+        out.writeFloat(minY);
+        out.writeFloat(maxX);
+        out.writeFloat(maxY);
+        out.writeByte(positionBits);
+        out.writeFloat(maxVelocity);
+        out.writeByte(rotationBits);
+        out.writeFloat(rotationRange);
+    }
+
+    static QuantizedMovementCodec readParameters(ByteBuf in) {
+        return new QuantizedMovementCodec(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                in.readUnsignedByte(), in.readFloat(), in.readUnsignedByte(), in.readFloat());
+    }
+
+    private static long quantize(float value, float min, float max, long steps) {
+        final double clamped = Math.max(min, Math.min(max, value));
+        return Math.round((clamped - min) / ((double) max - min) * steps);
+    }
+
+    private static float dequantize(long value, float min, float max, long steps) {
+        return (float) (min + value * ((double) max - min) / steps);
+    }
+
+}
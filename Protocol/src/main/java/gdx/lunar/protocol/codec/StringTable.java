@@ -0,0 +1,231 @@
+package gdx.lunar.protocol.codec;
+
+import com.badlogic.gdx.utils.ObjectIntMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AttributeKey;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A per-connection dictionary of strings that are sent repeatedly, like usernames.
+ * The first time a string is written it is defined and assigned the next token, after that only the token is written.
+ * The reading side assigns tokens in the same order and returns the cached string, so nothing is allocated.
+ * <p>
+ * Each string is written as a varint code:
+ * {@code 0} null, {@code 1} a string that is not cached, {@code 2} a definition,
+ * or {@code 3 + token} for a string already defined. Strings are a varint length and UTF-8 bytes.
+ * <p>
+ * Tables are negotiated within the authentication packets and only used for server to client frames.
+ * An outbound table is only used by the encoder, so tokens are defined in the same order frames are written.
+ * Definitions written into a frame that is then discarded must be undone with {@link #rollback(int)}, the reading side never sees them.
+ * Without a table strings are written as an int length and UTF-8 bytes, the same as {@code GamePacket.writeString}.
+ */
+public final class StringTable {
+
+    // outbound and inbound table of a channel, none if unset.
+    public static final AttributeKey<StringTable> OUTBOUND = AttributeKey.valueOf("lunar.strings.outbound");
+    public static final AttributeKey<StringTable> INBOUND = AttributeKey.valueOf("lunar.strings.inbound");
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int NULL = 0, LITERAL = 1, DEFINITION = 2, TOKEN = 3;
+
+    private final int capacity;
+    // tokens of defined strings, used when writing
+    private final ObjectIntMap<String> tokens = new ObjectIntMap<>();
+    // defined strings by token
+    private String[] strings = new String[16];
+    private int size;
+
+    /**
+     * @param capacity the max amount of strings defined, any after are sent without being cached
+     */
+    public StringTable(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the max amount of strings defined
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the amount of strings defined
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write a string, defining it if it was not written before
+     *
+     * @param out   the buffer
+     * @param value the value or {@code null}
+     */
+    public void write(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        final int token = tokens.get(value, -1);
+        if (token != -1) {
+            ProtocolFraming.writeVarInt(out, TOKEN + token);
+        } else if (size < capacity) {
+            define(value);
+            tokens.put(value, size - 1);
+            out.writeByte(DEFINITION);
+            writeUtf8(out, value);
+        } else {
+            out.writeByte(LITERAL);
+            writeUtf8(out, value);
+        }
+    }
+
+    /**
+     * Read a string written by {@link #write(ByteBuf, String)}
+     *
+     * @param in the buffer
+     * @return the string or {@code null}
+     */
+    public String read(ByteBuf in) {
+        final int code = ProtocolFraming.readVarInt(in);
+        switch (code) {
+            case NULL:
+                return null;
+            case LITERAL:
+                return readUtf8(in);
+            case DEFINITION:
+                if (size == capacity) throw new CorruptedFrameException("String table is full");
+                final String value = readUtf8(in);
+                define(value);
+                return value;
+            default:
+                final int token = code - TOKEN;
+                if (token < 0 || token >= size) throw new CorruptedFrameException("Unknown string token " + token);
+                return strings[token];
+        }
+    }
+
+    /**
+     * Forget every string defined after the provided size, used when the frame they were written into is discarded
+     *
+     * @param size the size before the frame was written, see {@link #size()}
+     */
+    public void rollback(int size) {
+        if (size < 0 || size > this.size) throw new IllegalArgumentException("Cannot roll back to " + size + ", size is " + this.size);
+
+        for (int token = size; token < this.size; token++) {
+            tokens.remove(strings[token], -1);
+            strings[token] = null;
+        }
+        this.size = size;
+    }
+
+    private void define(String value) {
+        if (size == strings.length) {
+            final String[] grown = new String[Math.min(capacity, size * 2)];
+            System.arraycopy(strings, 0, grown, 0, size);
+            strings = grown;
+        }
+        strings[size++] = value;
+    }
+
+    /**
+     * Write a string with the provided table, or as an int length and UTF-8 bytes if there is none
+     *
+     * @param out   the buffer
+     * @param value the value, without a table {@code null} is written as an empty string
+     * @param table the table or {@code null}
+     */
+    public static void write(ByteBuf out, String value, StringTable table) {
+        if (table != null) {
+            table.write(out, value);
+        } else if (value == null) {
+            out.writeInt(0);
+        } else {
+            out.writeInt(ByteBufUtil.utf8Bytes(value));
+            ByteBufUtil.writeUtf8(out, value);
+        }
+    }
+
+    /**
+     * Read a string written by {@link #write(ByteBuf, String, StringTable)}
+     *
+     * @param in    the buffer
+     * @param table the table or {@code null}
+     * @return the string
+     */
+    public static String read(ByteBuf in, StringTable table) {
+        if (table != null) return table.read(in);
+        return in.readCharSequence(in.readInt(), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @param value the value
+     * @return the max amount of bytes {@link #write(ByteBuf, String, StringTable)} writes for the value, with or without a table
+     */
+    public static int maxEncodedLength(String value) {
+        if (value == null) return 4;
+        final int length = ByteBufUtil.utf8Bytes(value);
+        // a code and varint length with a table, an int length without, or a token of at most 5 bytes
+        return Math.max(Math.max(1 + ProtocolFraming.varIntLength(length), 4) + length, 5);
+    }
+
+    /**
+     * @param channel the channel
+     * @return the table strings written to the channel are defined in, or {@code null} if none
+     */
+    public static StringTable outbound(Channel channel) {
+        return channel.attr(OUTBOUND).get();
+    }
+
+    /**
+     * @param channel the channel
+     * @return the table strings read from the channel are defined in, or {@code null} if none
+     */
+    public static StringTable inbound(Channel channel) {
+        return channel.attr(INBOUND).get();
+    }
+
+    /**
+     * Set the table of strings written to the channel.
+     * Applied on the event loop, so frames already being written are not affected.
+     *
+     * @param channel the channel
+     * @param table   the table
+     */
+    public static void setOutbound(Channel channel, StringTable table) {
+        if (channel.eventLoop().inEventLoop()) {
+            channel.attr(OUTBOUND).set(table);
+        } else {
+            channel.eventLoop().execute(() -> channel.attr(OUTBOUND).set(table));
+        }
+    }
+
+    /**
+     * Set the table of strings read from the channel, this should be called from the decoder.
+     *
+     * @param channel the channel
+     * @param table   the table
+     */
+    public static void setInbound(Channel channel, StringTable table) {
+        channel.attr(INBOUND).set(table);
+    }
+
+    private static void writeUtf8(ByteBuf out, String value) {
+        ProtocolFraming.writeVarInt(out, ByteBufUtil.utf8Bytes(value));
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    private static String readUtf8(ByteBuf in) {
+        return in.readCharSequence(ProtocolFraming.readVarInt(in), StandardCharsets.UTF_8).toString();
+    }
+
+}
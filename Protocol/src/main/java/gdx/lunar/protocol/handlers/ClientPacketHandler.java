@@ -1,10 +1,16 @@
 package gdx.lunar.protocol.handlers;
 
+import gdx.lunar.protocol.codec.MovementCodec;
 import gdx.lunar.protocol.packet.Packet;
 import gdx.lunar.protocol.packet.client.*;
+import gdx.lunar.protocol.packet.view.C2SPingView;
+import gdx.lunar.protocol.packet.view.C2SPlayerPositionView;
+import gdx.lunar.protocol.packet.view.C2SPlayerStateView;
+import gdx.lunar.protocol.packet.view.C2SPlayerVelocityView;
 
 /**
  * A base implementation of a handler for client packets
+ * Movement and ping packets are pooled and must not be kept after the handle method returns, see {@link gdx.lunar.protocol.packet.PooledGamePacket}
  */
 public interface ClientPacketHandler {
 
@@ -29,6 +35,17 @@ public interface ClientPacketHandler {
      */
     void handlePing(C2SPacketPing packet);
 
+    /**
+     * Handle the {@link C2SPacketPing} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePing(packet)}
+     */
+    default boolean handlePing(C2SPingView view) {
+        return false;
+    }
+
     /**
      * Handle the {@link C2SPacketJoinWorld}
      *
@@ -50,6 +67,17 @@ public interface ClientPacketHandler {
      */
     void handlePlayerPosition(C2SPacketPlayerPosition packet);
 
+    /**
+     * Handle the {@link C2SPacketPlayerPosition} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePlayerPosition(packet)}
+     */
+    default boolean handlePlayerPosition(C2SPlayerPositionView view) {
+        return false;
+    }
+
     /**
      * Handle the {@link C2SPacketPlayerVelocity}
      *
@@ -57,6 +85,42 @@ public interface ClientPacketHandler {
      */
     void handlePlayerVelocity(C2SPacketPlayerVelocity packet);
 
+    /**
+     * Handle the {@link C2SPacketPlayerVelocity} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePlayerVelocity(packet)}
+     */
+    default boolean handlePlayerVelocity(C2SPlayerVelocityView view) {
+        return false;
+    }
+
+    /**
+     * Handle the {@link C2SPacketPlayerState}
+     *
+     * @param packet the packet
+     */
+    void handlePlayerState(C2SPacketPlayerState packet);
+
+    /**
+     * Handle the {@link C2SPacketPlayerState} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePlayerState(packet)}
+     */
+    default boolean handlePlayerState(C2SPlayerStateView view) {
+        return false;
+    }
+
+    /**
+     * @return the codec movement packets are read with
+     */
+    default MovementCodec getMovementCodec() {
+        return MovementCodec.RAW;
+    }
+
     /**
      * Handle any
      *
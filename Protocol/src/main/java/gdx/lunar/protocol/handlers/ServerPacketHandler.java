@@ -1,10 +1,17 @@
 package gdx.lunar.protocol.handlers;
 
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.packet.Packet;
 import gdx.lunar.protocol.packet.server.*;
+import gdx.lunar.protocol.packet.view.S2CPingView;
+import gdx.lunar.protocol.packet.view.S2CPlayerPositionView;
+import gdx.lunar.protocol.packet.view.S2CPlayerVelocityView;
 
 /**
  * Represents a packet handler handling packets from the server
+ * Movement, ping and property packets are pooled and must not be kept after the handle method returns, see {@link gdx.lunar.protocol.packet.PooledGamePacket}
  */
 public interface ServerPacketHandler {
 
@@ -29,6 +36,17 @@ public interface ServerPacketHandler {
      */
     void handlePing(S2CPacketPing packet);
 
+    /**
+     * Handle the {@link S2CPacketPing} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePing(packet)}
+     */
+    default boolean handlePing(S2CPingView view) {
+        return false;
+    }
+
     /**
      * Handle the {@link S2CPacketWorldInvalid}
      *
@@ -71,6 +89,17 @@ public interface ServerPacketHandler {
      */
     void handlePlayerPosition(S2CPacketPlayerPosition packet);
 
+    /**
+     * Handle the {@link S2CPacketPlayerPosition} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePlayerPosition(packet)}
+     */
+    default boolean handlePlayerPosition(S2CPlayerPositionView view) {
+        return false;
+    }
+
     /**
      * Handle the {@link S2CPacketPlayerVelocity}
      *
@@ -78,6 +107,17 @@ public interface ServerPacketHandler {
      */
     void handlePlayerVelocity(S2CPacketPlayerVelocity packet);
 
+    /**
+     * Handle the {@link S2CPacketPlayerVelocity} in place, without decoding it into a packet.
+     * The view is only valid during this call.
+     *
+     * @param view the view
+     * @return {@code true} if handled, otherwise the packet is decoded and passed to {@code handlePlayerVelocity(packet)}
+     */
+    default boolean handlePlayerVelocity(S2CPlayerVelocityView view) {
+        return false;
+    }
+
     /**
      * Handle the {@link S2CPacketStartGame}
      *
@@ -85,6 +125,34 @@ public interface ServerPacketHandler {
      */
     void handleStartGame(S2CPacketStartGame packet);
 
+    /**
+     * Handle the {@link S2CPacketWorldSnapshot}
+     *
+     * @param packet the packet
+     */
+    void handleWorldSnapshot(S2CPacketWorldSnapshot packet);
+
+    /**
+     * @return the codec movement packets are read with
+     */
+    default MovementCodec getMovementCodec() {
+        return MovementCodec.RAW;
+    }
+
+    /**
+     * @return the framing packets are read with
+     */
+    default ProtocolFraming getFraming() {
+        return ProtocolFraming.V1;
+    }
+
+    /**
+     * @return the string table strings are read with, or {@code null} if none was negotiated
+     */
+    default StringTable getStringTable() {
+        return null;
+    }
+
     /**
      * Handle any
      *
@@ -0,0 +1,24 @@
+package gdx.lunar.protocol.packet;
+
+/**
+ * What happens to a packet written to a connection that is not writable, the client is not reading fast enough.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Always written, the packet must arrive.
+     */
+    RELIABLE,
+
+    /**
+     * Dropped while the connection is not writable, the packet is only useful right now.
+     */
+    DROP,
+
+    /**
+     * Held while the connection is not writable, a newer packet with the same {@link Packet#getSupersedeKey()} replaces it.
+     * Held packets are written once the connection is writable again, so only the latest state is sent.
+     */
+    SUPERSEDE
+
+}
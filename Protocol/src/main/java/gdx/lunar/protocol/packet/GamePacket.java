@@ -1,5 +1,6 @@
 package gdx.lunar.protocol.packet;
 
+import gdx.lunar.protocol.codec.StringTable;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 
@@ -8,10 +9,16 @@ import java.nio.charset.StandardCharsets;
 /**
  * Default implementation of the {@link Packet} outline
  * Includes convince functions for writing and reading
+ * <p>
+ * Implementations should override {@link #encode(ByteBuf)} to write straight into the outbound frame,
+ * overriding {@link #encode()} instead is still supported and will write into the frame through {@code buffer}.
+ * At least one of the two must be overridden, otherwise encoding throws {@link IllegalStateException}.
  */
 public abstract class GamePacket implements Packet {
 
     protected ByteBuf buffer;
+    // encode(ByteBuf) is calling encode()
+    private boolean bridging;
 
     public GamePacket(ByteBuf buffer) {
         this.buffer = buffer;
@@ -25,7 +32,16 @@ public abstract class GamePacket implements Packet {
      * Write the ID of this packet to the buffer
      */
     protected void writeId() {
-        buffer.writeInt(getId());
+        writeId(buffer);
+    }
+
+    /**
+     * Write the ID of this packet to the provided buffer
+     *
+     * @param out the buffer
+     */
+    protected void writeId(ByteBuf out) {
+        out.writeInt(getId());
     }
 
     @Override
@@ -38,6 +54,27 @@ public abstract class GamePacket implements Packet {
         return buffer;
     }
 
+    @Override
+    public void encode() {
+        // reached from encode(ByteBuf) only if neither is overridden
+        if (bridging) throw new IllegalStateException(getClass().getName() + " must override encode(ByteBuf) or encode()");
+        encode(buffer);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        // packets that only implement encode() write into the frame through buffer.
+        final ByteBuf previous = buffer;
+        buffer = out;
+        bridging = true;
+        try {
+            encode();
+        } finally {
+            bridging = false;
+            buffer = previous;
+        }
+    }
+
     @Override
     public void decode() {
 
@@ -45,7 +82,7 @@ public abstract class GamePacket implements Packet {
 
     @Override
     public void release() {
-        buffer.release();
+        if (buffer != null) buffer.release();
     }
 
     /**
@@ -76,17 +113,48 @@ public abstract class GamePacket implements Packet {
         return null;
     }
 
+    /**
+     * Read a string written with a string table
+     *
+     * @param strings the table or {@code null} if none
+     * @return the string
+     */
+    protected String readString(StringTable strings) {
+        return StringTable.read(buffer, strings);
+    }
+
+    /**
+     * Write a string through a string table
+     *
+     * @param out     the buffer
+     * @param value   the value
+     * @param strings the table or {@code null} if none
+     */
+    protected void writeString(ByteBuf out, String value, StringTable strings) {
+        StringTable.write(out, value, strings);
+    }
+
     /**
      * Write a string.
      *
      * @param value the value
      */
     protected void writeString(String value) {
+        writeString(buffer, value);
+    }
+
+    /**
+     * Write a string to the provided buffer.
+     *
+     * @param out   the buffer
+     * @param value the value
+     */
+    protected void writeString(ByteBuf out, String value) {
         if (value == null) return;
 
         final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
-        buffer.writeInt(bytes.length);
-        buffer.writeBytes(bytes);
+        out.writeInt(bytes.length);
+        out.writeBytes(bytes);
     }
 
 }
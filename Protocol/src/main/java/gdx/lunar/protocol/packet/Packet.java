@@ -1,5 +1,7 @@
 package gdx.lunar.protocol.packet;
 
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 
@@ -22,10 +24,84 @@ public interface Packet {
     void alloc(ByteBufAllocator allocator);
 
     /**
-     * Encode the contents of this packet
+     * Encode the contents of this packet into the buffer given by {@link #alloc(ByteBufAllocator)}
      */
     void encode();
 
+    /**
+     * Encode the contents of this packet directly into the outbound frame.
+     * The default implementation allocates a buffer for this packet, encodes into it, and then copies it into {@code out}.
+     *
+     * @param out the frame buffer to write into
+     */
+    default void encode(ByteBuf out) {
+        alloc(out.alloc());
+        try {
+            encode();
+            out.writeBytes(getBuffer());
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Encode the contents of this packet directly into the outbound frame of a connection using the provided framing.
+     * Only packets whose contents differ between framings need to override this.
+     *
+     * @param out     the frame buffer to write into
+     * @param framing the framing of the connection
+     */
+    default void encode(ByteBuf out, ProtocolFraming framing) {
+        encode(out);
+    }
+
+    /**
+     * Encode the contents of this packet directly into the outbound frame of a connection,
+     * writing strings through the string table of the connection.
+     * Only packets that return {@code true} from {@link #usesStringTable()} need to override this.
+     *
+     * @param out     the frame buffer to write into
+     * @param framing the framing of the connection
+     * @param strings the string table of the connection or {@code null} if none
+     */
+    default void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+        encode(out, framing);
+    }
+
+    /**
+     * Packets that write strings through the string table differ per connection and cannot be encoded once and shared.
+     *
+     * @return {@code true} if this packet writes strings through the string table
+     */
+    default boolean usesStringTable() {
+        return false;
+    }
+
+    /**
+     * Used to size the outbound frame up front instead of growing it while encoding.
+     *
+     * @return the exact amount of bytes {@link #encode(ByteBuf)} writes, including the packet ID, or {@code -1} if unknown
+     */
+    default int getEncodedSize() {
+        return -1;
+    }
+
+    /**
+     * @return what happens to this packet when written to a connection that is not writable
+     */
+    default BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.RELIABLE;
+    }
+
+    /**
+     * Packets with {@link BackpressurePolicy#SUPERSEDE} replace a held packet with the same key
+     *
+     * @return the key, by default the packet ID
+     */
+    default long getSupersedeKey() {
+        return getId();
+    }
+
     /**
      * Decode the contents of this packet
      */
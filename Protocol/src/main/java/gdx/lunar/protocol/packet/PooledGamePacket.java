@@ -0,0 +1,84 @@
+package gdx.lunar.protocol.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A {@link GamePacket} that can be recycled.
+ * Used for high frequency packets (movement, ping) so steady traffic does not create a new object for every frame.
+ * <p>
+ * Pooled instances are obtained through the static {@code obtain} methods of each packet and returned with {@link #release()}.
+ * Instances that are handled are only valid for the duration of the handler call, they are released once it returns.
+ * Instances that are written to a channel are released by the encoder once written, they must not be used after sending.
+ * Instances created with a public constructor are not pooled and behave like any other packet.
+ * <p>
+ * An instance written to more than one channel must be retained once for each additional channel,
+ * it is only returned to the pool once every write released it.
+ */
+public abstract class PooledGamePacket extends GamePacket {
+
+    private static final AtomicIntegerFieldUpdater<PooledGamePacket> REFERENCES
+            = AtomicIntegerFieldUpdater.newUpdater(PooledGamePacket.class, "references");
+
+    private final Recycler.Handle<PooledGamePacket> handle;
+    private volatile int references = 1;
+
+    @SuppressWarnings("unchecked")
+    protected PooledGamePacket(Recycler.Handle<? extends PooledGamePacket> handle) {
+        this.handle = (Recycler.Handle<PooledGamePacket>) handle;
+    }
+
+    public PooledGamePacket(ByteBuf buffer) {
+        super(buffer);
+        this.handle = null;
+    }
+
+    public PooledGamePacket() {
+        this.handle = null;
+    }
+
+    /**
+     * @return {@code true} if this instance belongs to a pool
+     */
+    public boolean isPooled() {
+        return handle != null;
+    }
+
+    /**
+     * Reset the state of this packet before it is returned to the pool
+     */
+    protected void reset() {
+
+    }
+
+    /**
+     * Retain this instance, it must be released one additional time before it is returned to the pool
+     *
+     * @return this
+     */
+    public PooledGamePacket retain() {
+        REFERENCES.incrementAndGet(this);
+        return this;
+    }
+
+    /**
+     * Return this instance to its pool once every reference was released.
+     * The frame a pooled instance was read from is owned by the decoder and is not released here.
+     */
+    @Override
+    public void release() {
+        if (handle == null) {
+            super.release();
+            return;
+        }
+
+        if (REFERENCES.decrementAndGet(this) != 0) return;
+        references = 1;
+        buffer = null;
+        reset();
+        handle.recycle(this);
+    }
+
+}
@@ -0,0 +1,17 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@link String} {@link PacketField} written through the string table of the connection, see {@code StringTable}.
+ * Codecs of packets with interned fields also take the table to {@code encode} and {@code decode},
+ * the packet should return {@code true} from {@code usesStringTable} so it is not encoded once and shared.
+ * Without a table the field is written the same as any other string.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Interned {
+}
@@ -0,0 +1,16 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@link String} {@link PacketField} that may be {@code null}.
+ * Packets with optional fields start with a byte of presence bits, one per optional field, so at most 8 are allowed.
+ * Absent fields are not written and are decoded as {@code null}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface OptionalField {
+}
@@ -0,0 +1,29 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a codec for the annotated packet.
+ * A class named {@code <Packet>Codec} is generated in the same package with static {@code encode}, {@code decode}
+ * and {@code encodedSize} methods covering every field annotated with {@link PacketField}, in declaration order.
+ * <p>
+ * The generated {@code encode} writes the packet ID first, {@code decode} expects the frame to be positioned after it.
+ * Encoded fields must not be private.
+ * <p>
+ * Packets with a static {@code handle(ServerPacketHandler, ByteBuf)} or {@code handle(ClientPacketHandler, ByteBuf)} bridge
+ * are registered by the generated {@code PacketCodecRegistry}, they must not be registered by hand.
+ * String fields are never {@code null} unless they are an {@link OptionalField}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface PacketCodec {
+
+    /**
+     * @return the packet ID
+     */
+    int id();
+
+}
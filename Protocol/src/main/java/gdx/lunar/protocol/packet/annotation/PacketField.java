@@ -0,0 +1,15 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A field that is encoded by the generated codec of a {@link PacketCodec} packet.
+ * Supported types are primitives and {@link String}, strings are written as an int length and UTF-8 bytes.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface PacketField {
+}
@@ -0,0 +1,25 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Write a {@code float} {@link PacketField} as a fixed-point value within {@code min} to {@code max}.
+ * Values outside the range are clamped, the max error is {@code (max - min) / (2^bits - 1) / 2}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Quantized {
+
+    float min();
+
+    float max();
+
+    /**
+     * @return bits to write the value with, 8, 16, 24 or 32
+     */
+    int bits() default 16;
+
+}
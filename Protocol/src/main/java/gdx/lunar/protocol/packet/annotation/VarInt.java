@@ -0,0 +1,15 @@
+package gdx.lunar.protocol.packet.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Write an {@code int} {@link PacketField} as a varint, 1 to 5 bytes.
+ * Best suited for small, non-negative values like entity IDs, negative values always take 5 bytes.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface VarInt {
+}
@@ -13,6 +13,10 @@ public class C2SPacketAuthenticate extends GamePacket {
 
     protected String gameVersion;
     protected int protocolVersion;
+    // if the client can inflate compressed frames
+    protected boolean acceptsCompression;
+    // if the client can read strings through a string table
+    protected boolean acceptsStringTable;
 
     public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
         handler.handleAuthentication(new C2SPacketAuthenticate(buffer));
@@ -23,6 +27,16 @@ public class C2SPacketAuthenticate extends GamePacket {
         this.protocolVersion = protocolVersion;
     }
 
+    public C2SPacketAuthenticate(String gameVersion, int protocolVersion, boolean acceptsCompression) {
+        this(gameVersion, protocolVersion);
+        this.acceptsCompression = acceptsCompression;
+    }
+
+    public C2SPacketAuthenticate(String gameVersion, int protocolVersion, boolean acceptsCompression, boolean acceptsStringTable) {
+        this(gameVersion, protocolVersion, acceptsCompression);
+        this.acceptsStringTable = acceptsStringTable;
+    }
+
     private C2SPacketAuthenticate(ByteBuf buffer) {
         super(buffer);
     }
@@ -41,21 +55,40 @@ public class C2SPacketAuthenticate extends GamePacket {
         return protocolVersion;
     }
 
+    /**
+     * @return if the client can inflate compressed frames
+     */
+    public boolean acceptsCompression() {
+        return acceptsCompression;
+    }
+
+    /**
+     * @return if the client can read strings through a string table
+     */
+    public boolean acceptsStringTable() {
+        return acceptsStringTable;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(gameVersion);
-        buffer.writeInt(protocolVersion);
+    public void encode(ByteBuf out) {
+        writeId(out);
+        writeString(out, gameVersion);
+        out.writeInt(protocolVersion);
+        out.writeBoolean(acceptsCompression);
+        out.writeBoolean(acceptsStringTable);
     }
 
     @Override
     public void decode() {
         gameVersion = readString();
         protocolVersion = buffer.readInt();
+        // older clients do not send this
+        acceptsCompression = buffer.isReadable() && buffer.readBoolean();
+        acceptsStringTable = buffer.isReadable() && buffer.readBoolean();
     }
 }
@@ -2,17 +2,21 @@ package gdx.lunar.protocol.packet.client;
 
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.internal.StringUtil;
 
 /**
  * Inform the server the client has disconnected.
  */
+@PacketCodec(id = C2SPacketDisconnected.PACKET_ID)
 public class C2SPacketDisconnected extends GamePacket {
 
     public static final int PACKET_ID = 2222;
 
     // given reason, if any.
+    @PacketField
     protected String givenReason;
 
     public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
@@ -43,13 +47,17 @@ public class C2SPacketDisconnected extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(givenReason);
+    public int getEncodedSize() {
+        return C2SPacketDisconnectedCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        C2SPacketDisconnectedCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        givenReason = readString();
+        C2SPacketDisconnectedCodec.decode(this, buffer);
     }
 }
@@ -2,21 +2,27 @@ package gdx.lunar.protocol.packet.client;
 
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.internal.StringUtil;
 
 /**
  * Request to join a world.
  */
+@PacketCodec(id = C2SPacketJoinWorld.PACKET_ID)
 public class C2SPacketJoinWorld extends GamePacket {
 
     public static final int PACKET_ID = 2224;
 
     //The name of the world to join
+    @PacketField
     protected String worldName;
     // username of the player trying to join
+    @PacketField
     protected String username;
     // client time or current client tick
+    @PacketField
     protected long clientTime;
     // indicates to send all current players within separate packets
     // instead of one large chunk.
@@ -27,8 +33,14 @@ public class C2SPacketJoinWorld extends GamePacket {
         handler.handleJoinWorld(new C2SPacketJoinWorld(buffer));
     }
 
+    /**
+     * @param worldName  the world, {@code null} is sent as an empty string, before codecs were generated it was left out
+     *                   and the username was read in its place
+     * @param username   the username, {@code null} is sent as an empty string
+     * @param clientTime client time or current client tick
+     */
     public C2SPacketJoinWorld(String worldName, String username, long clientTime) {
-        this.worldName = worldName;
+        this.worldName = worldName == null ? StringUtil.EMPTY_STRING : worldName;
         this.username = username == null ? StringUtil.EMPTY_STRING : username;
         this.clientTime = clientTime;
     }
@@ -55,17 +67,17 @@ public class C2SPacketJoinWorld extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(worldName);
-        writeString(username);
-        buffer.writeLong(clientTime);
+    public int getEncodedSize() {
+        return C2SPacketJoinWorldCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        C2SPacketJoinWorldCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        worldName = readString();
-        username = readString();
-        clientTime = buffer.readLong();
+        C2SPacketJoinWorldCodec.decode(this, buffer);
     }
 }
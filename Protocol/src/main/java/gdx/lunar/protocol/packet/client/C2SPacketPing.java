@@ -1,20 +1,55 @@
 package gdx.lunar.protocol.packet.client;
 
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
+import gdx.lunar.protocol.packet.view.C2SPingView;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
 /**
  * Ping request from the client to -> server
  */
-public class C2SPacketPing extends GamePacket {
+@PacketCodec(id = C2SPacketPing.PACKET_ID)
+public class C2SPacketPing extends PooledGamePacket {
 
     public static final int PACKET_ID = 2223;
+
+    private static final Recycler<C2SPacketPing> RECYCLER = new Recycler<>() {
+        @Override
+        protected C2SPacketPing newObject(Handle<C2SPacketPing> handle) {
+            return new C2SPacketPing(handle);
+        }
+    };
     // the current time of the client
+    @PacketField
     protected long currentTime;
 
     public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
-        handler.handlePing(new C2SPacketPing(buffer));
+        // handled in place if the handler supports it
+        if (handler.handlePing(C2SPingView.wrap(buffer))) return;
+
+        final C2SPacketPing packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.decode();
+        try {
+            handler.handlePing(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param currentTime the current time of the client
+     * @return the packet
+     */
+    public static C2SPacketPing obtain(long currentTime) {
+        final C2SPacketPing packet = RECYCLER.get();
+        packet.currentTime = currentTime;
+        return packet;
     }
 
     public C2SPacketPing(ByteBuf buffer) {
@@ -25,6 +60,10 @@ public class C2SPacketPing extends GamePacket {
         this.currentTime = currentTime;
     }
 
+    private C2SPacketPing(Recycler.Handle<C2SPacketPing> handle) {
+        super(handle);
+    }
+
     public long getTime() {
         return currentTime;
     }
@@ -35,13 +74,17 @@ public class C2SPacketPing extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeLong(currentTime);
+    public int getEncodedSize() {
+        return C2SPacketPingCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        C2SPacketPingCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        currentTime = buffer.readLong();
+        C2SPacketPingCodec.decode(this, buffer);
     }
 }
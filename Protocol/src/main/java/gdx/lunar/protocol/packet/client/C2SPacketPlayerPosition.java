@@ -1,18 +1,69 @@
 package gdx.lunar.protocol.packet.client;
 
 import com.badlogic.gdx.math.Vector2;
+import gdx.lunar.protocol.codec.MovementCodec;
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.view.C2SPlayerPositionView;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
-public class C2SPacketPlayerPosition extends GamePacket {
+public class C2SPacketPlayerPosition extends PooledGamePacket {
 
     public static final int PACKET_ID = 2226;
 
+    private static final Recycler<C2SPacketPlayerPosition> RECYCLER = new Recycler<>() {
+        @Override
+        protected C2SPacketPlayerPosition newObject(Handle<C2SPacketPlayerPosition> handle) {
+            return new C2SPacketPlayerPosition(handle);
+        }
+    };
+
     protected float rotation, x, y;
+    // the latest world snapshot tick the client applied, -1 if none
+    protected long acknowledgedTick = -1;
+    // how movement fields are written
+    protected MovementCodec codec = MovementCodec.RAW;
 
     public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
-        handler.handlePlayerPosition(new C2SPacketPlayerPosition(buffer));
+        // handled in place if the handler supports it
+        if (handler.handlePlayerPosition(C2SPlayerPositionView.wrap(buffer, handler.getMovementCodec()))) return;
+
+        final C2SPacketPlayerPosition packet = obtain(buffer, handler.getMovementCodec());
+        try {
+            handler.handlePlayerPosition(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param x                x
+     * @param y                y
+     * @param rotation         rotation
+     * @param acknowledgedTick the latest world snapshot tick applied
+     * @param codec            how movement fields are written
+     * @return the packet
+     */
+    public static C2SPacketPlayerPosition obtain(float x, float y, float rotation, long acknowledgedTick, MovementCodec codec) {
+        final C2SPacketPlayerPosition packet = RECYCLER.get();
+        packet.x = x;
+        packet.y = y;
+        packet.rotation = rotation;
+        packet.acknowledgedTick = acknowledgedTick;
+        packet.codec = codec;
+        return packet;
+    }
+
+    private static C2SPacketPlayerPosition obtain(ByteBuf buffer, MovementCodec codec) {
+        final C2SPacketPlayerPosition packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.codec = codec;
+        packet.decode();
+        return packet;
     }
 
     public C2SPacketPlayerPosition(float x, float y, float rotation) {
@@ -21,12 +72,26 @@ public class C2SPacketPlayerPosition extends GamePacket {
         this.rotation = rotation;
     }
 
+    public C2SPacketPlayerPosition(float x, float y, float rotation, long acknowledgedTick) {
+        this(x, y, rotation);
+        this.acknowledgedTick = acknowledgedTick;
+    }
+
+    public C2SPacketPlayerPosition(float x, float y, float rotation, long acknowledgedTick, MovementCodec codec) {
+        this(x, y, rotation, acknowledgedTick);
+        this.codec = codec;
+    }
+
     public C2SPacketPlayerPosition(Vector2 position, float rotation) {
         this(position.x, position.y, rotation);
     }
 
-    private C2SPacketPlayerPosition(ByteBuf buffer) {
-        super(buffer);
+    public C2SPacketPlayerPosition(Vector2 position, float rotation, long acknowledgedTick) {
+        this(position.x, position.y, rotation, acknowledgedTick);
+    }
+
+    private C2SPacketPlayerPosition(Recycler.Handle<C2SPacketPlayerPosition> handle) {
+        super(handle);
     }
 
     public float getX() {
@@ -41,23 +106,45 @@ public class C2SPacketPlayerPosition extends GamePacket {
         return rotation;
     }
 
+    /**
+     * @return the latest world snapshot tick the client applied, {@code -1} if none
+     */
+    public long getAcknowledgedTick() {
+        return acknowledgedTick;
+    }
+
+    @Override
+    protected void reset() {
+        acknowledgedTick = -1;
+        codec = MovementCodec.RAW;
+    }
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        // only the latest position matters
+        return BackpressurePolicy.SUPERSEDE;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeFloat(x);
-        buffer.writeFloat(y);
-        buffer.writeFloat(rotation);
+    public void encode(ByteBuf out) {
+        writeId(out);
+        codec.writePositionX(out, x);
+        codec.writePositionY(out, y);
+        codec.writeRotation(out, rotation);
+        out.writeLong(acknowledgedTick);
     }
 
     @Override
     public void decode() {
-        x = buffer.readFloat();
-        y = buffer.readFloat();
-        rotation = buffer.readFloat();
+        x = codec.readPositionX(buffer);
+        y = codec.readPositionY(buffer);
+        rotation = codec.readRotation(buffer);
+        // older clients do not send this
+        acknowledgedTick = buffer.isReadable() ? buffer.readLong() : -1;
     }
 }
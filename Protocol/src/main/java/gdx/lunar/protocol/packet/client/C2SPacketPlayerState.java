@@ -0,0 +1,186 @@
+package gdx.lunar.protocol.packet.client;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.handlers.ClientPacketHandler;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.view.C2SPlayerStateView;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+
+/**
+ * The complete state of the local player, replacing separate position and velocity packets.
+ * Each state carries a sequence number incremented by the client, the server discards any state older than the last one applied.
+ */
+public class C2SPacketPlayerState extends PooledGamePacket {
+
+    public static final int PACKET_ID = 2228;
+
+    private static final Recycler<C2SPacketPlayerState> RECYCLER = new Recycler<>() {
+        @Override
+        protected C2SPacketPlayerState newObject(Handle<C2SPacketPlayerState> handle) {
+            return new C2SPacketPlayerState(handle);
+        }
+    };
+
+    // incremented by the client for each state sent
+    protected int sequence;
+    protected float x, y, velocityX, velocityY, rotation;
+    // ordinal of the facing direction, -1 if none
+    protected int direction = -1;
+    // the latest world snapshot tick the client applied, -1 if none
+    protected long acknowledgedTick = -1;
+    // how movement fields are written
+    protected MovementCodec codec = MovementCodec.RAW;
+
+    public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
+        // handled in place if the handler supports it
+        if (handler.handlePlayerState(C2SPlayerStateView.wrap(buffer, handler.getMovementCodec()))) return;
+
+        final C2SPacketPlayerState packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.codec = handler.getMovementCodec();
+        packet.decode();
+        try {
+            handler.handlePlayerState(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param sequence         the sequence of this state
+     * @param x                position X
+     * @param y                position Y
+     * @param velocityX        velocity X
+     * @param velocityY        velocity Y
+     * @param rotation         rotation
+     * @param direction        ordinal of the facing direction or {@code -1}
+     * @param acknowledgedTick the latest world snapshot tick applied
+     * @param codec            how movement fields are written
+     * @return the packet
+     */
+    public static C2SPacketPlayerState obtain(int sequence, float x, float y, float velocityX, float velocityY,
+                                              float rotation, int direction, long acknowledgedTick, MovementCodec codec) {
+        final C2SPacketPlayerState packet = RECYCLER.get();
+        packet.sequence = sequence;
+        packet.x = x;
+        packet.y = y;
+        packet.velocityX = velocityX;
+        packet.velocityY = velocityY;
+        packet.rotation = rotation;
+        packet.direction = direction;
+        packet.acknowledgedTick = acknowledgedTick;
+        packet.codec = codec;
+        return packet;
+    }
+
+    public C2SPacketPlayerState(int sequence, float x, float y, float velocityX, float velocityY,
+                                float rotation, int direction, long acknowledgedTick, MovementCodec codec) {
+        this.sequence = sequence;
+        this.x = x;
+        this.y = y;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.rotation = rotation;
+        this.direction = direction;
+        this.acknowledgedTick = acknowledgedTick;
+        this.codec = codec;
+    }
+
+    private C2SPacketPlayerState(Recycler.Handle<C2SPacketPlayerState> handle) {
+        super(handle);
+    }
+
+    /**
+     * @return the sequence of this state
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getVelocityX() {
+        return velocityX;
+    }
+
+    public float getVelocityY() {
+        return velocityY;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * @return ordinal of the facing direction, {@code -1} if none
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the latest world snapshot tick the client applied, {@code -1} if none
+     */
+    public long getAcknowledgedTick() {
+        return acknowledgedTick;
+    }
+
+    @Override
+    protected void reset() {
+        direction = -1;
+        acknowledgedTick = -1;
+        codec = MovementCodec.RAW;
+    }
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        // only the latest state matters
+        return BackpressurePolicy.SUPERSEDE;
+    }
+
+    @Override
+    public int getId() {
+        return PACKET_ID;
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 4 + 4 + codec.positionLength() * 2 + codec.velocityLength() * 2 + codec.rotationLength() + 1 + 8;
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        writeId(out);
+        out.writeInt(sequence);
+        codec.writePositionX(out, x);
+        codec.writePositionY(out, y);
+        codec.writeVelocity(out, velocityX);
+        codec.writeVelocity(out, velocityY);
+        codec.writeRotation(out, rotation);
+        out.writeByte(direction);
+        out.writeLong(acknowledgedTick);
+    }
+
+    @Override
+    public void decode() {
+        sequence = buffer.readInt();
+        x = codec.readPositionX(buffer);
+        y = codec.readPositionY(buffer);
+        velocityX = codec.readVelocity(buffer);
+        velocityY = codec.readVelocity(buffer);
+        rotation = codec.readRotation(buffer);
+        direction = buffer.readByte();
+        // older clients do not send this
+        acknowledgedTick = buffer.isReadable() ? buffer.readLong() : -1;
+    }
+}
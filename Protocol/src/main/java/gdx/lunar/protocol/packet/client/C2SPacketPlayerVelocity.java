@@ -1,18 +1,65 @@
 package gdx.lunar.protocol.packet.client;
 
 import com.badlogic.gdx.math.Vector2;
+import gdx.lunar.protocol.codec.MovementCodec;
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.view.C2SPlayerVelocityView;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
-public class C2SPacketPlayerVelocity extends GamePacket {
+public class C2SPacketPlayerVelocity extends PooledGamePacket {
 
     public static final int PACKET_ID = 2227;
 
+    private static final Recycler<C2SPacketPlayerVelocity> RECYCLER = new Recycler<>() {
+        @Override
+        protected C2SPacketPlayerVelocity newObject(Handle<C2SPacketPlayerVelocity> handle) {
+            return new C2SPacketPlayerVelocity(handle);
+        }
+    };
+
     protected float velocityX, velocityY, rotation;
+    // how movement fields are written
+    protected MovementCodec codec = MovementCodec.RAW;
 
     public static void handle(ClientPacketHandler handler, ByteBuf buffer) {
-        handler.handlePlayerVelocity(new C2SPacketPlayerVelocity(buffer));
+        // handled in place if the handler supports it
+        if (handler.handlePlayerVelocity(C2SPlayerVelocityView.wrap(buffer, handler.getMovementCodec()))) return;
+
+        final C2SPacketPlayerVelocity packet = obtain(buffer, handler.getMovementCodec());
+        try {
+            handler.handlePlayerVelocity(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param velocityX x vel
+     * @param velocityY y vel
+     * @param rotation  rotation
+     * @param codec     how movement fields are written
+     * @return the packet
+     */
+    public static C2SPacketPlayerVelocity obtain(float velocityX, float velocityY, float rotation, MovementCodec codec) {
+        final C2SPacketPlayerVelocity packet = RECYCLER.get();
+        packet.velocityX = velocityX;
+        packet.velocityY = velocityY;
+        packet.rotation = rotation;
+        packet.codec = codec;
+        return packet;
+    }
+
+    private static C2SPacketPlayerVelocity obtain(ByteBuf buffer, MovementCodec codec) {
+        final C2SPacketPlayerVelocity packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.codec = codec;
+        packet.decode();
+        return packet;
     }
 
     public C2SPacketPlayerVelocity(float velocityX, float velocityY, float rotation) {
@@ -21,12 +68,17 @@ public class C2SPacketPlayerVelocity extends GamePacket {
         this.rotation = rotation;
     }
 
+    public C2SPacketPlayerVelocity(float velocityX, float velocityY, float rotation, MovementCodec codec) {
+        this(velocityX, velocityY, rotation);
+        this.codec = codec;
+    }
+
     public C2SPacketPlayerVelocity(Vector2 velocity, float rotation) {
         this(velocity.x, velocity.y, rotation);
     }
 
-    private C2SPacketPlayerVelocity(ByteBuf buffer) {
-        super(buffer);
+    private C2SPacketPlayerVelocity(Recycler.Handle<C2SPacketPlayerVelocity> handle) {
+        super(handle);
     }
 
     /**
@@ -50,23 +102,34 @@ public class C2SPacketPlayerVelocity extends GamePacket {
         return rotation;
     }
 
+    @Override
+    protected void reset() {
+        codec = MovementCodec.RAW;
+    }
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        // only the latest velocity matters
+        return BackpressurePolicy.SUPERSEDE;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeFloat(velocityX);
-        buffer.writeFloat(velocityY);
-        buffer.writeFloat(rotation);
+    public void encode(ByteBuf out) {
+        writeId(out);
+        codec.writeVelocity(out, velocityX);
+        codec.writeVelocity(out, velocityY);
+        codec.writeRotation(out, rotation);
     }
 
     @Override
     public void decode() {
-        velocityX = buffer.readFloat();
-        velocityY = buffer.readFloat();
-        rotation = buffer.readFloat();
+        velocityX = codec.readVelocity(buffer);
+        velocityY = codec.readVelocity(buffer);
+        rotation = codec.readRotation(buffer);
     }
 }
@@ -2,11 +2,13 @@ package gdx.lunar.protocol.packet.client;
 
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
 import io.netty.buffer.ByteBuf;
 
 /**
  * Notify the server this client has loaded the world.
  */
+@PacketCodec(id = C2SPacketWorldLoaded.PACKET_ID)
 public class C2SPacketWorldLoaded extends GamePacket {
 
     public static final int PACKET_ID = 2225;
@@ -21,7 +23,12 @@ public class C2SPacketWorldLoaded extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
+    public int getEncodedSize() {
+        return C2SPacketWorldLoadedCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        C2SPacketWorldLoadedCodec.encode(this, out);
     }
 }
@@ -15,6 +15,10 @@ public class S2CPacketAuthenticate extends GamePacket {
     protected boolean authenticationSuccessful;
     protected String gameVersion;
     protected int protocolVersion;
+    // frames at or above this length are compressed from now on, -1 if disabled
+    protected int compressionThreshold = -1;
+    // capacity of the string table used from now on, 0 if disabled
+    protected int stringTableCapacity;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
         handler.handleAuthentication(new S2CPacketAuthenticate(buffer));
@@ -26,6 +30,17 @@ public class S2CPacketAuthenticate extends GamePacket {
         this.protocolVersion = protocolVersion;
     }
 
+    public S2CPacketAuthenticate(boolean authenticationSuccessful, String gameVersion, int protocolVersion, int compressionThreshold) {
+        this(authenticationSuccessful, gameVersion, protocolVersion);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public S2CPacketAuthenticate(boolean authenticationSuccessful, String gameVersion, int protocolVersion,
+                                 int compressionThreshold, int stringTableCapacity) {
+        this(authenticationSuccessful, gameVersion, protocolVersion, compressionThreshold);
+        this.stringTableCapacity = stringTableCapacity;
+    }
+
     public S2CPacketAuthenticate(ByteBuf buffer) {
         super(buffer);
     }
@@ -45,12 +60,28 @@ public class S2CPacketAuthenticate extends GamePacket {
         return protocolVersion;
     }
 
+    /**
+     * @return the length frames are compressed at after this packet, or {@code -1} if compression is disabled
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * @return the capacity of the string table strings are written with after this packet, or {@code 0} if disabled
+     */
+    public int getStringTableCapacity() {
+        return stringTableCapacity;
+    }
+
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeBoolean(authenticationSuccessful);
-        writeString(gameVersion);
-        buffer.writeInt(protocolVersion);
+    public void encode(ByteBuf out) {
+        writeId(out);
+        out.writeBoolean(authenticationSuccessful);
+        writeString(out, gameVersion);
+        out.writeInt(protocolVersion);
+        out.writeInt(compressionThreshold);
+        out.writeInt(stringTableCapacity);
     }
 
     @Override
@@ -58,6 +89,8 @@ public class S2CPacketAuthenticate extends GamePacket {
         authenticationSuccessful = buffer.readBoolean();
         gameVersion = readString();
         protocolVersion = buffer.readInt();
+        compressionThreshold = buffer.isReadable() ? buffer.readInt() : -1;
+        stringTableCapacity = buffer.isReadable() ? buffer.readInt() : 0;
     }
 
     @Override
@@ -1,5 +1,7 @@
 package gdx.lunar.protocol.packet.server;
 
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
 import io.netty.buffer.ByteBuf;
@@ -12,12 +14,16 @@ public class S2CPacketCreatePlayer extends GamePacket {
 
     public static final int PACKET_ID = 1117;
 
+    // framing this packet was read with
+    protected ProtocolFraming inboundFraming = ProtocolFraming.V1;
+    // string table this packet was read with
+    protected StringTable inboundStrings;
     protected String username;
     protected int entityId;
     protected float x, y;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handleCreatePlayer(new S2CPacketCreatePlayer(buffer));
+        handler.handleCreatePlayer(new S2CPacketCreatePlayer(buffer, handler.getFraming(), handler.getStringTable()));
     }
 
     /**
@@ -37,8 +43,11 @@ public class S2CPacketCreatePlayer extends GamePacket {
         this.y = y;
     }
 
-    private S2CPacketCreatePlayer(ByteBuf buffer) {
-        super(buffer);
+    private S2CPacketCreatePlayer(ByteBuf buffer, ProtocolFraming inboundFraming, StringTable inboundStrings) {
+        this.buffer = buffer;
+        this.inboundFraming = inboundFraming;
+        this.inboundStrings = inboundStrings;
+        decode();
     }
 
     /**
@@ -69,24 +78,39 @@ public class S2CPacketCreatePlayer extends GamePacket {
         return y;
     }
 
+    @Override
+    public boolean usesStringTable() {
+        return true;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(username);
-        buffer.writeInt(entityId);
-        buffer.writeFloat(x);
-        buffer.writeFloat(y);
+    public void encode(ByteBuf out) {
+        encode(out, ProtocolFraming.V1);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing) {
+        encode(out, framing, null);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+        writeId(out);
+        writeString(out, username, strings);
+        framing.writeEntityId(out, entityId);
+        out.writeFloat(x);
+        out.writeFloat(y);
     }
 
     @Override
     public void decode() {
-        username = readString();
-        entityId = buffer.readInt();
+        username = readString(inboundStrings);
+        entityId = inboundFraming.readEntityId(buffer);
         x = buffer.readFloat();
         y = buffer.readFloat();
     }
@@ -2,24 +2,33 @@ package gdx.lunar.protocol.packet.server;
 
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.StringUtil;
 
 /**
  * Sent from the server to indicate a disconnect for whatever reason.
  */
+@PacketCodec(id = S2CPacketDisconnected.PACKET_ID)
 public class S2CPacketDisconnected extends GamePacket {
 
     public static final int PACKET_ID = 1112;
 
     // the reason the server disconnected the client
+    @PacketField
     protected String disconnectReason;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
         handler.handleDisconnect(new S2CPacketDisconnected(buffer));
     }
 
+    /**
+     * @param disconnectReason the reason, {@code null} is sent as an empty string.
+     *                         Before codecs were generated nothing was written and clients read {@code null}.
+     */
     public S2CPacketDisconnected(String disconnectReason) {
-        this.disconnectReason = disconnectReason;
+        this.disconnectReason = disconnectReason == null ? StringUtil.EMPTY_STRING : disconnectReason;
     }
 
     public S2CPacketDisconnected(ByteBuf buffer) {
@@ -39,13 +48,17 @@ public class S2CPacketDisconnected extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(disconnectReason);
+    public int getEncodedSize() {
+        return S2CPacketDisconnectedCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        S2CPacketDisconnectedCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        disconnectReason = readString();
+        S2CPacketDisconnectedCodec.decode(this, buffer);
     }
 }
@@ -1,5 +1,6 @@
 package gdx.lunar.protocol.packet.server;
 
+import gdx.lunar.protocol.codec.MovementCodec;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
 import io.netty.buffer.ByteBuf;
@@ -17,6 +18,8 @@ public class S2CPacketJoinWorld extends GamePacket {
     protected int entityId;
     // current server time or server tick
     protected long serverTime;
+    // how movement fields are written within this world
+    protected MovementCodec movementCodec = MovementCodec.RAW;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
         handler.handleJoinWorld(new S2CPacketJoinWorld(buffer));
@@ -28,6 +31,11 @@ public class S2CPacketJoinWorld extends GamePacket {
         this.serverTime = serverTime;
     }
 
+    public S2CPacketJoinWorld(String worldName, int entityId, long serverTime, MovementCodec movementCodec) {
+        this(worldName, entityId, serverTime);
+        this.movementCodec = movementCodec;
+    }
+
     public S2CPacketJoinWorld(ByteBuf buffer) {
         super(buffer);
     }
@@ -44,17 +52,25 @@ public class S2CPacketJoinWorld extends GamePacket {
         return serverTime;
     }
 
+    /**
+     * @return the codec movement packets are written with within this world
+     */
+    public MovementCodec getMovementCodec() {
+        return movementCodec;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(worldName);
-        buffer.writeInt(entityId);
-        buffer.writeLong(serverTime);
+    public void encode(ByteBuf out) {
+        writeId(out);
+        writeString(out, worldName);
+        out.writeInt(entityId);
+        out.writeLong(serverTime);
+        MovementCodec.write(out, movementCodec);
     }
 
     @Override
@@ -62,5 +78,6 @@ public class S2CPacketJoinWorld extends GamePacket {
         worldName = readString();
         entityId = buffer.readInt();
         serverTime = buffer.readLong();
+        movementCodec = MovementCodec.read(buffer);
     }
 }
@@ -1,21 +1,61 @@
 package gdx.lunar.protocol.packet.server;
 
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
+import gdx.lunar.protocol.packet.view.S2CPingView;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
 /**
  * Ping packet sent from the server to the client in response to a ping
  */
-public class S2CPacketPing extends GamePacket {
+@PacketCodec(id = S2CPacketPing.PACKET_ID)
+public class S2CPacketPing extends PooledGamePacket {
 
     public static final int PACKET_ID = 1113;
 
+    private static final Recycler<S2CPacketPing> RECYCLER = new Recycler<>() {
+        @Override
+        protected S2CPacketPing newObject(Handle<S2CPacketPing> handle) {
+            return new S2CPacketPing(handle);
+        }
+    };
+
     // current client time in ms, current server time in ms.
-    protected long clientTime, serverTime;
+    @PacketField
+    protected long clientTime;
+    @PacketField
+    protected long serverTime;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handlePing(new S2CPacketPing(buffer));
+        // handled in place if the handler supports it
+        if (handler.handlePing(S2CPingView.wrap(buffer))) return;
+
+        final S2CPacketPing packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.decode();
+        try {
+            handler.handlePing(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param clientTime the client time in ms
+     * @param serverTime the server time in ms
+     * @return the packet
+     */
+    public static S2CPacketPing obtain(long clientTime, long serverTime) {
+        final S2CPacketPing packet = RECYCLER.get();
+        packet.clientTime = clientTime;
+        packet.serverTime = serverTime;
+        return packet;
     }
 
     public S2CPacketPing(long clientTime, long serverTime) {
@@ -27,6 +67,10 @@ public class S2CPacketPing extends GamePacket {
         super(buffer);
     }
 
+    private S2CPacketPing(Recycler.Handle<S2CPacketPing> handle) {
+        super(handle);
+    }
+
     public long getClientTime() {
         return clientTime;
     }
@@ -35,21 +79,29 @@ public class S2CPacketPing extends GamePacket {
         return serverTime;
     }
 
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        // a late reply only skews the measured latency
+        return BackpressurePolicy.DROP;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeLong(clientTime);
-        buffer.writeLong(serverTime);
+    public int getEncodedSize() {
+        return S2CPacketPingCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        S2CPacketPingCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        clientTime = buffer.readLong();
-        serverTime = buffer.readLong();
+        S2CPacketPingCodec.decode(this, buffer);
     }
 }
@@ -1,22 +1,75 @@
 package gdx.lunar.protocol.packet.server;
 
 import com.badlogic.gdx.math.Vector2;
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.view.S2CPlayerPositionView;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
 /**
  * Update clients on a players position
  */
-public class S2CPacketPlayerPosition extends GamePacket {
+public class S2CPacketPlayerPosition extends PooledGamePacket {
 
     public static final int PACKET_ID = 1119;
 
+    private static final Recycler<S2CPacketPlayerPosition> RECYCLER = new Recycler<>() {
+        @Override
+        protected S2CPacketPlayerPosition newObject(Handle<S2CPacketPlayerPosition> handle) {
+            return new S2CPacketPlayerPosition(handle);
+        }
+    };
+
+    // framing this packet was read with
+    protected ProtocolFraming inboundFraming = ProtocolFraming.V1;
     protected int entityId;
     protected float x, y, rotation;
+    // how movement fields are written
+    protected MovementCodec codec = MovementCodec.RAW;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handlePlayerPosition(new S2CPacketPlayerPosition(buffer));
+        // handled in place if the handler supports it
+        if (handler.handlePlayerPosition(S2CPlayerPositionView.wrap(buffer, handler.getMovementCodec(), handler.getFraming()))) return;
+
+        final S2CPacketPlayerPosition packet = obtain(buffer, handler.getMovementCodec(), handler.getFraming());
+        try {
+            handler.handlePlayerPosition(packet);
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Obtain a pooled instance to send, see {@link PooledGamePacket}
+     *
+     * @param entityId the entity ID
+     * @param rotation rotation
+     * @param x        x
+     * @param y        y
+     * @param codec    how movement fields are written
+     * @return the packet
+     */
+    public static S2CPacketPlayerPosition obtain(int entityId, float rotation, float x, float y, MovementCodec codec) {
+        final S2CPacketPlayerPosition packet = RECYCLER.get();
+        packet.entityId = entityId;
+        packet.rotation = rotation;
+        packet.x = x;
+        packet.y = y;
+        packet.codec = codec;
+        return packet;
+    }
+
+    private static S2CPacketPlayerPosition obtain(ByteBuf buffer, MovementCodec codec, ProtocolFraming inboundFraming) {
+        final S2CPacketPlayerPosition packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.codec = codec;
+        packet.inboundFraming = inboundFraming;
+        packet.decode();
+        return packet;
     }
 
     public S2CPacketPlayerPosition(int entityId, float rotation, float x, float y) {
@@ -30,8 +83,13 @@ public class S2CPacketPlayerPosition extends GamePacket {
         this(entityId, rotation, position.x, position.y);
     }
 
-    public S2CPacketPlayerPosition(ByteBuf buffer) {
-        super(buffer);
+    public S2CPacketPlayerPosition(int entityId, float rotation, Vector2 position, MovementCodec codec) {
+        this(entityId, rotation, position.x, position.y);
+        this.codec = codec;
+    }
+
+    private S2CPacketPlayerPosition(Recycler.Handle<S2CPacketPlayerPosition> handle) {
+        super(handle);
     }
 
     /**
@@ -62,25 +120,47 @@ public class S2CPacketPlayerPosition extends GamePacket {
         return y;
     }
 
+    @Override
+    protected void reset() {
+        inboundFraming = ProtocolFraming.V1;
+        codec = MovementCodec.RAW;
+    }
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.SUPERSEDE;
+    }
+
+    @Override
+    public long getSupersedeKey() {
+        // only the latest update of each entity matters
+        return ((long) PACKET_ID << 32) | (entityId & 0xFFFFFFFFL);
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeInt(entityId);
-        buffer.writeFloat(rotation);
-        buffer.writeFloat(x);
-        buffer.writeFloat(y);
+    public void encode(ByteBuf out) {
+        encode(out, ProtocolFraming.V1);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing) {
+        writeId(out);
+        framing.writeEntityId(out, entityId);
+        codec.writeRotation(out, rotation);
+        codec.writePositionX(out, x);
+        codec.writePositionY(out, y);
     }
 
     @Override
     public void decode() {
-        entityId = buffer.readInt();
-        rotation = buffer.readFloat();
-        x = buffer.readFloat();
-        y = buffer.readFloat();
+        entityId = inboundFraming.readEntityId(buffer);
+        rotation = codec.readRotation(buffer);
+        x = codec.readPositionX(buffer);
+        y = codec.readPositionY(buffer);
     }
 }
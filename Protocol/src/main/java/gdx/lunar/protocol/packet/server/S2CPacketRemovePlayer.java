@@ -1,5 +1,6 @@
 package gdx.lunar.protocol.packet.server;
 
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
 import io.netty.buffer.ByteBuf;
@@ -12,11 +13,13 @@ public class S2CPacketRemovePlayer extends GamePacket {
 
     public static final int PACKET_ID = 1121;
 
+    // framing this packet was read with
+    protected ProtocolFraming inboundFraming = ProtocolFraming.V1;
     protected int entityId;
     protected String username;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handleRemovePlayer(new S2CPacketRemovePlayer(buffer));
+        handler.handleRemovePlayer(new S2CPacketRemovePlayer(buffer, handler.getFraming()));
     }
 
     public S2CPacketRemovePlayer(int entityId) {
@@ -28,8 +31,10 @@ public class S2CPacketRemovePlayer extends GamePacket {
         this.username = (username == null ? StringUtil.EMPTY_STRING : username);
     }
 
-    private S2CPacketRemovePlayer(ByteBuf buffer) {
-        super(buffer);
+    private S2CPacketRemovePlayer(ByteBuf buffer, ProtocolFraming inboundFraming) {
+        this.buffer = buffer;
+        this.inboundFraming = inboundFraming;
+        decode();
     }
 
     /**
@@ -49,15 +54,20 @@ public class S2CPacketRemovePlayer extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeInt(entityId);
-        writeString(username);
+    public void encode(ByteBuf out) {
+        encode(out, ProtocolFraming.V1);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing) {
+        writeId(out);
+        framing.writeEntityId(out, entityId);
+        writeString(out, username);
     }
 
     @Override
     public void decode() {
-        entityId = buffer.readInt();
+        entityId = inboundFraming.readEntityId(buffer);
         username = readString();
     }
 
@@ -1,23 +1,53 @@
 package gdx.lunar.protocol.packet.server;
 
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
-import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.PooledGamePacket;
+import gdx.lunar.protocol.packet.annotation.Interned;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
 /**
  * Indicates a change to an entity with in the world, either name change or entity ID change
  */
-public class S2CPacketSetEntityProperties extends GamePacket {
+@PacketCodec(id = S2CPacketSetEntityProperties.PACKET_ID)
+public class S2CPacketSetEntityProperties extends PooledGamePacket {
 
     public static final int PACKET_ID = 1116;
 
+    private static final Recycler<S2CPacketSetEntityProperties> RECYCLER = new Recycler<>() {
+        @Override
+        protected S2CPacketSetEntityProperties newObject(Handle<S2CPacketSetEntityProperties> handle) {
+            return new S2CPacketSetEntityProperties(handle);
+        }
+    };
+
+    @PacketField
     protected int entityId;
+    @PacketField
+    @Interned
     protected String entityName;
     // indicates which was changed (could be both)
-    protected boolean wasNameChanged, wasEntityIdChanged;
+    @PacketField
+    protected boolean wasEntityIdChanged;
+    @PacketField
+    protected boolean wasNameChanged;
+    // string table this packet was read with
+    protected StringTable inboundStrings;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handleSetEntityProperties(new S2CPacketSetEntityProperties(buffer));
+        final S2CPacketSetEntityProperties packet = RECYCLER.get();
+        packet.buffer = buffer;
+        packet.inboundStrings = handler.getStringTable();
+        packet.decode();
+        try {
+            handler.handleSetEntityProperties(packet);
+        } finally {
+            packet.release();
+        }
     }
 
     public S2CPacketSetEntityProperties(int entityId, String entityName) {
@@ -29,6 +59,10 @@ public class S2CPacketSetEntityProperties extends GamePacket {
         super(buffer);
     }
 
+    private S2CPacketSetEntityProperties(Recycler.Handle<S2CPacketSetEntityProperties> handle) {
+        super(handle);
+    }
+
     /**
      * @return this entity new (or the same) entity ID
      */
@@ -57,25 +91,41 @@ public class S2CPacketSetEntityProperties extends GamePacket {
         return wasNameChanged;
     }
 
+    @Override
+    protected void reset() {
+        entityName = null;
+        inboundStrings = null;
+        wasNameChanged = false;
+        wasEntityIdChanged = false;
+    }
+
+    @Override
+    public boolean usesStringTable() {
+        return true;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeInt(entityId);
-        writeString(entityName);
-        buffer.writeBoolean(wasEntityIdChanged);
-        buffer.writeBoolean(wasNameChanged);
+    public int getEncodedSize() {
+        return S2CPacketSetEntityPropertiesCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        S2CPacketSetEntityPropertiesCodec.encode(this, out);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+        S2CPacketSetEntityPropertiesCodec.encode(this, out, strings);
     }
 
     @Override
     public void decode() {
-        entityId = buffer.readInt();
-        entityName = readString();
-        wasEntityIdChanged = buffer.readBoolean();
-        wasNameChanged = buffer.readBoolean();
+        S2CPacketSetEntityPropertiesCodec.decode(this, buffer, inboundStrings);
     }
 }
@@ -1,6 +1,8 @@
 package gdx.lunar.protocol.packet.server;
 
 import com.badlogic.gdx.math.Vector2;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
 import io.netty.buffer.ByteBuf;
@@ -16,9 +18,11 @@ public class S2CPacketStartGame extends GamePacket {
     protected long serverTime;
     // list of all players within the server
     protected BasicServerPlayer[] players;
+    // string table this packet was read with
+    protected StringTable inboundStrings;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
-        handler.handleStartGame(new S2CPacketStartGame(buffer));
+        handler.handleStartGame(new S2CPacketStartGame(buffer, handler.getStringTable()));
     }
 
     public S2CPacketStartGame(long serverTime, BasicServerPlayer... players) {
@@ -30,6 +34,12 @@ public class S2CPacketStartGame extends GamePacket {
         super(buffer);
     }
 
+    private S2CPacketStartGame(ByteBuf buffer, StringTable inboundStrings) {
+        this.buffer = buffer;
+        this.inboundStrings = inboundStrings;
+        decode();
+    }
+
     /**
      * Indicates there are no players within the server
      *
@@ -40,6 +50,11 @@ public class S2CPacketStartGame extends GamePacket {
         this.players = null;
     }
 
+    @Override
+    public boolean usesStringTable() {
+        return true;
+    }
+
     @Override
     public int getId() {
         return PACKET_ID;
@@ -61,19 +76,24 @@ public class S2CPacketStartGame extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        buffer.writeLong(serverTime);
+    public void encode(ByteBuf out) {
+        encode(out, ProtocolFraming.V1, null);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+        writeId(out);
+        out.writeLong(serverTime);
         if (players == null) {
-            buffer.writeInt(0);
+            out.writeInt(0);
         } else {
-            buffer.writeInt(players.length);
+            out.writeInt(players.length);
             // write all array players
             for (BasicServerPlayer player : players) {
-                buffer.writeInt(player.entityId);
-                writeString(player.username);
-                buffer.writeFloat(player.position.x);
-                buffer.writeFloat(player.position.y);
+                out.writeInt(player.entityId);
+                writeString(out, player.username, strings);
+                out.writeFloat(player.position.x);
+                out.writeFloat(player.position.y);
             }
         }
     }
@@ -86,7 +106,7 @@ public class S2CPacketStartGame extends GamePacket {
             this.players = new BasicServerPlayer[players];
             for (int i = 0; i < players; i++) {
                 final int entityId = buffer.readInt();
-                final String name = readString();
+                final String name = readString(inboundStrings);
                 final float x = buffer.readFloat();
                 final float y = buffer.readFloat();
                 this.players[i] = new BasicServerPlayer(entityId, name, new Vector2(x, y));
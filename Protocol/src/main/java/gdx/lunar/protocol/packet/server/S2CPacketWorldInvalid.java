@@ -2,15 +2,20 @@ package gdx.lunar.protocol.packet.server;
 
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
 import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.annotation.PacketCodec;
+import gdx.lunar.protocol.packet.annotation.PacketField;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.StringUtil;
 
 /**
  * A request to join a world yielded a world that was not found, or invalid.
  */
+@PacketCodec(id = S2CPacketWorldInvalid.PACKET_ID)
 public class S2CPacketWorldInvalid extends GamePacket {
 
     public static final int PACKET_ID = 1115;
 
+    @PacketField
     protected String worldName, reason;
 
     public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
@@ -18,8 +23,8 @@ public class S2CPacketWorldInvalid extends GamePacket {
     }
 
     public S2CPacketWorldInvalid(String worldName, String reason) {
-        this.worldName = worldName;
-        this.reason = reason;
+        this.worldName = worldName == null ? StringUtil.EMPTY_STRING : worldName;
+        this.reason = reason == null ? StringUtil.EMPTY_STRING : reason;
     }
 
     public S2CPacketWorldInvalid(ByteBuf buffer) {
@@ -46,16 +51,18 @@ public class S2CPacketWorldInvalid extends GamePacket {
     }
 
     @Override
-    public void encode() {
-        writeId();
-        writeString(worldName == null ? "" : worldName);
-        writeString(reason == null ? "" : reason);
+    public int getEncodedSize() {
+        return S2CPacketWorldInvalidCodec.encodedSize(this);
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        S2CPacketWorldInvalidCodec.encode(this, out);
     }
 
     @Override
     public void decode() {
-        worldName = readString();
-        reason = readString();
+        S2CPacketWorldInvalidCodec.decode(this, buffer);
     }
 
 
@@ -0,0 +1,362 @@
+package gdx.lunar.protocol.packet.server;
+
+import com.badlogic.gdx.math.Vector2;
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.handlers.ServerPacketHandler;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
+import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.snapshot.WorldState;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * Update clients on the state of all entities within their world for a single server tick.
+ * Replaces sending individual position and velocity packets for each player.
+ * <p>
+ * A snapshot may be a delta against a state the client already acknowledged ({@code baseTick}),
+ * in that case only entities that changed are included and only the fields set within their mask are written.
+ * A snapshot that is not a delta may still leave out entities that did not change, see {@link #setPartial(boolean)}.
+ * <p>
+ * Entities may also be provided as rows already laid out the way they are written with V1 framing and raw movement,
+ * see {@link #setRows(ByteBuf, int)}. With that framing and codec the rows are copied into the frame as is.
+ */
+public class S2CPacketWorldSnapshot extends GamePacket {
+
+    public static final int PACKET_ID = 1123;
+
+    // layout of a row: int entity ID, byte mask, then position X, Y, velocity X, Y and rotation as floats
+    public static final int ROW_ENTITY_ID = 0, ROW_MASK = 4, ROW_X = 5, ROW_Y = 9,
+            ROW_VELOCITY_X = 13, ROW_VELOCITY_Y = 17, ROW_ROTATION = 21, ROW_LENGTH = 25;
+
+    // framing this packet was read with
+    protected ProtocolFraming inboundFraming = ProtocolFraming.V1;
+    // the server tick this snapshot was taken
+    protected long serverTick;
+    // the tick this snapshot is relative to, or -1 if this snapshot is complete
+    protected long baseTick = -1;
+    // amount of entities within this snapshot
+    protected int entityCount;
+    // if entities that did not change were left out without a base tick, not written
+    protected boolean partial;
+
+    protected int[] entityIds, masks;
+    protected float[] x, y, velocityX, velocityY, rotation;
+    // how movement fields are written
+    protected MovementCodec codec = MovementCodec.RAW;
+
+    // entities written after those added, not owned by this packet
+    protected ByteBuf rows;
+    protected int rowCount;
+
+    // bytes written before the entities: server tick, base tick and the amount of entities
+    private static final int FIXED_LENGTH = 8 + 8 + 4;
+    // the largest entity ID of any framing, a 5 byte varint
+    private static final int MAX_ENTITY_ID_LENGTH = 5;
+
+    public static void handle(ServerPacketHandler handler, ByteBuf buffer) {
+        handler.handleWorldSnapshot(new S2CPacketWorldSnapshot(buffer, handler.getMovementCodec(), handler.getFraming()));
+    }
+
+    /**
+     * Initialize a new empty snapshot, entities should be added with {@code add}
+     *
+     * @param serverTick the current server tick
+     * @param capacity   the amount of entities expected to be added
+     */
+    public S2CPacketWorldSnapshot(long serverTick, int capacity) {
+        this.serverTick = serverTick;
+        allocate(capacity);
+    }
+
+    /**
+     * Initialize a new empty delta snapshot, entities should be added with {@code add}
+     *
+     * @param serverTick the current server tick
+     * @param baseTick   the acknowledged tick this snapshot is relative to, or {@code -1} for a complete snapshot
+     * @param capacity   the amount of entities expected to be added
+     */
+    public S2CPacketWorldSnapshot(long serverTick, long baseTick, int capacity) {
+        this(serverTick, capacity);
+        this.baseTick = baseTick;
+    }
+
+    /**
+     * Initialize a new empty delta snapshot, entities should be added with {@code add}
+     *
+     * @param serverTick the current server tick
+     * @param baseTick   the acknowledged tick this snapshot is relative to, or {@code -1} for a complete snapshot
+     * @param capacity   the amount of entities expected to be added
+     * @param codec      how movement fields are written
+     */
+    public S2CPacketWorldSnapshot(long serverTick, long baseTick, int capacity, MovementCodec codec) {
+        this(serverTick, baseTick, capacity);
+        this.codec = codec;
+    }
+
+    private S2CPacketWorldSnapshot(ByteBuf buffer, MovementCodec codec, ProtocolFraming inboundFraming) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.inboundFraming = inboundFraming;
+        decode();
+    }
+
+    /**
+     * The amount of entities a snapshot can include without its frame exceeding the provided length with any framing.
+     * Larger snapshots must be sent in parts, which clients accept as long as they are not deltas.
+     *
+     * @param maxFrameLength the max length of a frame, including its header
+     * @param codec          how movement fields are written
+     * @return the amount of entities, at least {@code 1}
+     */
+    public static int getMaxEntities(int maxFrameLength, MovementCodec codec) {
+        final int entityLength = MAX_ENTITY_ID_LENGTH + 1 + codec.positionLength() * 2 + codec.velocityLength() * 2 + codec.rotationLength();
+        return Math.max(1, (maxFrameLength - ProtocolFraming.MAX_HEADER_LENGTH - FIXED_LENGTH) / entityLength);
+    }
+
+    /**
+     * Add the state of an entity to this snapshot
+     *
+     * @param entityId  the entity ID
+     * @param x         position X
+     * @param y         position Y
+     * @param velocityX velocity X
+     * @param velocityY velocity Y
+     * @param rotation  rotation
+     */
+    public void add(int entityId, float x, float y, float velocityX, float velocityY, float rotation) {
+        add(entityId, WorldState.ALL, x, y, velocityX, velocityY, rotation);
+    }
+
+    /**
+     * Add the changed state of an entity to this snapshot
+     *
+     * @param entityId  the entity ID
+     * @param mask      the fields that changed, see {@link WorldState}
+     * @param x         position X
+     * @param y         position Y
+     * @param velocityX velocity X
+     * @param velocityY velocity Y
+     * @param rotation  rotation
+     */
+    public void add(int entityId, int mask, float x, float y, float velocityX, float velocityY, float rotation) {
+        if (entityCount == entityIds.length) grow();
+
+        entityIds[entityCount] = entityId;
+        masks[entityCount] = mask;
+        this.x[entityCount] = x;
+        this.y[entityCount] = y;
+        this.velocityX[entityCount] = velocityX;
+        this.velocityY[entityCount] = velocityY;
+        this.rotation[entityCount] = rotation;
+        entityCount++;
+    }
+
+    /**
+     * Add the state of an entity to this snapshot
+     *
+     * @param entityId the entity ID
+     * @param position position
+     * @param velocity velocity
+     * @param rotation rotation
+     */
+    public void add(int entityId, Vector2 position, Vector2 velocity, float rotation) {
+        add(entityId, position.x, position.y, velocity.x, velocity.y, rotation);
+    }
+
+    /**
+     * Include entities laid out as rows of {@link #ROW_LENGTH} bytes, starting at the reader index of the buffer.
+     * The rows are written after the entities added, they are not retained and must not change until this snapshot is encoded.
+     *
+     * @param rows  the rows
+     * @param count the amount of rows
+     */
+    public void setRows(ByteBuf rows, int count) {
+        this.rows = rows;
+        this.rowCount = count;
+    }
+
+    /**
+     * Set if this snapshot leaves out entities that did not change while not being a delta.
+     * A partial snapshot is never superseded, a newer one would not include what this one changed.
+     *
+     * @param partial {@code true} if partial
+     */
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    /**
+     * @return {@code true} if this snapshot leaves out entities that did not change while not being a delta
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * @return the server tick this snapshot was taken
+     */
+    public long getServerTick() {
+        return serverTick;
+    }
+
+    /**
+     * @return the tick this snapshot is relative to, or {@code -1} if complete
+     */
+    public long getBaseTick() {
+        return baseTick;
+    }
+
+    /**
+     * @return {@code true} if this snapshot is relative to an acknowledged tick
+     */
+    public boolean isDelta() {
+        return baseTick != -1;
+    }
+
+    /**
+     * @return amount of entities within this snapshot, not including rows
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * @return amount of rows within this snapshot, see {@link #setRows(ByteBuf, int)}
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param index the index, from {@code 0} to {@code getEntityCount}
+     * @return the entity ID
+     */
+    public int getEntityId(int index) {
+        return entityIds[index];
+    }
+
+    /**
+     * @param index the index
+     * @return the fields included for the entity, see {@link WorldState}
+     */
+    public int getMask(int index) {
+        return masks[index];
+    }
+
+    public float getX(int index) {
+        return x[index];
+    }
+
+    public float getY(int index) {
+        return y[index];
+    }
+
+    public float getVelocityX(int index) {
+        return velocityX[index];
+    }
+
+    public float getVelocityY(int index) {
+        return velocityY[index];
+    }
+
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        // a newer snapshot covers everything an older one did, deltas are relative to an acknowledged tick.
+        // partial snapshots only cover what changed that tick, so each must arrive
+        return partial ? BackpressurePolicy.RELIABLE : BackpressurePolicy.SUPERSEDE;
+    }
+
+    @Override
+    public int getId() {
+        return PACKET_ID;
+    }
+
+    @Override
+    public void encode(ByteBuf out) {
+        encode(out, ProtocolFraming.V1);
+    }
+
+    @Override
+    public void encode(ByteBuf out, ProtocolFraming framing) {
+        writeId(out);
+        out.writeLong(serverTick);
+        out.writeLong(baseTick);
+        out.writeInt(entityCount + rowCount);
+        for (int i = 0; i < entityCount; i++) {
+            writeEntity(out, framing, entityIds[i], masks[i], x[i], y[i], velocityX[i], velocityY[i], rotation[i]);
+        }
+        if (rowCount > 0) writeRows(out, framing);
+    }
+
+    private void writeRows(ByteBuf out, ProtocolFraming framing) {
+        final int start = rows.readerIndex();
+        if (framing == ProtocolFraming.V1 && codec == MovementCodec.RAW) {
+            // already what would be written
+            out.writeBytes(rows, start, rowCount * ROW_LENGTH);
+            return;
+        }
+
+        for (int i = 0; i < rowCount; i++) {
+            final int row = start + i * ROW_LENGTH;
+            writeEntity(out, framing, rows.getInt(row + ROW_ENTITY_ID), rows.getUnsignedByte(row + ROW_MASK),
+                    rows.getFloat(row + ROW_X), rows.getFloat(row + ROW_Y),
+                    rows.getFloat(row + ROW_VELOCITY_X), rows.getFloat(row + ROW_VELOCITY_Y), rows.getFloat(row + ROW_ROTATION));
+        }
+    }
+
+    private void writeEntity(ByteBuf out, ProtocolFraming framing, int entityId, int mask, float x, float y, float velocityX, float velocityY, float rotation) {
+        framing.writeEntityId(out, entityId);
+        out.writeByte(mask);
+        if ((mask & WorldState.POSITION_X) != 0) codec.writePositionX(out, x);
+        if ((mask & WorldState.POSITION_Y) != 0) codec.writePositionY(out, y);
+        if ((mask & WorldState.VELOCITY_X) != 0) codec.writeVelocity(out, velocityX);
+        if ((mask & WorldState.VELOCITY_Y) != 0) codec.writeVelocity(out, velocityY);
+        if ((mask & WorldState.ROTATION) != 0) codec.writeRotation(out, rotation);
+    }
+
+    @Override
+    public void decode() {
+        serverTick = buffer.readLong();
+        baseTick = buffer.readLong();
+        final int count = buffer.readInt();
+        allocate(count);
+        for (int i = 0; i < count; i++) {
+            final int entityId = inboundFraming.readEntityId(buffer);
+            final int mask = buffer.readUnsignedByte();
+            add(entityId, mask,
+                    (mask & WorldState.POSITION_X) != 0 ? codec.readPositionX(buffer) : 0.0f,
+                    (mask & WorldState.POSITION_Y) != 0 ? codec.readPositionY(buffer) : 0.0f,
+                    (mask & WorldState.VELOCITY_X) != 0 ? codec.readVelocity(buffer) : 0.0f,
+                    (mask & WorldState.VELOCITY_Y) != 0 ? codec.readVelocity(buffer) : 0.0f,
+                    (mask & WorldState.ROTATION) != 0 ? codec.readRotation(buffer) : 0.0f);
+        }
+    }
+
+    private void allocate(int capacity) {
+        entityIds = new int[capacity];
+        masks = new int[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+    }
+
+    private void grow() {
+        final int capacity = Math.max(8, entityIds.length * 2);
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        masks = Arrays.copyOf(masks, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+    }
+
+}
@@ -0,0 +1,35 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.packet.client.C2SPacketPing;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link C2SPacketPing}
+ */
+public final class C2SPingView extends PacketView {
+
+    private static final FastThreadLocal<C2SPingView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected C2SPingView initialValue() {
+            return new C2SPingView();
+        }
+    };
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer the frame, positioned after the packet ID
+     * @return the view
+     */
+    public static C2SPingView wrap(ByteBuf buffer) {
+        final C2SPingView view = VIEWS.get();
+        view.setBuffer(buffer);
+        return view;
+    }
+
+    public long getTime() {
+        return buffer.getLong(offset);
+    }
+
+}
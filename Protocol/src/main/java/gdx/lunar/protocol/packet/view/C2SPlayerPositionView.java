@@ -0,0 +1,60 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.packet.client.C2SPacketPlayerPosition;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link C2SPacketPlayerPosition}
+ */
+public final class C2SPlayerPositionView extends PacketView {
+
+    private static final FastThreadLocal<C2SPlayerPositionView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected C2SPlayerPositionView initialValue() {
+            return new C2SPlayerPositionView();
+        }
+    };
+
+    private MovementCodec codec;
+    private int yIndex, rotationIndex, acknowledgedTickIndex;
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer the frame, positioned after the packet ID
+     * @param codec  how movement fields are written
+     * @return the view
+     */
+    public static C2SPlayerPositionView wrap(ByteBuf buffer, MovementCodec codec) {
+        final C2SPlayerPositionView view = VIEWS.get();
+        view.setBuffer(buffer);
+        view.codec = codec;
+        view.yIndex = view.offset + codec.positionLength();
+        view.rotationIndex = view.yIndex + codec.positionLength();
+        view.acknowledgedTickIndex = view.rotationIndex + codec.rotationLength();
+        return view;
+    }
+
+    public float getX() {
+        return codec.getPositionX(buffer, offset);
+    }
+
+    public float getY() {
+        return codec.getPositionY(buffer, yIndex);
+    }
+
+    public float getRotation() {
+        return codec.getRotation(buffer, rotationIndex);
+    }
+
+    /**
+     * @return the latest world snapshot tick the client applied, {@code -1} if none
+     */
+    public long getAcknowledgedTick() {
+        // older clients do not send this
+        return buffer.writerIndex() - acknowledgedTickIndex >= 8 ? buffer.getLong(acknowledgedTickIndex) : -1;
+    }
+
+}
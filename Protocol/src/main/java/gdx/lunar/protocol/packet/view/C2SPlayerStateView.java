@@ -0,0 +1,86 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.packet.client.C2SPacketPlayerState;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link C2SPacketPlayerState}
+ */
+public final class C2SPlayerStateView extends PacketView {
+
+    private static final FastThreadLocal<C2SPlayerStateView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected C2SPlayerStateView initialValue() {
+            return new C2SPlayerStateView();
+        }
+    };
+
+    private MovementCodec codec;
+    private int xIndex, yIndex, velocityXIndex, velocityYIndex, rotationIndex, directionIndex;
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer the frame, positioned after the packet ID
+     * @param codec  how movement fields are written
+     * @return the view
+     */
+    public static C2SPlayerStateView wrap(ByteBuf buffer, MovementCodec codec) {
+        final C2SPlayerStateView view = VIEWS.get();
+        view.setBuffer(buffer);
+        view.codec = codec;
+        view.xIndex = view.offset + 4;
+        view.yIndex = view.xIndex + codec.positionLength();
+        view.velocityXIndex = view.yIndex + codec.positionLength();
+        view.velocityYIndex = view.velocityXIndex + codec.velocityLength();
+        view.rotationIndex = view.velocityYIndex + codec.velocityLength();
+        view.directionIndex = view.rotationIndex + codec.rotationLength();
+        return view;
+    }
+
+    /**
+     * @return the sequence of this state
+     */
+    public int getSequence() {
+        return buffer.getInt(offset);
+    }
+
+    public float getX() {
+        return codec.getPositionX(buffer, xIndex);
+    }
+
+    public float getY() {
+        return codec.getPositionY(buffer, yIndex);
+    }
+
+    public float getVelocityX() {
+        return codec.getVelocity(buffer, velocityXIndex);
+    }
+
+    public float getVelocityY() {
+        return codec.getVelocity(buffer, velocityYIndex);
+    }
+
+    public float getRotation() {
+        return codec.getRotation(buffer, rotationIndex);
+    }
+
+    /**
+     * @return ordinal of the facing direction, {@code -1} if none
+     */
+    public int getDirection() {
+        return buffer.getByte(directionIndex);
+    }
+
+    /**
+     * @return the latest world snapshot tick the client applied, {@code -1} if none
+     */
+    public long getAcknowledgedTick() {
+        // older clients do not send this
+        final int index = directionIndex + 1;
+        return buffer.writerIndex() - index >= 8 ? buffer.getLong(index) : -1;
+    }
+
+}
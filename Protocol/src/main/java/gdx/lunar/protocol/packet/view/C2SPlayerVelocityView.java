@@ -0,0 +1,51 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.packet.client.C2SPacketPlayerVelocity;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link C2SPacketPlayerVelocity}
+ */
+public final class C2SPlayerVelocityView extends PacketView {
+
+    private static final FastThreadLocal<C2SPlayerVelocityView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected C2SPlayerVelocityView initialValue() {
+            return new C2SPlayerVelocityView();
+        }
+    };
+
+    private MovementCodec codec;
+    private int velocityYIndex, rotationIndex;
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer the frame, positioned after the packet ID
+     * @param codec  how movement fields are written
+     * @return the view
+     */
+    public static C2SPlayerVelocityView wrap(ByteBuf buffer, MovementCodec codec) {
+        final C2SPlayerVelocityView view = VIEWS.get();
+        view.setBuffer(buffer);
+        view.codec = codec;
+        view.velocityYIndex = view.offset + codec.velocityLength();
+        view.rotationIndex = view.velocityYIndex + codec.velocityLength();
+        return view;
+    }
+
+    public float getVelocityX() {
+        return codec.getVelocity(buffer, offset);
+    }
+
+    public float getVelocityY() {
+        return codec.getVelocity(buffer, velocityYIndex);
+    }
+
+    public float getRotation() {
+        return codec.getRotation(buffer, rotationIndex);
+    }
+
+}
@@ -0,0 +1,35 @@
+package gdx.lunar.protocol.packet.view;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A flyweight over a received frame.
+ * Fields are read in place from the frame instead of being decoded into a packet, so handling one creates no objects.
+ * <p>
+ * A view is only valid for the duration of the handler call it was given to, the frame is released once it returns.
+ * Views are reused per thread and must never be kept.
+ */
+public abstract class PacketView {
+
+    protected ByteBuf buffer;
+    // index of the first byte after the packet ID
+    protected int offset;
+
+    /**
+     * Point this view at the provided frame, the reader index is left untouched.
+     *
+     * @param buffer the frame, positioned after the packet ID
+     */
+    protected void setBuffer(ByteBuf buffer) {
+        this.buffer = buffer;
+        this.offset = buffer.readerIndex();
+    }
+
+    /**
+     * @return the frame this view reads from
+     */
+    public ByteBuf getBuffer() {
+        return buffer;
+    }
+
+}
@@ -0,0 +1,39 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.packet.server.S2CPacketPing;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link S2CPacketPing}
+ */
+public final class S2CPingView extends PacketView {
+
+    private static final FastThreadLocal<S2CPingView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected S2CPingView initialValue() {
+            return new S2CPingView();
+        }
+    };
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer the frame, positioned after the packet ID
+     * @return the view
+     */
+    public static S2CPingView wrap(ByteBuf buffer) {
+        final S2CPingView view = VIEWS.get();
+        view.setBuffer(buffer);
+        return view;
+    }
+
+    public long getClientTime() {
+        return buffer.getLong(offset);
+    }
+
+    public long getServerTime() {
+        return buffer.getLong(offset + 8);
+    }
+
+}
@@ -0,0 +1,65 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.packet.server.S2CPacketPlayerPosition;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link S2CPacketPlayerPosition}
+ */
+public final class S2CPlayerPositionView extends PacketView {
+
+    private static final FastThreadLocal<S2CPlayerPositionView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected S2CPlayerPositionView initialValue() {
+            return new S2CPlayerPositionView();
+        }
+    };
+
+    private MovementCodec codec;
+    // the entity ID may be a varint, it is read once when wrapped.
+    private int entityId;
+    private int rotationIndex, xIndex, yIndex;
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer  the frame, positioned after the packet ID
+     * @param codec   how movement fields are written
+     * @param framing the framing the frame was read with
+     * @return the view
+     */
+    public static S2CPlayerPositionView wrap(ByteBuf buffer, MovementCodec codec, ProtocolFraming framing) {
+        final S2CPlayerPositionView view = VIEWS.get();
+        view.setBuffer(buffer);
+        view.codec = codec;
+        view.entityId = framing.readEntityId(buffer);
+        view.rotationIndex = buffer.readerIndex();
+        view.xIndex = view.rotationIndex + codec.rotationLength();
+        view.yIndex = view.xIndex + codec.positionLength();
+        buffer.readerIndex(view.offset);
+        return view;
+    }
+
+    /**
+     * @return EID
+     */
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public float getRotation() {
+        return codec.getRotation(buffer, rotationIndex);
+    }
+
+    public float getX() {
+        return codec.getPositionX(buffer, xIndex);
+    }
+
+    public float getY() {
+        return codec.getPositionY(buffer, yIndex);
+    }
+
+}
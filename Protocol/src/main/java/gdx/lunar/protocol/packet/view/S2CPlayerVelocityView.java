@@ -0,0 +1,65 @@
+package gdx.lunar.protocol.packet.view;
+
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.packet.server.S2CPacketPlayerVelocity;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A view of {@link S2CPacketPlayerVelocity}
+ */
+public final class S2CPlayerVelocityView extends PacketView {
+
+    private static final FastThreadLocal<S2CPlayerVelocityView> VIEWS = new FastThreadLocal<>() {
+        @Override
+        protected S2CPlayerVelocityView initialValue() {
+            return new S2CPlayerVelocityView();
+        }
+    };
+
+    private MovementCodec codec;
+    // the entity ID may be a varint, it is read once when wrapped.
+    private int entityId;
+    private int xIndex, yIndex, rotationIndex;
+
+    /**
+     * Wrap the provided frame with the view of this thread
+     *
+     * @param buffer  the frame, positioned after the packet ID
+     * @param codec   how movement fields are written
+     * @param framing the framing the frame was read with
+     * @return the view
+     */
+    public static S2CPlayerVelocityView wrap(ByteBuf buffer, MovementCodec codec, ProtocolFraming framing) {
+        final S2CPlayerVelocityView view = VIEWS.get();
+        view.setBuffer(buffer);
+        view.codec = codec;
+        view.entityId = framing.readEntityId(buffer);
+        view.xIndex = buffer.readerIndex();
+        view.yIndex = view.xIndex + codec.velocityLength();
+        view.rotationIndex = view.yIndex + codec.velocityLength();
+        buffer.readerIndex(view.offset);
+        return view;
+    }
+
+    /**
+     * @return EID
+     */
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public float getX() {
+        return codec.getVelocity(buffer, xIndex);
+    }
+
+    public float getY() {
+        return codec.getVelocity(buffer, yIndex);
+    }
+
+    public float getRotation() {
+        return codec.getRotation(buffer, rotationIndex);
+    }
+
+}
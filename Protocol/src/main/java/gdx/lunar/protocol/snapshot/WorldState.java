@@ -0,0 +1,174 @@
+package gdx.lunar.protocol.snapshot;
+
+import com.badlogic.gdx.utils.IntIntMap;
+
+import java.util.Arrays;
+
+/**
+ * The state of all entities within a world at a single server tick.
+ * Used as a baseline for delta compressing world snapshots.
+ * States are pooled by {@link WorldStateHistory} and reused.
+ */
+public final class WorldState {
+
+    // changed field flags
+    public static final int POSITION_X = 1, POSITION_Y = 1 << 1;
+    public static final int VELOCITY_X = 1 << 2, VELOCITY_Y = 1 << 3;
+    public static final int ROTATION = 1 << 4;
+    public static final int ALL = POSITION_X | POSITION_Y | VELOCITY_X | VELOCITY_Y | ROTATION;
+
+    private long tick = -1;
+    private int count;
+
+    private int[] entityIds;
+    private float[] x, y, velocityX, velocityY, rotation;
+    // entity ID to index
+    private final IntIntMap indices = new IntIntMap();
+
+    public WorldState(int capacity) {
+        entityIds = new int[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+    }
+
+    /**
+     * Clear this state to be reused for a new tick
+     *
+     * @param tick the tick
+     */
+    public void reset(long tick) {
+        this.tick = tick;
+        this.count = 0;
+        indices.clear();
+    }
+
+    /**
+     * @return the tick of this state or {@code -1} if none
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return amount of entities in this state
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Copy all entities of another state into this one
+     *
+     * @param other the other state
+     */
+    public void copyFrom(WorldState other) {
+        for (int i = 0; i < other.count; i++) {
+            set(other.entityIds[i], other.x[i], other.y[i], other.velocityX[i], other.velocityY[i], other.rotation[i]);
+        }
+    }
+
+    /**
+     * Set the state of an entity, adding it if not present.
+     *
+     * @param entityId  the entity ID
+     * @param x         position X
+     * @param y         position Y
+     * @param velocityX velocity X
+     * @param velocityY velocity Y
+     * @param rotation  rotation
+     */
+    public void set(int entityId, float x, float y, float velocityX, float velocityY, float rotation) {
+        int index = indices.get(entityId, -1);
+        if (index == -1) {
+            if (count == entityIds.length) grow();
+            index = count++;
+            entityIds[index] = entityId;
+            indices.put(entityId, index);
+        }
+
+        this.x[index] = x;
+        this.y[index] = y;
+        this.velocityX[index] = velocityX;
+        this.velocityY[index] = velocityY;
+        this.rotation[index] = rotation;
+    }
+
+    /**
+     * Apply the changed fields of an entity, adding it if not present.
+     *
+     * @param entityId the entity ID
+     * @param mask     which fields changed
+     * @return the index of the entity
+     */
+    public int apply(int entityId, int mask, float x, float y, float velocityX, float velocityY, float rotation) {
+        final int index = indices.get(entityId, -1);
+        if (index == -1) {
+            set(entityId, x, y, velocityX, velocityY, rotation);
+            return count - 1;
+        }
+
+        if ((mask & POSITION_X) != 0) this.x[index] = x;
+        if ((mask & POSITION_Y) != 0) this.y[index] = y;
+        if ((mask & VELOCITY_X) != 0) this.velocityX[index] = velocityX;
+        if ((mask & VELOCITY_Y) != 0) this.velocityY[index] = velocityY;
+        if ((mask & ROTATION) != 0) this.rotation[index] = rotation;
+        return index;
+    }
+
+    /**
+     * Compare the state of an entity against this state
+     *
+     * @param entityId the entity ID
+     * @return the fields that changed, or {@link #ALL} if the entity is not within this state
+     */
+    public int diff(int entityId, float x, float y, float velocityX, float velocityY, float rotation) {
+        final int index = indices.get(entityId, -1);
+        if (index == -1) return ALL;
+
+        int mask = 0;
+        if (this.x[index] != x) mask |= POSITION_X;
+        if (this.y[index] != y) mask |= POSITION_Y;
+        if (this.velocityX[index] != velocityX) mask |= VELOCITY_X;
+        if (this.velocityY[index] != velocityY) mask |= VELOCITY_Y;
+        if (this.rotation[index] != rotation) mask |= ROTATION;
+        return mask;
+    }
+
+    public int getEntityId(int index) {
+        return entityIds[index];
+    }
+
+    public float getX(int index) {
+        return x[index];
+    }
+
+    public float getY(int index) {
+        return y[index];
+    }
+
+    public float getVelocityX(int index) {
+        return velocityX[index];
+    }
+
+    public float getVelocityY(int index) {
+        return velocityY[index];
+    }
+
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+
+    private void grow() {
+        final int capacity = Math.max(8, entityIds.length * 2);
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+    }
+
+}
@@ -0,0 +1,58 @@
+package gdx.lunar.protocol.snapshot;
+
+/**
+ * A small ring of the most recent {@link WorldState}s, indexed by server tick.
+ * The server keeps one per connection of the states it sent,
+ * the client keeps one of the states it received.
+ */
+public final class WorldStateHistory {
+
+    // default amount of ticks kept, 1.6 seconds at 20 ticks per second.
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final WorldState[] states;
+
+    public WorldStateHistory(int capacity) {
+        this.states = new WorldState[capacity];
+        for (int i = 0; i < capacity; i++) states[i] = new WorldState(16);
+    }
+
+    public WorldStateHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get a state to record the provided tick into, this will replace the oldest state.
+     *
+     * @param tick the tick
+     * @return the empty state
+     */
+    public WorldState next(long tick) {
+        final WorldState state = states[(int) (tick % states.length)];
+        state.reset(tick);
+        return state;
+    }
+
+    /**
+     * Get the state to use as a baseline for the provided tick
+     * The baseline must not be replaced when recording {@code tick}, so it has to be within the capacity of this history.
+     *
+     * @param baseTick the baseline tick
+     * @param tick     the tick being recorded
+     * @return the baseline or {@code null} if it is no longer or never was recorded
+     */
+    public WorldState getBaseline(long baseTick, long tick) {
+        if (baseTick < 0 || baseTick >= tick || tick - baseTick >= states.length) return null;
+
+        final WorldState state = states[(int) (baseTick % states.length)];
+        return state.getTick() == baseTick ? state : null;
+    }
+
+    /**
+     * Forget all recorded states
+     */
+    public void clear() {
+        for (WorldState state : states) state.reset(-1);
+    }
+
+}
@@ -0,0 +1,124 @@
+package gdx.lunar.protocol;
+
+import gdx.lunar.protocol.handlers.ClientPacketHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacketDispatchTableTest {
+
+    private final Map<Integer, BiConsumer<ByteBuf, Object>> typed = new HashMap<>();
+    private final Map<Integer, Consumer<ByteBuf>> custom = new HashMap<>();
+
+    @Test
+    void emptyTableResolvesNothing() {
+        final PacketDispatchTable<Object> table = PacketDispatchTable.build(typed, custom);
+        assertEquals(0, table.size());
+        assertNull(table.get(0));
+        assertNull(table.get(-1));
+    }
+
+    @Test
+    void sparseIdsAreCountedOnce() {
+        final BiConsumer<ByteBuf, Object> low = handler(), high = handler();
+        typed.put(10, low);
+        typed.put(1000, high);
+
+        final PacketDispatchTable<Object> table = PacketDispatchTable.build(typed, custom);
+        // the array spans 991 slots, only two are registered
+        assertEquals(2, table.size());
+        assertSame(low, table.get(10));
+        assertSame(high, table.get(1000));
+        assertNull(table.get(9));
+        assertNull(table.get(11));
+        assertNull(table.get(1001));
+    }
+
+    @Test
+    void windowBoundaryIsInclusive() {
+        final BiConsumer<ByteBuf, Object> first = handler(), last = handler(), outside = handler();
+        typed.put(0, first);
+        typed.put(PacketDispatchTable.MAX_ID_SPAN - 1, last);
+        typed.put(PacketDispatchTable.MAX_ID_SPAN, outside);
+
+        final PacketDispatchTable<Object> table = PacketDispatchTable.build(typed, custom);
+        assertEquals(3, table.size());
+        assertSame(first, table.get(0));
+        assertSame(last, table.get(PacketDispatchTable.MAX_ID_SPAN - 1));
+        assertSame(outside, table.get(PacketDispatchTable.MAX_ID_SPAN));
+        assertNull(table.get(PacketDispatchTable.MAX_ID_SPAN + 1));
+    }
+
+    @Test
+    void idsOutsideTheWindowOverflow() {
+        final BiConsumer<ByteBuf, Object> negative = handler(), min = handler(), max = handler();
+        typed.put(-5, negative);
+        typed.put(Integer.MIN_VALUE, min);
+        typed.put(Integer.MAX_VALUE, max);
+        for (int pid = 100; pid < 110; pid++) typed.put(pid, handler());
+
+        final PacketDispatchTable<Object> table = PacketDispatchTable.build(typed, custom);
+        assertEquals(13, table.size());
+        assertSame(negative, table.get(-5));
+        assertSame(min, table.get(Integer.MIN_VALUE));
+        assertSame(max, table.get(Integer.MAX_VALUE));
+        for (int pid = 100; pid < 110; pid++) assertSame(typed.get(pid), table.get(pid));
+        assertNull(table.get(-4));
+        assertNull(table.get(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    void customHandlersResolveInTheSameTable() {
+        final AtomicInteger handled = new AtomicInteger();
+        typed.put(1, handler());
+        custom.put(2, buf -> handled.incrementAndGet());
+        custom.put(1 << 20, buf -> handled.incrementAndGet());
+
+        final PacketDispatchTable<Object> table = PacketDispatchTable.build(typed, custom);
+        assertEquals(3, table.size());
+        table.get(2).accept(Unpooled.EMPTY_BUFFER, null);
+        table.get(1 << 20).accept(Unpooled.EMPTY_BUFFER, null);
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void protocolRejectsIdsUsedByAnotherTable() {
+        final GdxProtocol protocol = new GdxProtocol(1, "test", true);
+        final int pid = protocol.getClientHandlers().keySet().iterator().next();
+        final int size = protocol.getClientDispatchTable().size();
+
+        assertThrows(IllegalArgumentException.class, () -> protocol.registerPacket(pid, buf -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> protocol.registerServerPacket(pid, (buf, handler) -> {
+        }));
+        assertFalse(protocol.isCustomPacket(pid));
+        assertFalse(protocol.isServerPacket(pid));
+        assertEquals(size, protocol.getClientDispatchTable().size());
+
+        // replacing a handler within the same table is allowed
+        final BiConsumer<ByteBuf, ClientPacketHandler> replaced = (buf, handler) -> {
+        };
+        protocol.changeClientPacketHandler(pid, replaced);
+        assertSame(replaced, protocol.getClientDispatchTable().get(pid));
+        assertEquals(size, protocol.getClientDispatchTable().size());
+
+        protocol.registerPacket(9000, buf -> {
+        });
+        assertEquals(size + 1, protocol.getClientDispatchTable().size());
+        assertNotNull(protocol.getServerDispatchTable().get(9000));
+    }
+
+    private static BiConsumer<ByteBuf, Object> handler() {
+        return (buf, handler) -> {
+        };
+    }
+
+}
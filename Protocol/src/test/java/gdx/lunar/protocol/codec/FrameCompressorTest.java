@@ -0,0 +1,213 @@
+package gdx.lunar.protocol.codec;
+
+import gdx.lunar.protocol.codec.ProtocolFramingTest.TestPacket;
+import gdx.lunar.protocol.packet.GamePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameCompressorTest {
+
+    private static final int THRESHOLD = 64;
+
+    private final FrameCompressor compressor = new FrameCompressor();
+    private final EmbeddedChannel channel = new EmbeddedChannel(compressor);
+
+    @AfterEach
+    void close() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void framesPassThroughUntilEnabled() {
+        final ByteBuf frame = frame(ProtocolFraming.V1, new TestPacket(1, 200));
+        final int length = frame.readableBytes();
+        channel.writeOutbound(frame);
+
+        final ByteBuf written = readWritten();
+        assertEquals(length, written.readableBytes());
+        assertEquals(length - 4, written.readInt());
+        written.release();
+        assertEquals(-1, compressor.getThreshold());
+    }
+
+    @Test
+    void framesBelowThresholdAreMarkedRaw() {
+        compressor.enable(THRESHOLD);
+        for (ProtocolFraming framing : ProtocolFraming.values()) {
+            channel.attr(ProtocolFraming.OUTBOUND).set(framing);
+            final TestPacket packet = new TestPacket(300, THRESHOLD - 10);
+            channel.writeOutbound(frame(framing, packet));
+
+            final ByteBuf frame = readFrame(framing);
+            try {
+                // the raw marker, then the frame as written
+                assertEquals(0, frame.getByte(frame.readerIndex()));
+                assertEquals(packet.getId(), framing.readId(inflate(frame)));
+                packet.assertPayload(frame);
+            } finally {
+                frame.release();
+            }
+        }
+        assertEquals(2, compressor.getFramesSkipped());
+        assertEquals(0, compressor.getFramesCompressed());
+    }
+
+    @Test
+    void framesAboveThresholdRoundTrip() {
+        compressor.enable(THRESHOLD);
+        for (ProtocolFraming framing : ProtocolFraming.values()) {
+            channel.attr(ProtocolFraming.OUTBOUND).set(framing);
+            final TestPacket packet = new TestPacket(300, 4096);
+            channel.writeOutbound(frame(framing, packet));
+
+            final ByteBuf frame = readFrame(framing);
+            ByteBuf inflated = null;
+            try {
+                assertTrue(frame.readableBytes() < 4096, "Frame was not compressed");
+                inflated = inflate(frame);
+                assertNotSame(frame, inflated);
+                assertEquals(packet.getId(), framing.readId(inflated));
+                packet.assertPayload(inflated);
+            } finally {
+                frame.release();
+                if (inflated != null) inflated.release();
+            }
+        }
+        assertEquals(2, compressor.getFramesCompressed());
+        assertTrue(compressor.getWrittenBytes() < compressor.getRawBytes());
+    }
+
+    @Test
+    void frameAtThresholdIsCompressed() {
+        compressor.enable(THRESHOLD);
+        // 4 byte ID + payload makes a frame of exactly the threshold
+        channel.writeOutbound(frame(ProtocolFraming.V1, new TestPacket(1, THRESHOLD - 4)));
+        readFrame(ProtocolFraming.V1).release();
+        assertEquals(1, compressor.getFramesCompressed());
+    }
+
+    @Test
+    void incompressibleFramesAreMarkedRaw() {
+        compressor.enable(THRESHOLD);
+        channel.attr(ProtocolFraming.OUTBOUND).set(ProtocolFraming.V2);
+        final byte[] noise = new byte[1024];
+        new Random(1).nextBytes(noise);
+        channel.writeOutbound(frame(ProtocolFraming.V2, new NoisePacket(noise)));
+
+        final ByteBuf frame = readFrame(ProtocolFraming.V2);
+        try {
+            assertEquals(0, frame.getByte(frame.readerIndex()));
+            assertSame(frame, inflate(frame));
+            assertEquals(2, ProtocolFraming.V2.readId(frame));
+            final byte[] read = new byte[noise.length];
+            frame.readBytes(read);
+            assertArrayEquals(noise, read);
+        } finally {
+            frame.release();
+        }
+        assertEquals(1, compressor.getFramesSkipped());
+    }
+
+    @Test
+    void inflatedFrameAboveMaxLengthIsTooLong() {
+        compressor.enable(THRESHOLD);
+        channel.attr(ProtocolFraming.OUTBOUND).set(ProtocolFraming.V2);
+        channel.writeOutbound(frame(ProtocolFraming.V2, new TestPacket(1, 4096)));
+
+        final EmbeddedChannel inbound = new EmbeddedChannel();
+        final ByteBuf frame = readFrame(ProtocolFraming.V2);
+        try {
+            FrameInflater.enable(inbound, 1024);
+            assertThrows(TooLongFrameException.class, () -> FrameInflater.of(inbound).inflate(frame, inbound.alloc()));
+        } finally {
+            frame.release();
+            inbound.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void truncatedCompressedFrameIsRejected() {
+        compressor.enable(THRESHOLD);
+        channel.attr(ProtocolFraming.OUTBOUND).set(ProtocolFraming.V2);
+        channel.writeOutbound(frame(ProtocolFraming.V2, new TestPacket(1, 4096)));
+
+        final ByteBuf frame = readFrame(ProtocolFraming.V2);
+        try {
+            frame.writerIndex(frame.writerIndex() - 4);
+            assertThrows(DecoderException.class, () -> inflate(frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf frame(ProtocolFraming framing, GamePacket packet) {
+        final ByteBuf buffer = Unpooled.buffer();
+        framing.writeFrame(packet, buffer);
+        return buffer;
+    }
+
+    /**
+     * @return every buffer written, joined
+     */
+    private ByteBuf readWritten() {
+        final ByteBuf written = Unpooled.buffer();
+        ByteBuf part;
+        while ((part = channel.readOutbound()) != null) {
+            written.writeBytes(part);
+            part.release();
+        }
+        return written;
+    }
+
+    /**
+     * @return the written frame, positioned after the length
+     */
+    private ByteBuf readFrame(ProtocolFraming framing) {
+        final ByteBuf written = readWritten();
+        if (framing == ProtocolFraming.V2) {
+            final ByteBuf frame = ProtocolFraming.readVarIntFrame(written, Integer.MAX_VALUE);
+            assertFalse(written.isReadable());
+            written.release();
+            return frame;
+        }
+        assertEquals(written.readableBytes() - 4, framing.readLength(written));
+        return written;
+    }
+
+    private ByteBuf inflate(ByteBuf frame) {
+        if (FrameInflater.of(channel) == null) FrameInflater.enable(channel, Integer.MAX_VALUE);
+        return FrameInflater.of(channel).inflate(frame, channel.alloc());
+    }
+
+    /**
+     * Writes its ID and the provided bytes
+     */
+    private static final class NoisePacket extends GamePacket {
+        private final byte[] noise;
+
+        private NoisePacket(byte[] noise) {
+            this.noise = noise;
+        }
+
+        @Override
+        public int getId() {
+            return 2;
+        }
+
+        @Override
+        public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+            writeId(out);
+            out.writeBytes(noise);
+        }
+    }
+
+}
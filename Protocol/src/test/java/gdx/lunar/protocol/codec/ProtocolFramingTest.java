@@ -0,0 +1,179 @@
+package gdx.lunar.protocol.codec;
+
+import gdx.lunar.protocol.packet.GamePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtocolFramingTest {
+
+    // the largest value of each varint length and the first value of the next
+    private static final int[] BOUNDARIES = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456, Integer.MAX_VALUE, -1};
+
+    @Test
+    void varIntRoundTrips() {
+        for (int value : BOUNDARIES) {
+            final ByteBuf buffer = Unpooled.buffer();
+            ProtocolFraming.writeVarInt(buffer, value);
+            assertEquals(ProtocolFraming.varIntLength(value), buffer.readableBytes(), "Length of " + value);
+            assertEquals(value, ProtocolFraming.readVarInt(buffer));
+            assertFalse(buffer.isReadable());
+        }
+    }
+
+    @Test
+    void framesRoundTripAtIdBoundaries() {
+        for (ProtocolFraming framing : ProtocolFraming.values()) {
+            for (int id : BOUNDARIES) {
+                final TestPacket packet = new TestPacket(id, 3);
+                final ByteBuf buffer = Unpooled.buffer();
+                framing.writeFrame(packet, buffer);
+                assertTrue(buffer.readableBytes() <= framing.frameCapacity(packet.getEncodedSize()));
+
+                final int length = framing.readLength(buffer);
+                assertEquals(buffer.readableBytes(), length, framing + " length of " + id);
+                assertEquals(id, framing.readId(buffer), framing + " ID " + id);
+                packet.assertPayload(buffer);
+            }
+        }
+    }
+
+    @Test
+    void v2FramesAtLengthBoundariesAreRead() {
+        // frame lengths of 127, 128, 16383 and 16384 with a 1 byte ID
+        for (int payload : new int[]{126, 127, 16382, 16383}) {
+            final TestPacket packet = new TestPacket(1, payload);
+            final ByteBuf buffer = Unpooled.buffer();
+            ProtocolFraming.V2.writeFrame(packet, buffer);
+            assertEquals(ProtocolFraming.varIntLength(payload + 1) + 1 + payload, buffer.readableBytes());
+
+            final ByteBuf frame = ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE);
+            try {
+                assertNotNull(frame);
+                assertEquals(payload + 1, frame.readableBytes());
+                assertEquals(1, ProtocolFraming.V2.readId(frame));
+                packet.assertPayload(frame);
+                assertFalse(buffer.isReadable());
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    @Test
+    void v2FramesAfterOthersAreMovedToTheEnd() {
+        final ByteBuf buffer = Unpooled.buffer();
+        final TestPacket first = new TestPacket(200, 5), second = new TestPacket(2, 300);
+        ProtocolFraming.V2.writeFrame(first, buffer);
+        ProtocolFraming.V2.writeFrame(second, buffer);
+
+        for (TestPacket packet : new TestPacket[]{first, second}) {
+            final ByteBuf frame = ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE);
+            try {
+                assertEquals(packet.getId(), ProtocolFraming.V2.readId(frame));
+                packet.assertPayload(frame);
+            } finally {
+                frame.release();
+            }
+        }
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    void partialV2FrameIsNotRead() {
+        final ByteBuf frame = Unpooled.buffer();
+        ProtocolFraming.V2.writeFrame(new TestPacket(1, 200), frame);
+
+        final ByteBuf buffer = Unpooled.buffer();
+        // nothing, then half of the varint length, then all but the last byte
+        assertNull(ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE));
+        buffer.writeBytes(frame, 1);
+        assertNull(ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE));
+        buffer.writeBytes(frame, frame.readableBytes() - 1);
+        assertNull(ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE));
+        assertEquals(0, buffer.readerIndex());
+
+        buffer.writeBytes(frame);
+        final ByteBuf read = ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE);
+        assertNotNull(read);
+        assertEquals(201, read.readableBytes());
+        read.release();
+    }
+
+    @Test
+    void v2FrameAboveMaxLengthIsTooLong() {
+        final ByteBuf buffer = Unpooled.buffer();
+        ProtocolFraming.V2.writeFrame(new TestPacket(1, 100), buffer);
+        assertThrows(TooLongFrameException.class, () -> ProtocolFraming.readVarIntFrame(buffer, 100));
+        // the stream cannot be resynchronized, everything is dropped
+        assertFalse(buffer.isReadable());
+
+        final ByteBuf negative = Unpooled.buffer();
+        ProtocolFraming.writeVarInt(negative, -1);
+        assertThrows(TooLongFrameException.class, () -> ProtocolFraming.readVarIntFrame(negative, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void malformedV2LengthIsCorrupted() {
+        final ByteBuf buffer = Unpooled.buffer();
+        for (int i = 0; i < 5; i++) buffer.writeByte(0x80);
+        assertThrows(CorruptedFrameException.class, () -> ProtocolFraming.readVarIntFrame(buffer, Integer.MAX_VALUE));
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    void truncatedVarIntIsCorrupted() {
+        final ByteBuf truncated = Unpooled.buffer().writeByte(0x80);
+        assertThrows(CorruptedFrameException.class, () -> ProtocolFraming.readVarInt(truncated));
+
+        final ByteBuf tooLong = Unpooled.buffer();
+        for (int i = 0; i < 6; i++) tooLong.writeByte(0x80);
+        assertThrows(CorruptedFrameException.class, () -> ProtocolFraming.readVarInt(tooLong));
+    }
+
+    @Test
+    void versionSelectsFraming() {
+        assertSame(ProtocolFraming.V1, ProtocolFraming.forVersion(1));
+        assertSame(ProtocolFraming.V2, ProtocolFraming.forVersion(2));
+        assertSame(ProtocolFraming.V2, ProtocolFraming.forVersion(3));
+    }
+
+    /**
+     * Writes its ID and a payload of {@code length} bytes repeating 0 to 15
+     */
+    static final class TestPacket extends GamePacket {
+        private final int id;
+        private final int length;
+
+        TestPacket(int id, int length) {
+            this.id = id;
+            this.length = length;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public int getEncodedSize() {
+            return 4 + length;
+        }
+
+        @Override
+        public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+            writeId(out);
+            for (int i = 0; i < length; i++) out.writeByte(i & 15);
+        }
+
+        void assertPayload(ByteBuf in) {
+            assertEquals(length, in.readableBytes());
+            for (int i = 0; i < length; i++) assertEquals(i & 15, in.readByte());
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package gdx.lunar.protocol.codec;
+
+import gdx.lunar.protocol.packet.Packet;
+import gdx.lunar.protocol.packet.server.S2CPacketPing;
+import gdx.lunar.protocol.packet.server.S2CPacketPlayerPosition;
+import com.sun.management.ThreadMXBean;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProtocolPacketEncoderTest {
+
+    private static final int ENCODES = 100_000;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ProtocolPacketEncoder());
+
+    @AfterEach
+    void close() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pooledPacketIsRecycledOnceWritten() {
+        final S2CPacketPing packet = S2CPacketPing.obtain(10, 20);
+        assertTrue(packet.isPooled());
+        assertTrue(channel.writeOutbound(packet));
+        readFrame();
+
+        // the pool hands back the instance the encoder released, reset
+        final S2CPacketPing next = S2CPacketPing.obtain(30, 40);
+        assertSame(packet, next);
+        assertEquals(30, next.getClientTime());
+        next.release();
+    }
+
+    @Test
+    void retainedPacketIsRecycledAfterEveryWrite() {
+        final EmbeddedChannel other = new EmbeddedChannel(new ProtocolPacketEncoder());
+        try {
+            final S2CPacketPing packet = S2CPacketPing.obtain(10, 20);
+            packet.retain();
+
+            channel.writeOutbound(packet);
+            readFrame();
+            final S2CPacketPing whileRetained = S2CPacketPing.obtain(0, 0);
+            assertNotSame(packet, whileRetained);
+            whileRetained.release();
+
+            other.writeOutbound(packet);
+            other.<ByteBuf>readOutbound().release();
+            // the instance released last is handed out first
+            final S2CPacketPing next = S2CPacketPing.obtain(0, 0);
+            assertSame(packet, next);
+            next.release();
+        } finally {
+            other.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void pooledMovementPacketIsRecycledOnceWritten() {
+        final S2CPacketPlayerPosition packet = S2CPacketPlayerPosition.obtain(1, 0.5f, 10.0f, 20.0f, MovementCodec.RAW);
+        channel.writeOutbound(packet);
+        readFrame();
+
+        final S2CPacketPlayerPosition next = S2CPacketPlayerPosition.obtain(2, 0.0f, 0.0f, 0.0f, MovementCodec.RAW);
+        assertSame(packet, next);
+        assertEquals(2, next.getEntityId());
+        next.release();
+    }
+
+    @Test
+    void unpooledPacketIsEncoded() {
+        final S2CPacketPing packet = new S2CPacketPing(10, 20);
+        assertFalse(packet.isPooled());
+        assertTrue(channel.writeOutbound(packet));
+
+        final ByteBuf frame = channel.readOutbound();
+        try {
+            assertEquals(frame.readableBytes() - 4, frame.getInt(0));
+            assertEquals(S2CPacketPing.PACKET_ID, frame.getInt(4));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void subclassesCustomiseFraming() {
+        final ProtocolPacketEncoder encoder = new ProtocolPacketEncoder() {
+            @Override
+            protected void writeFrame(Packet packet, ByteBuf out, ProtocolFraming framing, StringTable strings) {
+                // a marker in front of every frame
+                out.writeByte(0x7F);
+                super.writeFrame(packet, out, framing, strings);
+            }
+        };
+
+        final EmbeddedChannel custom = new EmbeddedChannel(encoder);
+        try {
+            custom.writeOutbound(new S2CPacketPing(10, 20));
+            final ByteBuf frame = custom.readOutbound();
+            assertEquals(0x7F, frame.getByte(0));
+            assertEquals(S2CPacketPing.PACKET_ID, frame.getInt(5));
+            frame.release();
+        } finally {
+            custom.finishAndReleaseAll();
+        }
+
+        final ByteBuf shared = encoder.encodeFrame(UnpooledByteBufAllocator.DEFAULT, new S2CPacketPing(10, 20), ProtocolFraming.V1);
+        try {
+            assertTrue(shared.isReadOnly());
+            assertEquals(0x7F, shared.getByte(0));
+        } finally {
+            shared.release();
+        }
+    }
+
+    @Test
+    void pooledEncodingDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        final ByteBuf out = Unpooled.directBuffer(64);
+        try {
+            // fill the pool and compile the path first
+            encodePooled(out, 10_000);
+
+            final long thread = Thread.currentThread().threadId();
+            final long before = threads.getThreadAllocatedBytes(thread);
+            encodePooled(out, ENCODES);
+            final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            assertTrue(allocated / ENCODES < 1, "Allocated " + allocated + " bytes over " + ENCODES + " encodes");
+        } finally {
+            out.release();
+        }
+    }
+
+    private static void encodePooled(ByteBuf out, int times) {
+        for (int i = 0; i < times; i++) {
+            final S2CPacketPlayerPosition packet = S2CPacketPlayerPosition.obtain(i, 0.5f, i, i, MovementCodec.RAW);
+            out.clear();
+            ProtocolFraming.V1.writeFrame(packet, out);
+            packet.release();
+        }
+    }
+
+    private void readFrame() {
+        final ByteBuf frame = channel.readOutbound();
+        assertNotNull(frame);
+        frame.release();
+    }
+
+}
@@ -0,0 +1,166 @@
+package gdx.lunar.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantizedMovementCodecTest {
+
+    private static final float MIN_X = -512.0f, MIN_Y = -128.0f, MAX_X = 4096.0f, MAX_Y = 2048.0f;
+    private static final float MAX_VELOCITY = 12.5f;
+    private static final int SAMPLES = 10_000;
+
+    private final ByteBuf buffer = Unpooled.buffer();
+    private final Random random = new Random(42);
+
+    @AfterEach
+    void release() {
+        buffer.release();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {16, 24, 32})
+    void positionsAreWithinError(int bits) {
+        final QuantizedMovementCodec codec = codec(bits, 10);
+        final float errorX = codec.getPositionErrorX(), errorY = codec.getPositionErrorY();
+
+        for (int i = 0; i < SAMPLES; i++) {
+            final float x = MIN_X + random.nextFloat() * (MAX_X - MIN_X);
+            final float y = MIN_Y + random.nextFloat() * (MAX_Y - MIN_Y);
+
+            buffer.clear();
+            codec.writePositionX(buffer, x);
+            codec.writePositionY(buffer, y);
+            assertEquals(codec.positionLength() * 2, buffer.readableBytes());
+
+            assertEquals(x, codec.getPositionX(buffer, 0), errorX);
+            assertEquals(y, codec.getPositionY(buffer, codec.positionLength()), errorY);
+            assertEquals(x, codec.readPositionX(buffer), errorX);
+            assertEquals(y, codec.readPositionY(buffer), errorY);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {16, 24, 32})
+    void positionsAreClampedToBounds(int bits) {
+        final QuantizedMovementCodec codec = codec(bits, 10);
+
+        codec.writePositionX(buffer, MIN_X - 1000.0f);
+        codec.writePositionY(buffer, MAX_Y + 1000.0f);
+        codec.writePositionX(buffer, MIN_X);
+        codec.writePositionY(buffer, MAX_Y);
+
+        assertEquals(MIN_X, codec.readPositionX(buffer), codec.getPositionErrorX());
+        assertEquals(MAX_Y, codec.readPositionY(buffer), codec.getPositionErrorY());
+        assertEquals(MIN_X, codec.readPositionX(buffer), codec.getPositionErrorX());
+        assertEquals(MAX_Y, codec.readPositionY(buffer), codec.getPositionErrorY());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {16, 24, 32})
+    void errorShrinksWithMoreBits(int bits) {
+        final QuantizedMovementCodec codec = codec(bits, 10);
+        final double steps = (1L << bits) - 1;
+
+        assertTrue(codec.getPositionErrorX() >= (MAX_X - MIN_X) / steps / 2.0);
+        if (bits > 16) assertTrue(codec.getPositionErrorX() < codec(bits - 8, 10).getPositionErrorX());
+    }
+
+    @Test
+    void velocitiesAreWithinErrorAndClamped() {
+        final QuantizedMovementCodec codec = codec(16, 10);
+        final float error = codec.getVelocityError();
+
+        for (int i = 0; i < SAMPLES; i++) {
+            final float velocity = (random.nextFloat() * 2.0f - 1.0f) * MAX_VELOCITY;
+            buffer.clear();
+            codec.writeVelocity(buffer, velocity);
+            assertEquals(codec.velocityLength(), buffer.readableBytes());
+            assertEquals(velocity, codec.getVelocity(buffer, 0), error);
+            assertEquals(velocity, codec.readVelocity(buffer), error);
+        }
+
+        buffer.clear();
+        codec.writeVelocity(buffer, MAX_VELOCITY * 4);
+        codec.writeVelocity(buffer, -MAX_VELOCITY * 4);
+        codec.writeVelocity(buffer, 0.0f);
+        assertEquals(MAX_VELOCITY, codec.readVelocity(buffer), error);
+        assertEquals(-MAX_VELOCITY, codec.readVelocity(buffer), error);
+        assertEquals(0.0f, codec.readVelocity(buffer));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 9, 10, 12, 16})
+    void rotationsAreWithinErrorAfterWrapping(int bits) {
+        final QuantizedMovementCodec codec = codec(16, bits);
+        final float error = codec.getRotationError();
+
+        for (int i = 0; i < SAMPLES; i++) {
+            final float rotation = (random.nextFloat() * 6.0f - 3.0f) * QuantizedMovementCodec.FULL_TURN;
+            buffer.clear();
+            codec.writeRotation(buffer, rotation);
+            assertEquals(codec.rotationLength(), buffer.readableBytes());
+
+            assertEquals(0.0, angleBetween(rotation, codec.getRotation(buffer, 0)), error);
+            final float read = codec.readRotation(buffer);
+            assertTrue(read >= 0.0f && read < QuantizedMovementCodec.FULL_TURN);
+            assertEquals(0.0, angleBetween(rotation, read), error);
+        }
+    }
+
+    @Test
+    void rotationWrapsAtFullTurn() {
+        final QuantizedMovementCodec codec = codec(16, 8);
+
+        codec.writeRotation(buffer, QuantizedMovementCodec.FULL_TURN);
+        codec.writeRotation(buffer, QuantizedMovementCodec.FULL_TURN - codec.getRotationError() / 2);
+        codec.writeRotation(buffer, -QuantizedMovementCodec.FULL_TURN / 4);
+
+        assertEquals(0.0f, codec.readRotation(buffer));
+        assertEquals(0.0f, codec.readRotation(buffer));
+        assertEquals(QuantizedMovementCodec.FULL_TURN * 0.75f, codec.readRotation(buffer), codec.getRotationError());
+    }
+
+    @Test
+    void parametersRoundTrip() {
+        final QuantizedMovementCodec codec = codec(24, 12);
+        codec.writeParameters(buffer);
+        final QuantizedMovementCodec read = QuantizedMovementCodec.readParameters(buffer);
+
+        assertFalse(buffer.isReadable());
+        assertEquals(codec.positionLength(), read.positionLength());
+        assertEquals(codec.rotationLength(), read.rotationLength());
+        assertEquals(codec.getPositionErrorX(), read.getPositionErrorX());
+        assertEquals(codec.getVelocityError(), read.getVelocityError());
+        assertEquals(codec.getRotationError(), read.getRotationError());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> codec(20, 10));
+        assertThrows(IllegalArgumentException.class, () -> codec(16, 7));
+        assertThrows(IllegalArgumentException.class, () -> codec(16, 17));
+        assertThrows(IllegalArgumentException.class, () -> new QuantizedMovementCodec(1, 0, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuantizedMovementCodec(0, 0, 1, 1, 0));
+    }
+
+    private static QuantizedMovementCodec codec(int positionBits, int rotationBits) {
+        return new QuantizedMovementCodec(MIN_X, MIN_Y, MAX_X, MAX_Y, positionBits, MAX_VELOCITY, rotationBits, QuantizedMovementCodec.FULL_TURN);
+    }
+
+    // smallest difference between two angles, wrapping around a full turn
+    private static double angleBetween(float a, float b) {
+        final double turn = QuantizedMovementCodec.FULL_TURN;
+        double difference = (a - (double) b) % turn;
+        if (difference < 0) difference += turn;
+        return Math.min(difference, turn - difference);
+    }
+
+}
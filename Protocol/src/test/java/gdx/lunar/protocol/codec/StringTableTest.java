@@ -0,0 +1,163 @@
+package gdx.lunar.protocol.codec;
+
+import gdx.lunar.protocol.packet.GamePacket;
+import gdx.lunar.protocol.packet.server.S2CPacketCreatePlayer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringTableTest {
+
+    private final StringTable outbound = new StringTable(StringTable.DEFAULT_CAPACITY);
+    private final StringTable inbound = new StringTable(StringTable.DEFAULT_CAPACITY);
+
+    @Test
+    void nullRoundTrips() {
+        final ByteBuf buffer = Unpooled.buffer();
+        outbound.write(buffer, null);
+        assertEquals(1, buffer.readableBytes());
+        assertNull(inbound.read(buffer));
+        assertEquals(0, outbound.size());
+    }
+
+    @Test
+    void definitionThenTokenRoundTrips() {
+        final ByteBuf buffer = Unpooled.buffer();
+        outbound.write(buffer, "player");
+        outbound.write(buffer, "other");
+        final int definitions = buffer.readableBytes();
+        outbound.write(buffer, "player");
+        // only the token is written once defined
+        assertEquals(1, buffer.readableBytes() - definitions);
+
+        final String player = inbound.read(buffer);
+        assertEquals("player", player);
+        assertEquals("other", inbound.read(buffer));
+        // cached, nothing allocated
+        assertSame(player, inbound.read(buffer));
+        assertFalse(buffer.isReadable());
+        assertEquals(2, outbound.size());
+        assertEquals(2, inbound.size());
+    }
+
+    @Test
+    void literalRoundTrips() {
+        final ByteBuf buffer = Unpooled.buffer();
+        StringTable.write(buffer, "player", null);
+        assertEquals("player", StringTable.read(buffer, null));
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    void stringsPastCapacityAreLiterals() {
+        final StringTable outbound = new StringTable(1);
+        final StringTable inbound = new StringTable(1);
+        final ByteBuf buffer = Unpooled.buffer();
+        outbound.write(buffer, "first");
+        outbound.write(buffer, "second");
+        outbound.write(buffer, "second");
+        outbound.write(buffer, "first");
+
+        assertEquals("first", inbound.read(buffer));
+        assertEquals("second", inbound.read(buffer));
+        assertEquals("second", inbound.read(buffer));
+        assertEquals("first", inbound.read(buffer));
+        assertEquals(1, outbound.size());
+        assertEquals(1, inbound.size());
+    }
+
+    @Test
+    void definitionPastCapacityIsCorrupted() {
+        final ByteBuf buffer = Unpooled.buffer();
+        outbound.write(buffer, "first");
+        outbound.write(buffer, "second");
+
+        final StringTable inbound = new StringTable(1);
+        inbound.read(buffer);
+        assertThrows(CorruptedFrameException.class, () -> inbound.read(buffer));
+    }
+
+    @Test
+    void unknownTokenIsCorrupted() {
+        final ByteBuf buffer = Unpooled.buffer();
+        ProtocolFraming.writeVarInt(buffer, 3);
+        assertThrows(CorruptedFrameException.class, () -> inbound.read(buffer));
+    }
+
+    @Test
+    void rollbackForgetsDefinitions() {
+        final ByteBuf kept = Unpooled.buffer();
+        outbound.write(kept, "kept");
+        final int size = outbound.size();
+        outbound.write(Unpooled.buffer(), "discarded");
+        outbound.rollback(size);
+        assertEquals(1, outbound.size());
+
+        final ByteBuf next = Unpooled.buffer();
+        outbound.write(next, "discarded");
+        outbound.write(next, "kept");
+        assertEquals("kept", inbound.read(kept));
+        assertEquals("discarded", inbound.read(next));
+        assertEquals("kept", inbound.read(next));
+        assertThrows(IllegalArgumentException.class, () -> outbound.rollback(3));
+    }
+
+    @Test
+    void definitionsOfDiscardedFramesAreRolledBack() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new ProtocolPacketEncoder());
+        channel.attr(StringTable.OUTBOUND).set(outbound);
+        try {
+            assertThrows(IllegalStateException.class, () -> channel.writeOutbound(new FailingPacket("player")));
+            assertEquals(0, outbound.size());
+            // nothing of the discarded frame is written
+            final ByteBuf discarded = channel.readOutbound();
+            assertFalse(discarded.isReadable());
+            discarded.release();
+
+            // the definition is written again, since the client never saw the first one
+            channel.writeOutbound(new S2CPacketCreatePlayer("player", 1, 0.0f, 0.0f));
+            final ByteBuf frame = channel.readOutbound();
+            try {
+                frame.skipBytes(8);
+                assertEquals("player", inbound.read(frame));
+            } finally {
+                frame.release();
+            }
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Writes a string, then fails
+     */
+    private static final class FailingPacket extends GamePacket {
+        private final String value;
+
+        private FailingPacket(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean usesStringTable() {
+            return true;
+        }
+
+        @Override
+        public int getId() {
+            return 0;
+        }
+
+        @Override
+        public void encode(ByteBuf out, ProtocolFraming framing, StringTable strings) {
+            writeId(out);
+            writeString(out, value, strings);
+            throw new IllegalStateException("Failed");
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package gdx.lunar.protocol.packet;
+
+import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.protocol.packet.client.C2SPacketDisconnected;
+import gdx.lunar.protocol.packet.client.C2SPacketJoinWorld;
+import gdx.lunar.protocol.packet.client.C2SPacketWorldLoaded;
+import gdx.lunar.protocol.packet.server.S2CPacketDisconnected;
+import gdx.lunar.protocol.packet.server.S2CPacketWorldInvalid;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedCodecTest {
+
+    private final ByteBuf buffer = Unpooled.buffer();
+
+    @AfterEach
+    void release() {
+        buffer.release();
+    }
+
+    @Test
+    void generatedPacketsAreRegistered() {
+        final GdxProtocol protocol = new GdxProtocol(2, "test", true);
+        assertTrue(protocol.isServerPacket(S2CPacketDisconnected.PACKET_ID));
+        assertTrue(protocol.isServerPacket(S2CPacketWorldInvalid.PACKET_ID));
+        assertTrue(protocol.isClientPacket(C2SPacketJoinWorld.PACKET_ID));
+        assertTrue(protocol.isClientPacket(C2SPacketWorldLoaded.PACKET_ID));
+        assertNotNull(protocol.getClientDispatchTable().get(C2SPacketDisconnected.PACKET_ID));
+    }
+
+    @Test
+    void joinWorldRoundTrips() {
+        final C2SPacketJoinWorld packet = new C2SPacketJoinWorld("Wörld", "player", 1234L);
+        final C2SPacketJoinWorld read = new C2SPacketJoinWorld(encode(packet, C2SPacketJoinWorld.PACKET_ID));
+
+        assertEquals("Wörld", read.getWorldName());
+        assertEquals("player", read.getUsername());
+        assertEquals(1234L, read.getClientTime());
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    void disconnectedRoundTrips() {
+        final C2SPacketDisconnected client = new C2SPacketDisconnected((String) null);
+        final C2SPacketDisconnected clientRead = new C2SPacketDisconnected(encode(client, C2SPacketDisconnected.PACKET_ID));
+        assertEquals("", clientRead.getGivenReason());
+
+        buffer.clear();
+        final S2CPacketDisconnected server = new S2CPacketDisconnected("Kicked");
+        final S2CPacketDisconnected serverRead = new S2CPacketDisconnected(encode(server, S2CPacketDisconnected.PACKET_ID));
+        assertEquals("Kicked", serverRead.getDisconnectReason());
+    }
+
+    @Test
+    void worldInvalidRoundTrips() {
+        final S2CPacketWorldInvalid packet = new S2CPacketWorldInvalid(null, "World is full.");
+        final S2CPacketWorldInvalid read = new S2CPacketWorldInvalid(encode(packet, S2CPacketWorldInvalid.PACKET_ID));
+
+        assertEquals("", read.getWorldName());
+        assertEquals("World is full.", read.getReason());
+    }
+
+    @Test
+    void generatedLayoutMatchesHandWrittenStrings() {
+        encode(new S2CPacketDisconnected("é"), S2CPacketDisconnected.PACKET_ID);
+        // length prefixed UTF-8, as GamePacket#writeString writes it
+        assertEquals(2, buffer.readInt());
+        assertEquals("é", buffer.readCharSequence(2, StandardCharsets.UTF_8).toString());
+    }
+
+    @Test
+    void emptyPacketIsOnlyItsId() {
+        encode(new C2SPacketWorldLoaded(), C2SPacketWorldLoaded.PACKET_ID);
+        assertFalse(buffer.isReadable());
+    }
+
+    // encode the packet, check its size and ID, and leave the buffer positioned after the ID
+    private ByteBuf encode(Packet packet, int id) {
+        packet.encode(buffer);
+        assertEquals(packet.getEncodedSize(), buffer.readableBytes());
+        assertEquals(id, buffer.readInt());
+        return buffer;
+    }
+
+}
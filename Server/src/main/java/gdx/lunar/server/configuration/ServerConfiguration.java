@@ -5,9 +5,14 @@ package gdx.lunar.server.configuration;
  */
 public abstract class ServerConfiguration {
 
-    // Max amount of worlds allowed per thread.
+    // Max amount of worlds allowed per thread, 0 for no limit.
     //  Max amount of players in general.
     public int maxWorldsPerThread, maxPlayers = 2000;
+    // threads worlds are ticked on in parallel, more are started if required by maxWorldsPerThread.
+    // 0 to tick every world on the server tick thread.
+    public int worldTickThreads = Runtime.getRuntime().availableProcessors();
+    // tick each world on a Netty event loop instead, players joining a world are moved to the same loop.
+    public boolean pinWorldsToEventLoops = false;
 
     //Max worlds allowed in general.
     // Max lobbies allowed in general.
@@ -15,21 +20,59 @@ public abstract class ServerConfiguration {
 
     public long ticksPerSecond = 20;
 
-    // Default amount of time to sleep after each tick
-    // only if the server is not behind.
+    // Max amount of time in milliseconds slept at once while waiting for the next tick,
+    // the last tickSpinTimeNanos of each wait are spun instead for precise timing. 0 to only spin.
     public long tickSleepTime = 25;
+    public long tickSpinTimeNanos = 1_000_000;
+    // max ticks run back to back when behind,
+    // if the server falls further behind than maxTickLagMs the missed ticks are dropped instead.
+    public int maxCatchUpTicks = 5;
+    public long maxTickLagMs = 250;
     // allow players to join worlds before setting their username.
     public boolean allowJoinWorldBeforeSetUsername = false;
     public boolean allowChangeUsername = false;
 
+    // frames at or above this length are compressed for clients that accept it, -1 to disable.
+    public int compressionThreshold = 256;
+    // max strings cached per connection for clients that accept a string table, 0 to disable.
+    public int stringTableCapacity = 1024;
+
+    // write buffer watermarks of each connection, above the high mark a connection is not writable until below the low mark.
+    public int writeBufferLowWaterMark = 32 * 1024, writeBufferHighWaterMark = 64 * 1024;
+    // disconnect connections that stay above the high watermark this long, 0 to never disconnect.
+    public long maxUnwritableMs = 5000;
+    // stop reading from a connection once this many of its frames are waiting for its world, until half are handled.
+    // 0 for no limit.
+    public int maxQueuedFramesPerConnection = 256;
+
     public void setTickSleepTime(long tickSleepTime) {
         this.tickSleepTime = tickSleepTime;
     }
 
+    public void setTickSpinTimeNanos(long tickSpinTimeNanos) {
+        this.tickSpinTimeNanos = tickSpinTimeNanos;
+    }
+
+    public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    public void setMaxTickLagMs(long maxTickLagMs) {
+        this.maxTickLagMs = maxTickLagMs;
+    }
+
     public void setMaxWorldsPerThread(int maxWorldsPerThread) {
         this.maxWorldsPerThread = maxWorldsPerThread;
     }
 
+    public void setWorldTickThreads(int worldTickThreads) {
+        this.worldTickThreads = worldTickThreads;
+    }
+
+    public void setPinWorldsToEventLoops(boolean pinWorldsToEventLoops) {
+        this.pinWorldsToEventLoops = pinWorldsToEventLoops;
+    }
+
     public void setMaxPlayers(int maxPlayers) {
         this.maxPlayers = maxPlayers;
     }
@@ -54,5 +97,27 @@ public abstract class ServerConfiguration {
         this.allowChangeUsername = allowChangeUsername;
     }
 
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public void setStringTableCapacity(int stringTableCapacity) {
+        this.stringTableCapacity = stringTableCapacity;
+    }
+
+    public void setWriteBufferWaterMark(int low, int high) {
+        if (low < 0 || high < low) throw new IllegalArgumentException("Invalid watermarks, low: " + low + " high: " + high);
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+    }
+
+    public void setMaxUnwritableMs(long maxUnwritableMs) {
+        this.maxUnwritableMs = maxUnwritableMs;
+    }
+
+    public void setMaxQueuedFramesPerConnection(int maxQueuedFramesPerConnection) {
+        this.maxQueuedFramesPerConnection = maxQueuedFramesPerConnection;
+    }
+
 
 }
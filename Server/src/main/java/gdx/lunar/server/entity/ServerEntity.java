@@ -3,7 +3,9 @@ package gdx.lunar.server.entity;
 import com.badlogic.gdx.math.Vector2;
 import gdx.lunar.server.game.LunarServer;
 import gdx.lunar.server.game.utilities.Disposable;
+import gdx.lunar.server.world.EntityStateStore;
 import gdx.lunar.server.world.World;
+import lunar.shared.utility.EntityFacingDirection;
 
 /**
  * Represents a server entity
@@ -116,4 +118,37 @@ public interface ServerEntity extends Disposable {
      */
     float getRotation();
 
+    /**
+     * Set the facing direction of this entity
+     *
+     * @param direction the direction
+     */
+    void setFacingDirection(EntityFacingDirection direction);
+
+    /**
+     * @return the facing direction of this entity, or {@code null} if none
+     */
+    EntityFacingDirection getFacingDirection();
+
+    /**
+     * @return the state version of this entity, increased each time its position, velocity or rotation changes by more than the change epsilon
+     */
+    int getStateVersion();
+
+    /**
+     * Set how much position, velocity or rotation must change before the state version of this entity is increased
+     *
+     * @param epsilon the epsilon, {@code 0} to count any change
+     */
+    void setChangeEpsilon(float epsilon);
+
+    /**
+     * Keep the position, velocity and rotation of this entity within the store of its world, called by the world.
+     * The current state is moved into the store, after that setters must write to the store and getters read from it.
+     *
+     * @param store the store, or {@code null} to move the state back into this entity
+     * @param slot  the slot of this entity within the store
+     */
+    void setStateStore(EntityStateStore store, int slot);
+
 }
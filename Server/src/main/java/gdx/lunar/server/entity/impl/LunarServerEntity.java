@@ -3,7 +3,9 @@ package gdx.lunar.server.entity.impl;
 import com.badlogic.gdx.math.Vector2;
 import gdx.lunar.server.entity.ServerEntity;
 import gdx.lunar.server.game.LunarServer;
+import gdx.lunar.server.world.EntityStateStore;
 import gdx.lunar.server.world.World;
+import lunar.shared.utility.EntityFacingDirection;
 
 /**
  * Base implementation of a server entity
@@ -19,6 +21,17 @@ public class LunarServerEntity implements ServerEntity {
 
     protected Vector2 position, velocity;
     protected float rotation;
+    // the store of the world this entity is in, state is kept there instead of above while set
+    protected EntityStateStore store;
+    protected int slot;
+    protected EntityFacingDirection direction;
+
+    // increased each time the state changes by more than the epsilon,
+    // changes are measured from the state when it was last increased so slow drift is not lost.
+    protected int stateVersion;
+    protected float changeEpsilon;
+    protected final Vector2 versionPosition = new Vector2(), versionVelocity = new Vector2();
+    protected float versionRotation;
 
     public LunarServerEntity(LunarServer server) {
         this.server = server;
@@ -74,42 +87,104 @@ public class LunarServerEntity implements ServerEntity {
 
     @Override
     public void setPosition(float x, float y) {
-        this.position.set(x, y);
+        if (store != null) {
+            store.setPosition(slot, x, y);
+        } else {
+            this.position.set(x, y);
+        }
+        if (changed(versionPosition.x, x) || changed(versionPosition.y, y)) {
+            versionPosition.set(x, y);
+            stateVersion++;
+        }
     }
 
     @Override
     public void setPosition(Vector2 position) {
-        this.position.set(position);
+        setPosition(position.x, position.y);
     }
 
     @Override
     public Vector2 getPosition() {
-        return position;
+        // a copy when stored by the world
+        return store == null ? position : position.set(store.getX(slot), store.getY(slot));
     }
 
     @Override
     public void setVelocity(float x, float y) {
-        this.velocity.set(x, y);
+        if (store != null) {
+            store.setVelocity(slot, x, y);
+        } else {
+            this.velocity.set(x, y);
+        }
+        if (changed(versionVelocity.x, x) || changed(versionVelocity.y, y)) {
+            versionVelocity.set(x, y);
+            stateVersion++;
+        }
     }
 
     @Override
     public void setVelocity(Vector2 velocity) {
-        this.velocity.set(velocity);
+        setVelocity(velocity.x, velocity.y);
     }
 
     @Override
     public Vector2 getVelocity() {
-        return velocity;
+        return store == null ? velocity : velocity.set(store.getVelocityX(slot), store.getVelocityY(slot));
     }
 
     @Override
     public void setRotation(float rotation) {
-        this.rotation = rotation;
+        if (store != null) {
+            store.setRotation(slot, rotation);
+        } else {
+            this.rotation = rotation;
+        }
+        if (changed(versionRotation, rotation)) {
+            versionRotation = rotation;
+            stateVersion++;
+        }
     }
 
     @Override
     public float getRotation() {
-        return rotation;
+        return store == null ? rotation : store.getRotation(slot);
+    }
+
+    @Override
+    public void setFacingDirection(EntityFacingDirection direction) {
+        this.direction = direction;
+    }
+
+    @Override
+    public EntityFacingDirection getFacingDirection() {
+        return direction;
+    }
+
+    @Override
+    public int getStateVersion() {
+        return stateVersion;
+    }
+
+    @Override
+    public void setChangeEpsilon(float epsilon) {
+        this.changeEpsilon = epsilon;
+    }
+
+    @Override
+    public void setStateStore(EntityStateStore store, int slot) {
+        if (this.store != null) {
+            getPosition();
+            getVelocity();
+            rotation = this.store.getRotation(this.slot);
+        }
+
+        this.store = store;
+        this.slot = slot;
+        if (store != null) store.set(slot, position.x, position.y, velocity.x, velocity.y, rotation);
+    }
+
+    private boolean changed(float previous, float current) {
+        return Math.abs(current - previous) > changeEpsilon;
     }
 
     @Override
@@ -118,5 +193,6 @@ public class LunarServerEntity implements ServerEntity {
         inWorld = false;
         entityId = -1;
         name = null;
+        store = null;
     }
 }
@@ -1,5 +1,6 @@
 package gdx.lunar.server.game;
 
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.protocol.GdxProtocol;
 import gdx.lunar.server.configuration.DefaultServerConfiguration;
 import gdx.lunar.server.entity.ServerPlayerEntity;
@@ -24,7 +25,9 @@ public class GameServer extends LunarServer {
 
     @Override
     public boolean authenticatePlayer(String version, int protocolVersion) {
-        return !isFull() && version.equalsIgnoreCase(gameVersion) && protocolVersion == protocol.getProtocolVersion();
+        // older protocol versions are still spoken, newer ones are not.
+        return !isFull() && version.equalsIgnoreCase(gameVersion)
+                && protocolVersion >= ProtocolFraming.V1.getVersion() && protocolVersion <= protocol.getProtocolVersion();
     }
 
     @Override
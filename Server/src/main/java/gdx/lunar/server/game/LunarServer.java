@@ -7,12 +7,14 @@ import gdx.lunar.server.entity.ServerPlayerEntity;
 import gdx.lunar.server.game.utilities.Disposable;
 import gdx.lunar.server.network.connection.ServerAbstractConnection;
 import gdx.lunar.server.world.AbstractWorldManager;
+import gdx.lunar.server.world.WorldTickScheduler;
 import gdx.lunar.server.world.impl.WorldManager;
 
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Represents a model for a basic, single, game server.
@@ -26,8 +28,15 @@ public abstract class LunarServer implements Disposable {
     protected final List<ServerAbstractConnection> connections = new CopyOnWriteArrayList<>();
     // the last time it took to tick all worlds.
     protected long worldTickTime;
+    // how late the last tick started compared to its schedule, in nanoseconds
+    protected volatile long tickJitterNanos;
+    // amount of ticks dropped because the server fell too far behind
+    protected volatile long ticksDropped;
     protected final AtomicBoolean running = new AtomicBoolean(true);
+    // async tasks, ticking is done by the tick thread
     protected final ScheduledExecutorService service;
+    protected Thread tickThread;
+    protected volatile boolean stopped;
 
     protected final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
 
@@ -50,6 +59,7 @@ public abstract class LunarServer implements Disposable {
 
     /**
      * Attempt to authenticate a new player into the server
+     * The connection will use the players protocol version if accepted, so it should not be newer than this servers.
      *
      * @param version         the players game version
      * @param protocolVersion the player protocol version
@@ -113,6 +123,20 @@ public abstract class LunarServer implements Disposable {
         return worldTickTime;
     }
 
+    /**
+     * @return how late the last tick started compared to its schedule, in nanoseconds
+     */
+    public long getTickJitterNanos() {
+        return tickJitterNanos;
+    }
+
+    /**
+     * @return amount of ticks dropped because the server fell further behind than {@code maxTickLagMs}
+     */
+    public long getTicksDropped() {
+        return ticksDropped;
+    }
+
     /**
      * Set player joined
      * TODO: Possibly remove
@@ -190,16 +214,78 @@ public abstract class LunarServer implements Disposable {
 
     /**
      * Start this server.
+     * Ticks run on a dedicated platform thread at {@code ticksPerSecond}.
      */
     public void start() {
         worldTickTime = 0;
+        stopped = false;
+
+        final ServerConfiguration configuration = getConfiguration();
+        if (configuration.worldTickThreads > 0 && worldManager.getScheduler() == null) {
+            worldManager.setScheduler(new WorldTickScheduler(configuration.worldTickThreads, configuration.maxWorldsPerThread));
+        }
 
-        service.scheduleAtFixedRate(this::tick, 0L, (1000 / getConfiguration().ticksPerSecond), TimeUnit.MILLISECONDS);
+        tickThread = Thread.ofPlatform().name("lunar-server-tick").unstarted(this::runTickLoop);
+        tickThread.setPriority(Thread.MAX_PRIORITY);
+        tickThread.start();
+    }
+
+    /**
+     * Run ticks until stopped.
+     * Each tick is scheduled a fixed period after the previous one instead of after it finished, so time spent ticking does not drift the schedule.
+     * When behind, at most {@code maxCatchUpTicks} run back to back, once further behind than {@code maxTickLagMs} the missed ticks are dropped.
+     */
+    protected void runTickLoop() {
+        final ServerConfiguration configuration = getConfiguration();
+        final long period = TimeUnit.SECONDS.toNanos(1) / configuration.ticksPerSecond;
+
+        long next = System.nanoTime();
+        long previous = next;
+        while (!stopped) {
+            waitUntil(next, configuration);
+            if (stopped) break;
+
+            int ticks = 0;
+            do {
+                final long now = System.nanoTime();
+                tickJitterNanos = now - next;
+                tick((now - previous) / (float) TimeUnit.SECONDS.toNanos(1));
+                previous = now;
+                next += period;
+            } while (++ticks < configuration.maxCatchUpTicks && System.nanoTime() >= next);
+
+            final long lag = System.nanoTime() - next;
+            if (lag > TimeUnit.MILLISECONDS.toNanos(configuration.maxTickLagMs)) {
+                final long dropped = lag / period + 1;
+                ticksDropped += dropped;
+                next += dropped * period;
+                Gdx.app.log("LunarServer", "WARNING: Running %d ms behind! Skipping %d ticks".formatted(TimeUnit.NANOSECONDS.toMillis(lag), dropped));
+            }
+        }
+    }
+
+    /**
+     * Sleep in slices of at most {@code tickSleepTime} until shortly before the deadline, then spin the rest
+     *
+     * @param deadline      the {@link System#nanoTime()} to wait for
+     * @param configuration the configuration
+     */
+    private void waitUntil(long deadline, ServerConfiguration configuration) {
+        final long maxSleep = TimeUnit.MILLISECONDS.toNanos(configuration.tickSleepTime);
+        long remaining;
+        while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+            final long sleep = Math.min(remaining - configuration.tickSpinTimeNanos, maxSleep);
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
     }
 
     /**
      * Suspend (pause) this server
-     * TODO: ExecutorService thread is still running, perhaps in the future stop that too.
+     * The tick thread keeps running but does not tick any worlds until resumed.
      */
     public void suspend() {
         running.set(false);
@@ -213,34 +299,25 @@ public abstract class LunarServer implements Disposable {
     }
 
     /**
-     * Tick this server.
+     * Tick this server once with the delta of a single scheduled tick.
      */
     public void tick() {
+        tick(1.0f / getConfiguration().ticksPerSecond);
+    }
+
+    /**
+     * Tick this server.
+     *
+     * @param delta the time since the last tick in seconds
+     */
+    public void tick(float delta) {
         if (!running.get()) {
             return;
         }
 
         try {
-            tickAllWorlds();
+            tickAllWorlds(delta);
             runAllTasks();
-
-            // cap max ticks to skip to 50.
-            final long time = worldTickTime / 50;
-            // amount of ticks to skip if falling behind.
-            long ticksToSkip = time >= 50 ? 50 : time;
-
-            if (ticksToSkip > 1) {
-                Gdx.app.log("LunarServer", "WARNING: Running %d ms behind! Skipping %d ticks".formatted(worldTickTime, ticksToSkip));
-            }
-
-            if (ticksToSkip != 0) {
-                while (ticksToSkip > 0) {
-                    ticksToSkip--;
-                    tickAllWorlds();
-                }
-                worldTickTime = System.currentTimeMillis();
-            }
-
         } catch (Exception exception) {
             Gdx.app.log("LunarServer", "Exception caught during tick phase", exception);
             running.compareAndSet(true, false);
@@ -252,6 +329,8 @@ public abstract class LunarServer implements Disposable {
      */
     public void stop() {
         running.compareAndSet(true, false);
+        stopped = true;
+        if (tickThread != null) LockSupport.unpark(tickThread);
 
         service.shutdownNow();
         this.dispose();
@@ -259,10 +338,12 @@ public abstract class LunarServer implements Disposable {
 
     /**
      * Update all worlds within the server.
+     *
+     * @param delta the time since the last tick in seconds
      */
-    protected void tickAllWorlds() {
+    protected void tickAllWorlds(float delta) {
         final long now = System.currentTimeMillis();
-        worldManager.update(worldTickTime);
+        worldManager.update(delta);
         worldTickTime = System.currentTimeMillis() - now;
     }
 
@@ -282,6 +363,7 @@ public abstract class LunarServer implements Disposable {
     @Override
     public void dispose() {
         running.set(false);
+        stopped = true;
         allPlayers.clear();
         connections.clear();
         tasks.clear();
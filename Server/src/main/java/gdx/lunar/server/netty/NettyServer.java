@@ -2,18 +2,22 @@ package gdx.lunar.server.netty;
 
 import gdx.lunar.protocol.GdxProtocol;
 import gdx.lunar.protocol.channel.ServerChannels;
+import gdx.lunar.protocol.codec.FrameCompressor;
 import gdx.lunar.protocol.codec.ProtocolPacketEncoder;
+import gdx.lunar.server.configuration.ServerConfiguration;
 import gdx.lunar.server.game.LunarServer;
 import gdx.lunar.server.netty.codec.ClientProtocolPacketDecoder;
 import gdx.lunar.server.network.connection.ServerAbstractConnection;
 import gdx.lunar.server.network.connection.ServerPlayerConnection;
 import gdx.lunar.server.network.connection.provider.ConnectionProvider;
+import gdx.lunar.server.world.AbstractWorldManager;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
@@ -26,6 +30,7 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import java.security.Security;
 import java.util.LinkedList;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -171,21 +176,40 @@ public class NettyServer {
         final LengthFieldBasedFrameDecoder decoder = this.decoderSupplier == null ? new ClientProtocolPacketDecoder(connection, protocol)
                 : decoderSupplier.get();
 
+        final ServerConfiguration configuration = server.getConfiguration();
+        // slow clients stop being writable past the high mark instead of growing their outbound buffer without bound
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(configuration.writeBufferLowWaterMark, configuration.writeBufferHighWaterMark));
+
         channel.pipeline().addLast(sslContext.newHandler(channel.alloc()));
         channel.pipeline().addLast(decoder);
         for (ByteToMessageDecoder byteToMessageDecoder : this.decoders) {
             channel.pipeline().addLast(byteToMessageDecoder);
         }
+        // compresses frames after they are encoded, disabled until negotiated
+        channel.pipeline().addLast(FrameCompressor.NAME, new FrameCompressor());
         channel.pipeline().addLast(encoder);
         channel.pipeline().addLast(connection);
     }
 
     /**
-     * Bind
+     * @return the group connections are read and written on
+     */
+    public EventLoopGroup getChildGroup() {
+        return child;
+    }
+
+    /**
+     * Bind.
+     * If {@code pinWorldsToEventLoops} is enabled worlds are pinned to the child group first.
      *
      * @return the result.
      */
     public CompletableFuture<ChannelFuture> bind() {
+        final AbstractWorldManager worldManager = server.getWorldManager();
+        if (server.getConfiguration().pinWorldsToEventLoops && worldManager != null && !worldManager.isPinnedToEventLoops()) {
+            worldManager.pinToEventLoops(child, TimeUnit.SECONDS.toNanos(1) / server.getConfiguration().ticksPerSecond);
+        }
+
         final CompletableFuture<ChannelFuture> result = new CompletableFuture<>();
         CompletableFuture.runAsync(() -> {
             try {
@@ -1,13 +1,16 @@
 package gdx.lunar.server.netty.codec;
 
 import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.server.network.connection.ServerAbstractConnection;
+import gdx.lunar.server.world.World;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 
 /**
  * Handles decoding packets sent from clients
+ * Once a connection is within a world, frames are queued to that world instead of being handled on the event loop.
  */
 public class ClientProtocolPacketDecoder extends LengthFieldBasedFrameDecoder {
 
@@ -18,7 +21,7 @@ public class ClientProtocolPacketDecoder extends LengthFieldBasedFrameDecoder {
     private final GdxProtocol protocol;
 
     public ClientProtocolPacketDecoder(ServerAbstractConnection handler, GdxProtocol protocol) {
-        super(protocol.getMaxPacketFrameLength(), 0, 4);
+        super(protocol.getMaxPacketFrameLength(), 0, 4, 0, 4);
         this.handler = handler;
         this.protocol = protocol;
     }
@@ -27,17 +30,26 @@ public class ClientProtocolPacketDecoder extends LengthFieldBasedFrameDecoder {
     protected Object decode(ChannelHandlerContext ctx, ByteBuf in) {
         ByteBuf buf = null;
         try {
-            buf = (ByteBuf) super.decode(ctx, in);
+            final ProtocolFraming framing = ProtocolFraming.inbound(ctx.channel());
+            // the length is stripped either way
+            buf = framing == ProtocolFraming.V1
+                    ? (ByteBuf) super.decode(ctx, in)
+                    : ProtocolFraming.readVarIntFrame(in, protocol.getMaxPacketFrameLength());
             if (buf != null) {
-                // ignore the length of the packet.
-                buf.readInt();
                 // retrieve packet from PID
-                final int pid = buf.readInt();
-                if (protocol.isCustomPacket(pid)) {
-                    protocol.handleCustomPacket(pid, buf, ctx);
-                } else if (protocol.isClientPacket(pid)) {
+                final int pid = framing.readId(buf);
+                final World world = handler.getInboundWorld();
+                if (world != null && world.canHandleInline()) {
+                    // this loop owns the world, nothing to hand over
+                    if (protocol.handleClientPacket(pid, buf, handler, ctx)) handler.setLastPacketReceived(System.currentTimeMillis());
+                } else if (world != null) {
+                    // the world handles this frame at the start of its next tick
+                    if (protocol.getClientDispatchTable().get(pid) != null) handler.setLastPacketReceived(System.currentTimeMillis());
+                    world.execute(QueuedClientFrame.newInstance(protocol, handler, ctx, pid, buf));
+                    buf = null;
+                } else if (protocol.handleClientPacket(pid, buf, handler, ctx)) {
+                    // custom and client packets are resolved in one lookup
                     handler.setLastPacketReceived(System.currentTimeMillis());
-                    protocol.handleClientPacket(pid, buf, handler, ctx);
                 }
             }
         } catch (Exception any) {
@@ -0,0 +1,86 @@
+package gdx.lunar.server.netty.codec;
+
+import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.server.network.connection.ServerAbstractConnection;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Recycler;
+
+/**
+ * A decoded frame waiting to be handled by the world its connection is in.
+ * Instances are pooled, and the frame is released once handled or discarded.
+ * The connection is counted as having one more frame queued until then, see {@link ServerAbstractConnection#frameQueued()}.
+ */
+public final class QueuedClientFrame implements Runnable {
+
+    private static final Recycler<QueuedClientFrame> RECYCLER = new Recycler<>() {
+        @Override
+        protected QueuedClientFrame newObject(Handle<QueuedClientFrame> handle) {
+            return new QueuedClientFrame(handle);
+        }
+    };
+
+    private final Recycler.Handle<QueuedClientFrame> handle;
+
+    private GdxProtocol protocol;
+    private ServerAbstractConnection connection;
+    private ChannelHandlerContext context;
+    private int pid;
+    private ByteBuf frame;
+
+    private QueuedClientFrame(Recycler.Handle<QueuedClientFrame> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Get a pooled instance
+     *
+     * @param protocol   the protocol
+     * @param connection the connection the frame was received from
+     * @param context    the decoder context
+     * @param pid        the packet ID
+     * @param frame      the frame, positioned after the packet ID. Ownership is transferred.
+     * @return the queued frame
+     */
+    public static QueuedClientFrame newInstance(GdxProtocol protocol, ServerAbstractConnection connection,
+                                                ChannelHandlerContext context, int pid, ByteBuf frame) {
+        final QueuedClientFrame queued = RECYCLER.get();
+        queued.protocol = protocol;
+        queued.connection = connection;
+        queued.context = context;
+        queued.pid = pid;
+        queued.frame = frame;
+        connection.frameQueued();
+        return queued;
+    }
+
+    /**
+     * Handle the frame
+     */
+    @Override
+    public void run() {
+        try {
+            protocol.handleClientPacket(pid, frame, connection, context);
+        } finally {
+            recycle();
+        }
+    }
+
+    /**
+     * Discard the frame without handling it
+     */
+    public void discard() {
+        recycle();
+    }
+
+    private void recycle() {
+        frame.release();
+        connection.queuedFrameHandled();
+        frame = null;
+        protocol = null;
+        connection = null;
+        context = null;
+        handle.recycle(this);
+    }
+
+}
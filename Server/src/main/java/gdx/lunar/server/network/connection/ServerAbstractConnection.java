@@ -1,27 +1,75 @@
 package gdx.lunar.server.network.connection;
 
 import gdx.lunar.protocol.PacketFactory;
+import gdx.lunar.protocol.codec.FrameCompressor;
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.protocol.handlers.ClientPacketHandler;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
 import gdx.lunar.protocol.packet.Packet;
+import gdx.lunar.protocol.snapshot.WorldStateHistory;
 import gdx.lunar.server.game.LunarServer;
+import gdx.lunar.server.world.World;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * Represents a basic connection.
+ * <p>
+ * Packets are written according to their {@link BackpressurePolicy} once this connection is above its high write buffer watermark,
+ * stale state is dropped or superseded while reliable packets are still written.
+ * A connection that stays unwritable longer than {@code maxUnwritableMs} is disconnected.
+ * <p>
+ * Reading is paused once more than {@code maxQueuedFramesPerConnection} frames are waiting for the world of this connection,
+ * and resumed once half of them are handled.
  */
 public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdapter implements ClientPacketHandler {
 
     protected final Channel channel;
     protected boolean isConnected;
-    private long lastPacketReceived;
+    // written by the event loop, read by the world when checking timeouts
+    private volatile long lastPacketReceived;
+    // the world packets from this connection are handled by, or null to handle them on the event loop
+    protected volatile World inboundWorld;
+    // deregistered while being moved to another event loop
+    private volatile boolean moving;
+    // the event loop this connection was last moved to, a move in progress continues to it once registered
+    private volatile EventLoop moveTarget;
     protected LunarServer server;
 
+    // world states sent to this connection, baselines for delta snapshots
+    protected final WorldStateHistory snapshotHistory = new WorldStateHistory();
+    // the latest world snapshot tick the client acknowledged
+    protected long acknowledgedSnapshotTick = -1;
+    // the codec of the world this connection is in
+    protected MovementCodec movementCodec = MovementCodec.RAW;
+
+    // packets and frames held while not writable, by their supersede key
+    private final Map<Long, Object> held = new ConcurrentHashMap<>();
+    // amount of packets dropped or superseded while not writable
+    private final AtomicLong dropped = new AtomicLong();
+    // when this connection stopped being writable, 0 if writable
+    private volatile long unwritableSince;
+
+    // frames waiting to be handled by the inbound world
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    // if reading was paused because too many frames are queued
+    private final AtomicBoolean readPaused = new AtomicBoolean();
+
     public ServerAbstractConnection(Channel channel, LunarServer server) {
         this.channel = channel;
         this.server = server;
@@ -45,10 +93,204 @@ public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdap
         this.lastPacketReceived = lastPacketReceived;
     }
 
+    /**
+     * @return world states sent to this connection
+     */
+    public WorldStateHistory getSnapshotHistory() {
+        return snapshotHistory;
+    }
+
+    /**
+     * @return the latest world snapshot tick the client acknowledged, or {@code -1} if none
+     */
+    public long getAcknowledgedSnapshotTick() {
+        return acknowledgedSnapshotTick;
+    }
+
+    /**
+     * Acknowledge a world snapshot, older acknowledgements are ignored.
+     *
+     * @param tick the tick
+     */
+    public void acknowledgeSnapshot(long tick) {
+        if (tick > acknowledgedSnapshotTick) acknowledgedSnapshotTick = tick;
+    }
+
+    /**
+     * Forget all world states sent, the next snapshot will be complete.
+     */
+    public void resetSnapshots() {
+        snapshotHistory.clear();
+        acknowledgedSnapshotTick = -1;
+    }
+
+    @Override
+    public MovementCodec getMovementCodec() {
+        return movementCodec;
+    }
+
+    /**
+     * Set the codec movement packets are read with, this should match what the client was sent when joining a world.
+     *
+     * @param movementCodec the codec
+     */
+    public void setMovementCodec(MovementCodec movementCodec) {
+        this.movementCodec = movementCodec;
+    }
+
+    /**
+     * @return the framing of frames written to this connection
+     */
+    public ProtocolFraming getFraming() {
+        return ProtocolFraming.outbound(channel);
+    }
+
+    /**
+     * @return the compressor of this connection, also providing raw vs compressed byte counts, or {@code null} if none.
+     */
+    public FrameCompressor getCompressor() {
+        return channel.pipeline().get(FrameCompressor.class);
+    }
+
+    /**
+     * @return the world handling packets from this connection, or {@code null} if handled on the event loop
+     */
+    public World getInboundWorld() {
+        return inboundWorld;
+    }
+
+    /**
+     * Set the world packets from this connection are handled by.
+     * Packets received after this call are handled in order at the start of that worlds next tick.
+     *
+     * @param inboundWorld the world or {@code null}
+     */
+    public void setInboundWorld(World inboundWorld) {
+        this.inboundWorld = inboundWorld;
+    }
+
+    /**
+     * @return amount of frames from this connection waiting to be handled by its world
+     */
+    public int getQueuedFrames() {
+        return queuedFrames.get();
+    }
+
+    /**
+     * Invoked on the event loop once a frame was queued to the inbound world, reading is paused if too many are waiting.
+     */
+    public void frameQueued() {
+        final int max = server.getConfiguration().maxQueuedFramesPerConnection;
+        if (queuedFrames.incrementAndGet() > max && max > 0 && readPaused.compareAndSet(false, true)) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * Invoked once a queued frame was handled or discarded, from any thread. Reading is resumed once half of the limit is waiting.
+     */
+    public void queuedFrameHandled() {
+        final int remaining = queuedFrames.decrementAndGet();
+        if (remaining <= server.getConfiguration().maxQueuedFramesPerConnection / 2 && readPaused.compareAndSet(true, false)) {
+            // safe from any thread, the read is scheduled on the event loop
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * @return the max length of a frame, including its header, the client accepts
+     */
+    public int getMaxFrameLength() {
+        return server.getProtocol().getMaxPacketFrameLength();
+    }
+
     public ByteBufAllocator alloc() {
         return channel.alloc();
     }
 
+    /**
+     * @return the event loop this connection is written and flushed on
+     */
+    public EventLoop eventLoop() {
+        return channel.eventLoop();
+    }
+
+    /**
+     * Move this connection to another event loop of the same group, used to pin a connection to the loop its world is ticked on.
+     * Nothing is read until the channel is registered to the new loop, frames already read are handled first.
+     * If called again while a move is in progress the connection is moved on once registered, the last loop provided wins.
+     *
+     * @param loop the event loop
+     */
+    public void moveTo(EventLoop loop) {
+        if (loop == null || !channel.isOpen()) return;
+        moveTarget = loop;
+        if (!channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(() -> moveTo(loop));
+            return;
+        }
+        if (moving || channel.eventLoop() == loop) return;
+
+        moving = true;
+        channel.deregister().addListener(deregistered -> {
+            if (!deregistered.isSuccess()) {
+                moving = false;
+                connectionClosed(deregistered.cause());
+                return;
+            }
+
+            loop.register(channel).addListener(registered -> {
+                moving = false;
+                if (!registered.isSuccess()) {
+                    // not registered to any loop, nothing else can close it
+                    channel.unsafe().closeForcibly();
+                    connectionClosed(registered.cause());
+                    return;
+                }
+
+                final EventLoop target = moveTarget;
+                if (target != loop) moveTo(target);
+            });
+        });
+    }
+
+    /**
+     * @return bytes written to this connection that are not yet written to the socket
+     */
+    public long getPendingBytes() {
+        final ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    /**
+     * @return amount of packets held until this connection is writable
+     */
+    public int getHeldPackets() {
+        return held.size();
+    }
+
+    /**
+     * @return amount of packets dropped or superseded because this connection was not writable
+     */
+    public long getDroppedPackets() {
+        return dropped.get();
+    }
+
+    /**
+     * @return {@code true} if this connection is below its high write buffer watermark
+     */
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    /**
+     * @return how long this connection has not been writable in milliseconds, or {@code 0} if writable
+     */
+    public long getUnwritableMs() {
+        final long since = unwritableSince;
+        return since == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+
     /**
      * Update this connection.
      */
@@ -81,8 +323,26 @@ public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdap
      * @param packet the packet
      */
     public void sendImmediately(Packet packet) {
-        packet.alloc(alloc());
-        channel.writeAndFlush(packet);
+        write(packet, packet, true);
+    }
+
+    /**
+     * Send a direct buffer
+     *
+     * @param direct buffer
+     */
+    public void sendImmediately(ByteBuf direct) {
+        channel.writeAndFlush(direct);
+    }
+
+    /**
+     * Send a frame encoded from the provided packet
+     *
+     * @param frame  the frame
+     * @param source the packet the frame was encoded from, its backpressure policy applies to the frame
+     */
+    public void sendImmediately(ByteBuf frame, Packet source) {
+        write(frame, source, true);
     }
 
     /**
@@ -91,8 +351,7 @@ public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdap
      * @param packet the packet
      */
     public void queue(Packet packet) {
-        packet.alloc(alloc());
-        channel.write(packet);
+        write(packet, packet, false);
     }
 
     /**
@@ -104,6 +363,69 @@ public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdap
         channel.write(direct);
     }
 
+    /**
+     * Queue a frame encoded from the provided packet
+     *
+     * @param frame  the frame
+     * @param source the packet the frame was encoded from, its backpressure policy applies to the frame
+     */
+    public void queue(ByteBuf frame, Packet source) {
+        write(frame, source, false);
+    }
+
+    /**
+     * Write a packet or frame, dropping or holding it if this connection is not writable and the policy allows it.
+     *
+     * @param message the packet or frame
+     * @param source  the packet
+     * @param flush   {@code true} to flush
+     */
+    private void write(Object message, Packet source, boolean flush) {
+        final BackpressurePolicy policy = source.getBackpressurePolicy();
+        if (policy != BackpressurePolicy.RELIABLE && !channel.isWritable()) {
+            if (policy == BackpressurePolicy.DROP) {
+                discard(message);
+            } else {
+                final Object superseded = held.put(source.getSupersedeKey(), message);
+                if (superseded != null) discard(superseded);
+            }
+            return;
+        }
+
+        if (!held.isEmpty()) writeHeld();
+        if (flush) {
+            channel.writeAndFlush(message);
+        } else {
+            channel.write(message);
+        }
+    }
+
+    /**
+     * Write every held packet, each key is only ever removed once so this is safe from any thread
+     */
+    private void writeHeld() {
+        for (Long key : held.keySet()) {
+            final Object message = held.remove(key);
+            if (message != null) channel.write(message);
+        }
+    }
+
+    private void discard(Object message) {
+        dropped.incrementAndGet();
+        if (message instanceof Packet packet) {
+            packet.release();
+        } else {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    /**
+     * Invoked once this connection was not writable for longer than {@code maxUnwritableMs}, by default disconnects.
+     */
+    protected void writeTimedOut() {
+        disconnect();
+    }
+
     /**
      * Flush
      */
@@ -111,8 +433,38 @@ public abstract class ServerAbstractConnection extends ChannelInboundHandlerAdap
         channel.flush();
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (channel.isWritable()) {
+            unwritableSince = 0;
+            if (!held.isEmpty()) {
+                writeHeld();
+                channel.flush();
+            }
+        } else {
+            final long since = System.nanoTime();
+            unwritableSince = since;
+
+            final long timeout = server.getConfiguration().maxUnwritableMs;
+            if (timeout > 0) {
+                ctx.executor().schedule(() -> {
+                    // still the same stall
+                    if (unwritableSince == since) writeTimedOut();
+                }, timeout, TimeUnit.MILLISECONDS);
+            }
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) {
+        // being moved to another event loop, not closed
+        if (moving) return;
+
+        for (Long key : held.keySet()) {
+            final Object message = held.remove(key);
+            if (message != null) discard(message);
+        }
         connectionClosed(null);
     }
 
@@ -1,21 +1,35 @@
 package gdx.lunar.server.network.connection;
 
 import com.badlogic.gdx.Gdx;
+import gdx.lunar.protocol.codec.FrameCompressor;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.packet.client.*;
 import gdx.lunar.protocol.packet.server.*;
+import gdx.lunar.protocol.packet.view.C2SPingView;
+import gdx.lunar.protocol.packet.view.C2SPlayerPositionView;
+import gdx.lunar.protocol.packet.view.C2SPlayerStateView;
+import gdx.lunar.protocol.packet.view.C2SPlayerVelocityView;
 import gdx.lunar.server.entity.ServerPlayerEntity;
 import gdx.lunar.server.entity.impl.LunarServerPlayerEntity;
 import gdx.lunar.server.game.LunarServer;
 import gdx.lunar.server.world.World;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import lunar.shared.utility.EntityFacingDirection;
 
 /**
  * Represents the default player connection handler.
  */
 public class ServerPlayerConnection extends ServerAbstractConnection {
 
+    private static final EntityFacingDirection[] DIRECTIONS = EntityFacingDirection.values();
+
     protected ServerPlayerEntity player;
     protected boolean disconnected, hasJoined;
+    // sequence of the last player state applied, states not newer than it are discarded
+    protected int lastStateSequence;
+    protected boolean hasReceivedState;
 
     public ServerPlayerConnection(Channel channel, LunarServer server) {
         super(channel, server);
@@ -31,8 +45,19 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
     @Override
     public void handleAuthentication(C2SPacketAuthenticate packet) {
         if (server.authenticatePlayer(packet.getGameVersion(), packet.getProtocolVersion())) {
+            // the client writes with its version from now on, the response is still v1
+            final ProtocolFraming framing = ProtocolFraming.forVersion(packet.getProtocolVersion());
+            ProtocolFraming.setInbound(channel, framing);
+
             if (server.addPlayerToServer(this)) {
-                sendImmediately(new S2CPacketAuthenticate(true, server.getGameVersion(), server.getProtocolVersion()));
+                final FrameCompressor compressor = getCompressor();
+                final int threshold = packet.acceptsCompression() && compressor != null ? server.getConfiguration().compressionThreshold : -1;
+                final int strings = packet.acceptsStringTable() ? Math.max(0, server.getConfiguration().stringTableCapacity) : 0;
+
+                sendImmediately(new S2CPacketAuthenticate(true, server.getGameVersion(), packet.getProtocolVersion(), threshold, strings));
+                ProtocolFraming.setOutbound(channel, framing);
+                if (threshold >= 0) compressor.enable(threshold);
+                if (strings > 0) StringTable.setOutbound(channel, new StringTable(strings));
             } else {
                 // adding the player to the server failed
                 sendImmediately(new S2CPacketDisconnected("Server rejected player"));
@@ -55,20 +80,58 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
 
     @Override
     public void handlePing(C2SPacketPing packet) {
-        sendImmediately(new S2CPacketPing(packet.getTime(), player.getWorld().getTime()));
+        sendImmediately(S2CPacketPing.obtain(packet.getTime(), player.getWorld().getTime()));
+    }
+
+    @Override
+    public boolean handlePing(C2SPingView view) {
+        sendImmediately(S2CPacketPing.obtain(view.getTime(), player.getWorld().getTime()));
+        return true;
     }
 
     @Override
     public void handleJoinWorld(C2SPacketJoinWorld packet) {
+        final World world = server.getWorldManager().getWorld(packet.getWorldName());
+        if (world == null) {
+            sendImmediately(new S2CPacketWorldInvalid(packet.getWorldName(), "Invalid username or world."));
+            return;
+        }
+
+        if (inboundWorld == world) {
+            joinWorld(world, packet);
+        } else if (world.isFull()) {
+            // checked again by the world, but nothing needs to be moved if it is already full
+            sendImmediately(new S2CPacketWorldInvalid(packet.getWorldName(), "World is full."));
+        } else {
+            // the world owns its players, join on its tick and handle every packet after from there too.
+            final EventLoop previous = eventLoop();
+            setInboundWorld(world);
+            world.execute(() -> {
+                joinWorld(world, packet);
+                // rejected, read from the loop this connection was on again
+                if (inboundWorld != world) moveTo(previous);
+            });
+            // pinned worlds read their players on their own loop
+            moveTo(world.getEventLoop());
+        }
+    }
+
+    /**
+     * Join the provided world, called by the world itself
+     *
+     * @param world  the world
+     * @param packet the request
+     */
+    protected void joinWorld(World world, C2SPacketJoinWorld packet) {
         if (!server.isUsernameValidInWorld(packet.getWorldName(), packet.getUsername())) {
             // TODO: May be desirable to instead check specifically whats wrong
             // TODO: Instead of just making the client guess
             sendImmediately(new S2CPacketWorldInvalid(packet.getWorldName(), "Invalid username or world."));
         }
 
-        final World world = server.getWorldManager().getWorld(packet.getWorldName());
         if (world.isFull()) {
             sendImmediately(new S2CPacketWorldInvalid(packet.getWorldName(), "World is full."));
+            setInboundWorld(null);
             return;
         }
 
@@ -77,7 +140,9 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
         player.setWorldIn(world);
         player.setInWorld(true);
         player.setEntityId(world.assignEntityIdFor(true));
-        sendImmediately(new S2CPacketJoinWorld(world.getName(), player.getEntityId(), world.getTime()));
+        // the client reads and writes movement with the world codec from now on
+        movementCodec = world.getMovementCodec();
+        sendImmediately(new S2CPacketJoinWorld(world.getName(), player.getEntityId(), world.getTime(), movementCodec));
         hasJoined = true;
     }
 
@@ -92,10 +157,20 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
     @Override
     public void handlePlayerPosition(C2SPacketPlayerPosition packet) {
         if (hasJoined && player.isInWorld()) {
+            acknowledgeSnapshot(packet.getAcknowledgedTick());
             player.getWorld().handlePlayerPosition(player, packet.getX(), packet.getY(), packet.getRotation());
         }
     }
 
+    @Override
+    public boolean handlePlayerPosition(C2SPlayerPositionView view) {
+        if (hasJoined && player.isInWorld()) {
+            acknowledgeSnapshot(view.getAcknowledgedTick());
+            player.getWorld().handlePlayerPosition(player, view.getX(), view.getY(), view.getRotation());
+        }
+        return true;
+    }
+
     @Override
     public void handlePlayerVelocity(C2SPacketPlayerVelocity packet) {
         if (hasJoined && player.isInWorld()) {
@@ -103,6 +178,48 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
         }
     }
 
+    @Override
+    public boolean handlePlayerVelocity(C2SPlayerVelocityView view) {
+        if (hasJoined && player.isInWorld()) {
+            player.getWorld().handlePlayerVelocity(player, view.getVelocityX(), view.getVelocityY(), view.getRotation());
+        }
+        return true;
+    }
+
+    @Override
+    public void handlePlayerState(C2SPacketPlayerState packet) {
+        if (hasJoined && player.isInWorld() && acceptState(packet.getSequence())) {
+            acknowledgeSnapshot(packet.getAcknowledgedTick());
+            player.getWorld().handlePlayerState(player, packet.getX(), packet.getY(), packet.getVelocityX(), packet.getVelocityY(),
+                    packet.getRotation(), directionOf(packet.getDirection()));
+        }
+    }
+
+    @Override
+    public boolean handlePlayerState(C2SPlayerStateView view) {
+        if (hasJoined && player.isInWorld() && acceptState(view.getSequence())) {
+            acknowledgeSnapshot(view.getAcknowledgedTick());
+            player.getWorld().handlePlayerState(player, view.getX(), view.getY(), view.getVelocityX(), view.getVelocityY(),
+                    view.getRotation(), directionOf(view.getDirection()));
+        }
+        return true;
+    }
+
+    /**
+     * @param sequence the sequence of a received state
+     * @return {@code true} if the state is newer than the last one applied, sequences may wrap around
+     */
+    protected boolean acceptState(int sequence) {
+        if (hasReceivedState && sequence - lastStateSequence <= 0) return false;
+        hasReceivedState = true;
+        lastStateSequence = sequence;
+        return true;
+    }
+
+    private static EntityFacingDirection directionOf(int ordinal) {
+        return ordinal >= 0 && ordinal < DIRECTIONS.length ? DIRECTIONS[ordinal] : null;
+    }
+
     @Override
     public void disconnect() {
         if (disconnected) return;
@@ -110,8 +227,17 @@ public class ServerPlayerConnection extends ServerAbstractConnection {
 
         if (server != null) server.removePlayerConnection(this);
         if (player != null) {
-            if (player.isInWorld()) player.getWorld().removePlayerInWorld(player);
-            player.dispose();
+            final ServerPlayerEntity player = this.player;
+            final World world = player.getWorld();
+            if (world != null) {
+                // the world owns the player, remove it during its own tick
+                world.execute(() -> {
+                    world.removePlayerInWorld(player);
+                    player.dispose();
+                });
+            } else {
+                player.dispose();
+            }
         }
 
         channel.pipeline().remove(this);
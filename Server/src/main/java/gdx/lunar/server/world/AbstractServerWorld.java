@@ -1,24 +1,117 @@
 package gdx.lunar.server.world;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.IntSet;
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.ProtocolPacketEncoder;
 import gdx.lunar.protocol.packet.Packet;
+import gdx.lunar.protocol.packet.PooledGamePacket;
 import gdx.lunar.protocol.packet.server.*;
+import gdx.lunar.protocol.snapshot.WorldState;
+import gdx.lunar.protocol.snapshot.WorldStateHistory;
 import gdx.lunar.server.entity.ServerEntity;
 import gdx.lunar.server.entity.ServerPlayerEntity;
+import gdx.lunar.server.netty.codec.QueuedClientFrame;
+import gdx.lunar.server.network.connection.ServerAbstractConnection;
 import gdx.lunar.server.world.config.ServerWorldConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.PlatformDependent;
+import lunar.shared.utility.EntityFacingDirection;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * Represents a {@link World} that can be expanded upon
+ * <p>
+ * Broadcasts are encoded once per framing and the same frame is shared between all recipients.
+ * <p>
+ * Players and entities are only ever touched by the thread ticking this world,
+ * packets and tasks from other threads are queued with {@link #execute(Runnable)} and run at the start of each tick.
+ * <p>
+ * Each tick runs in phases: {@link #drainInbound()}, {@link #simulate(float)}, {@link #buildOutbound()} and {@link #flushOutbound()}.
+ * Everything queued during a tick is only written once the flush phase runs, which flushes each connection exactly once.
+ * <p>
+ * A world may instead be pinned to a Netty event loop with {@link #pinTo(EventLoop, long)},
+ * it is then ticked on that loop and the channels of its players are moved to it,
+ * so packets are handled as they are read and nothing about this world is shared between threads.
+ * <p>
+ * If {@code interestRadius} is set players are sorted into a {@link SpatialHashGrid} and only updated about players near them.
+ * Players coming into range are created for the client and players leaving range are removed,
+ * the same as if they joined or left the world.
+ * <p>
+ * Players are only sent when their state version changed since they were last sent, or every {@code keyframeInterval} ticks.
+ * <p>
+ * The movement state of players and entities within this world is kept in an {@link EntityStateStore} by the slot of their ID,
+ * snapshots and interest queries read it from there.
+ * If {@code offHeapEntityCapacity} is set entities are instead kept within an {@link OffHeapEntityStateStore} and sent in snapshots,
+ * the same as players only when they changed. Rows sent in shared snapshots are copied into the frame without reading each entity.
+ * <p>
+ * Snapshots that are not deltas are split into parts that fit within the max frame length of the protocol.
+ * Delta snapshots leave out whatever does not fit instead, each tick starting at a different entity so everything is sent within a few ticks.
  */
 public abstract class AbstractServerWorld implements World {
 
-    // network players and entities
-    protected ConcurrentMap<Integer, ServerPlayerEntity> players = new ConcurrentHashMap<>();
-    protected ConcurrentMap<Integer, ServerEntity> entities = new ConcurrentHashMap<>();
+    private static final ProtocolFraming[] FRAMINGS = ProtocolFraming.values();
+
+    // network players and entities by entity ID
+    protected final IntMap<ServerPlayerEntity> players = new IntMap<>();
+    protected final IntMap<ServerEntity> entities = new IntMap<>();
+    // assigns player and entity IDs, the index of an ID is its slot below
+    protected final EntityIdAllocator entityIds = new EntityIdAllocator();
+    private ServerPlayerEntity[] playerSlots = new ServerPlayerEntity[16];
+    private ServerEntity[] entitySlots = new ServerEntity[16];
+    // position, velocity and rotation of every player and entity by slot
+    protected final ArrayEntityStateStore states = new ArrayEntityStateStore(16);
+    // entities kept off-heap instead, included in snapshots. null if entities are kept with players
+    protected final OffHeapEntityStateStore entityStates;
+    // every player in this world, iterated by index so loops can nest without sharing an iterator
+    protected final Array<ServerPlayerEntity> playerList = new Array<>(false, 16, ServerPlayerEntity.class);
+
+    // players by position and what each player was sent, null if every player is sent to everyone
+    protected final SpatialHashGrid<ServerPlayerEntity> grid;
+    private final IntMap<Interest> interests = new IntMap<>();
+    // reused when querying the grid
+    private final Array<ServerPlayerEntity> nearby = new Array<>(false, 16, ServerPlayerEntity.class);
+
+    // players sent this tick, either changed since last sent or due a keyframe
+    private final IntSet changed = new IntSet();
+    // IDs of the entities kept off-heap sent this tick, the same as players
+    private final IntArray changedStored = new IntArray();
+    // rows of those entities, copied for shared snapshots. null if entities are kept with players
+    private final ByteBuf changedRows;
+    // the state version of each player when last sent
+    private final IntIntMap sentVersions = new IntIntMap();
+    // entity states sent and skipped since created, only written by the thread ticking this world
+    private volatile long statesSent, statesSkipped;
+
+    // packets and tasks queued by the network threads, many producers and this world as the only consumer
+    protected final Queue<Runnable> inbound = PlatformDependent.newMpscQueue();
+    // players that timed out this tick
+    private final List<ServerPlayerEntity> timedOut = new ArrayList<>();
+    // connections to flush by the event loop they belong to, reused each tick
+    private final Map<EventLoop, List<ServerAbstractConnection>> flushGroups = new IdentityHashMap<>();
+
+    // when the outbound phase of the current tick started
+    private long outboundStartNanos;
+    // the time from the outbound phase starting until every connection was flushed, of the last tick that completed flushing
+    private volatile long queueToWireNanos;
+
+    // the event loop this world is pinned to, or null if ticked by the server
+    private volatile EventLoop eventLoop;
+    private ScheduledFuture<?> tickFuture;
+    private long lastTickNanos;
 
     // starting/spawn point of this world.
     protected final Vector2 spawn = new Vector2();
@@ -28,10 +121,27 @@ public abstract class AbstractServerWorld implements World {
 
     protected long currentTime;
     protected float currentTick;
+    // amount of ticks processed
+    protected long serverTick;
 
     public AbstractServerWorld(ServerWorldConfiguration configuration, String worldName) {
         this.configuration = configuration;
         this.worldName = worldName;
+
+        if (configuration.interestRadius > 0) {
+            grid = new SpatialHashGrid<>(configuration.interestCellSize > 0 ? configuration.interestCellSize : configuration.interestRadius);
+        } else {
+            grid = null;
+        }
+
+        if (configuration.offHeapEntityCapacity > 0) {
+            entityStates = new OffHeapEntityStateStore(PooledByteBufAllocator.DEFAULT, configuration.offHeapEntityCapacity);
+            entityStates.setChangeEpsilon(configuration.changeEpsilon);
+            changedRows = PooledByteBufAllocator.DEFAULT.directBuffer(configuration.offHeapEntityCapacity * S2CPacketWorldSnapshot.ROW_LENGTH);
+        } else {
+            entityStates = null;
+            changedRows = null;
+        }
     }
 
     @Override
@@ -41,7 +151,7 @@ public abstract class AbstractServerWorld implements World {
 
     @Override
     public boolean isFull() {
-        return players.size() >= configuration.getCapacity();
+        return players.size >= configuration.getCapacity();
     }
 
     @Override
@@ -59,35 +169,35 @@ public abstract class AbstractServerWorld implements World {
 
     @Override
     public boolean doesUsernameExist(String username) {
-        return players.values().stream().anyMatch(player -> player.getName().equals(username));
+        for (int i = 0; i < playerList.size; i++) {
+            if (playerList.get(i).getName().equals(username)) return true;
+        }
+        return false;
     }
 
     @Override
     public int assignEntityIdFor(boolean isPlayer) {
-        if (isPlayer) {
-            return players.size() + 1 + ThreadLocalRandom.current().nextInt(111, 999);
-        } else {
-            return entities.size() + 1 + ThreadLocalRandom.current().nextInt(111, 999);
-        }
+        // players and entities share IDs, so they never collide
+        return entityIds.allocate();
     }
 
     @Override
     public boolean hasPlayer(int entityId) {
-        return players.containsKey(entityId);
+        return getPlayer(entityId) != null;
     }
 
     @Override
     public boolean hasEntity(int entityId) {
-        return entities.containsKey(entityId);
+        return getEntity(entityId) != null;
     }
 
     @Override
-    public ConcurrentMap<Integer, ServerPlayerEntity> getPlayers() {
+    public IntMap<ServerPlayerEntity> getPlayers() {
         return players;
     }
 
     @Override
-    public ConcurrentMap<Integer, ServerEntity> getEntities() {
+    public IntMap<ServerEntity> getEntities() {
         return entities;
     }
 
@@ -95,6 +205,7 @@ public abstract class AbstractServerWorld implements World {
     public void handlePlayerPosition(ServerPlayerEntity player, float x, float y, float rotation) {
         player.setPosition(x, y);
         player.setRotation(rotation);
+        if (grid != null) grid.update(player);
     }
 
     @Override
@@ -103,22 +214,40 @@ public abstract class AbstractServerWorld implements World {
         player.setRotation(rotation);
     }
 
+    @Override
+    public void handlePlayerState(ServerPlayerEntity player, float x, float y, float velocityX, float velocityY, float rotation, EntityFacingDirection direction) {
+        player.setPosition(x, y);
+        player.setVelocity(velocityX, velocityY);
+        player.setRotation(rotation);
+        if (direction != null) player.setFacingDirection(direction);
+        if (grid != null) grid.update(player);
+    }
+
     @Override
     public void spawnPlayerInWorld(ServerPlayerEntity player) {
+        checkEntityId(player.getEntityId());
+        player.setStateStore(states, slotOf(player));
         player.setWorldIn(this);
-        if (players.isEmpty()) {
+        player.setChangeEpsilon(configuration.changeEpsilon);
+        // server ticks are per world, previous baselines are meaningless here
+        player.getConnection().resetSnapshots();
+        if (grid != null) {
+            // nearby players are sent as they come into range, starting next tick
+            player.getConnection().sendImmediately(new S2CPacketStartGame(currentTime));
+            interests.put(player.getEntityId(), new Interest());
+            grid.update(player);
+        } else if (players.isEmpty()) {
             // no players, send empty start game
             player.getConnection().sendImmediately(new S2CPacketStartGame(currentTime));
         } else {
-            final S2CPacketStartGame.BasicServerPlayer[] serverPlayers = new S2CPacketStartGame.BasicServerPlayer[players.size()];
+            final S2CPacketStartGame.BasicServerPlayer[] serverPlayers = new S2CPacketStartGame.BasicServerPlayer[players.size];
             // first, notify other players a new player as joined
             broadcastNowWithExclusion(player.getEntityId(), new S2CPacketCreatePlayer(player.getName(), player.getEntityId(), 0.0f, 0.0f));
 
             // next, construct start game packet
-            int index = 0;
-            for (ServerPlayerEntity other : players.values()) {
-                serverPlayers[index] = new S2CPacketStartGame.BasicServerPlayer(other.getEntityId(), other.getName(), other.getPosition());
-                index++;
+            for (int i = 0; i < playerList.size; i++) {
+                final ServerPlayerEntity other = playerList.get(i);
+                serverPlayers[i] = new S2CPacketStartGame.BasicServerPlayer(other.getEntityId(), other.getName(), other.getPosition());
             }
 
             // send!
@@ -127,90 +256,637 @@ public abstract class AbstractServerWorld implements World {
 
         // add this new player to the list
         players.put(player.getEntityId(), player);
+        playerList.add(player);
+        playerSlots = occupy(playerSlots, player.getEntityId(), player);
     }
 
     @Override
     public void spawnEntityInWorld(ServerEntity entity) {
         // TODO: Maybe something different depending on how complex entities get.
+        checkEntityId(entity.getEntityId());
+        if (entityStates != null) {
+            entityStates.add(entity.getEntityId());
+            entity.setStateStore(entityStates, slotOf(entity));
+        } else {
+            entity.setStateStore(states, slotOf(entity));
+        }
+        entity.setChangeEpsilon(configuration.changeEpsilon);
         this.entities.put(entity.getEntityId(), entity);
+        entitySlots = occupy(entitySlots, entity.getEntityId(), entity);
+    }
+
+    /**
+     * @param entityId the entity ID
+     * @throws IllegalArgumentException if the ID was not assigned by {@link #assignEntityIdFor(boolean)} of this world
+     */
+    private void checkEntityId(int entityId) {
+        if (!entityIds.isAllocated(entityId)) throw new IllegalArgumentException("Entity ID " + entityId + " was not assigned by world " + worldName);
+    }
+
+    /**
+     * @param entity the entity
+     * @return the slot of the entity within the state store
+     */
+    protected static int slotOf(ServerEntity entity) {
+        return EntityIdAllocator.indexOf(entity.getEntityId());
+    }
+
+    /**
+     * Place a value in the slot of an entity ID, growing the slots if required
+     *
+     * @return the slots
+     */
+    private static <T> T[] occupy(T[] slots, int entityId, T value) {
+        final int index = EntityIdAllocator.indexOf(entityId);
+        if (index >= slots.length) slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+        slots[index] = value;
+        return slots;
+    }
+
+    /**
+     * @return the value in the slot of the entity ID, or {@code null} if empty or the ID is stale
+     */
+    private static <T extends ServerEntity> T lookup(T[] slots, int entityId) {
+        final int index = EntityIdAllocator.indexOf(entityId);
+        if (index >= slots.length) return null;
+
+        final T value = slots[index];
+        return value != null && value.getEntityId() == entityId ? value : null;
     }
 
     @Override
     public void removePlayerInWorld(ServerPlayerEntity player) {
-        if (!hasPlayer(player.getEntityId())) return;
-        players.remove(player.getEntityId());
+        if (getPlayer(player.getEntityId()) != player) {
+            // joined but never spawned
+            if (player.getWorld() == this) entityIds.free(player.getEntityId());
+            return;
+        }
+
+        playerList.removeValue(players.remove(player.getEntityId()), true);
+        playerSlots[slotOf(player)] = null;
+        player.setStateStore(null, 0);
+        states.clear(slotOf(player));
+        entityIds.free(player.getEntityId());
+        sentVersions.remove(player.getEntityId(), 0);
+
+        if (grid != null) {
+            grid.remove(player);
+            interests.remove(player.getEntityId());
+            // only players that were sent this player need to remove it
+            for (int i = 0; i < playerList.size; i++) {
+                final ServerPlayerEntity other = playerList.get(i);
+                final Interest interest = interests.get(other.getEntityId());
+                if (interest != null && interest.visible.remove(player.getEntityId())) {
+                    other.getConnection().sendImmediately(new S2CPacketRemovePlayer(player.getEntityId()));
+                }
+            }
+            return;
+        }
 
         broadcastNowWithExclusion(player.getEntityId(), new S2CPacketRemovePlayer(player.getEntityId()));
     }
 
     @Override
     public void removeEntityInWorld(ServerEntity entity) {
+        if (getEntity(entity.getEntityId()) != entity) return;
+
         entities.remove(entity.getEntityId());
+        entitySlots[slotOf(entity)] = null;
+        entity.setStateStore(null, 0);
+        if (entityStates != null) {
+            entityStates.clear(slotOf(entity));
+        } else {
+            states.clear(slotOf(entity));
+        }
+        entityIds.free(entity.getEntityId());
+        sentVersions.remove(entity.getEntityId(), 0);
     }
 
     @Override
     public ServerPlayerEntity getPlayer(int entityId) {
-        return players.get(entityId);
+        return lookup(playerSlots, entityId);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T extends ServerPlayerEntity> T getPlayerAs(int entityId) {
-        return (T) players.get(entityId);
+        return (T) lookup(playerSlots, entityId);
     }
 
     @Override
     public ServerEntity getEntity(int entityId) {
-        return entities.get(entityId);
+        return lookup(entitySlots, entityId);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T extends ServerEntity> T getEntityAs(int entityId) {
-        return (T) entities.get(entityId);
+        return (T) lookup(entitySlots, entityId);
+    }
+
+    /**
+     * @return the allocator player and entity IDs of this world are assigned by
+     */
+    public EntityIdAllocator getEntityIds() {
+        return entityIds;
     }
 
     @Override
     public void broadcast(Packet packet) {
-        for (ServerPlayerEntity player : players.values()) player.getConnection().queue(packet);
+        broadcast(packet, player -> true, false);
     }
 
     @Override
-    public void broadcastNowWithExclusion(int exclusion, Packet packet) {
-        for (ServerPlayerEntity player : players.values())
-            if (player.getEntityId() != exclusion) player.getConnection().sendImmediately(packet);
+    public void broadcast(Packet packet, Predicate<ServerPlayerEntity> filter) {
+        broadcast(packet, filter, false);
     }
 
+    @Override
+    public void broadcastNow(Packet packet, Predicate<ServerPlayerEntity> filter) {
+        broadcast(packet, filter, true);
+    }
+
+    @Override
+    public void broadcastNowWithExclusion(int exclusion, Packet packet) {
+        broadcast(packet, player -> player.getEntityId() != exclusion, true);
+    }
 
     @Override
     public void broadcastWithExclusion(int exclusion, Packet packet) {
-        for (ServerPlayerEntity value : players.values()) {
-            if (value.getEntityId() != exclusion) {
-                value.getConnection().queue(packet);
+        broadcast(packet, player -> player.getEntityId() != exclusion, false);
+    }
+
+    /**
+     * Encode the packet once per framing then write a shared, read-only view of it to each player accepted by the filter.
+     * Nothing is encoded if no player is accepted.
+     * Packets using the string table are written to each player instead, since their frames differ per connection.
+     *
+     * @param packet the packet
+     * @param filter the filter
+     * @param now    {@code true} to flush immediately
+     */
+    protected void broadcast(Packet packet, Predicate<ServerPlayerEntity> filter, boolean now) {
+        if (packet.usesStringTable()) {
+            broadcastEach(packet, filter, now);
+            return;
+        }
+
+        // players connected with different protocol versions cannot share a frame
+        final ByteBuf[] frames = new ByteBuf[FRAMINGS.length];
+        try {
+            for (int i = 0; i < playerList.size; i++) {
+                final ServerPlayerEntity player = playerList.get(i);
+                if (!filter.test(player)) continue;
+
+                final ServerAbstractConnection connection = player.getConnection();
+                final int framing = connection.getFraming().ordinal();
+                if (frames[framing] == null) {
+                    frames[framing] = ProtocolPacketEncoder.encodeShared(connection.alloc(), packet, FRAMINGS[framing]);
+                }
+
+                if (now) {
+                    connection.sendImmediately(frames[framing].retainedDuplicate(), packet);
+                } else {
+                    connection.queue(frames[framing].retainedDuplicate(), packet);
+                }
+            }
+        } finally {
+            for (ByteBuf frame : frames) {
+                if (frame != null) frame.release();
+            }
+        }
+    }
+
+    /**
+     * Write the packet to each player accepted by the filter, each is encoded by the pipeline of the connection.
+     * Pooled packets are retained once per player, the caller keeps its own reference.
+     *
+     * @param packet the packet
+     * @param filter the filter
+     * @param now    {@code true} to flush immediately
+     */
+    private void broadcastEach(Packet packet, Predicate<ServerPlayerEntity> filter, boolean now) {
+        for (int i = 0; i < playerList.size; i++) {
+            final ServerPlayerEntity player = playerList.get(i);
+            if (!filter.test(player)) continue;
+            if (packet instanceof PooledGamePacket pooled && pooled.isPooled()) pooled.retain();
+
+            if (now) {
+                player.getConnection().sendImmediately(packet);
+            } else {
+                player.getConnection().queue(packet);
             }
         }
     }
 
     @Override
-    public void tick(float delta) {
-        if (configuration.doDefaultTicking) {
-            for (ServerPlayerEntity player : players.values()) {
-                // flush anything that was sent to the player
-                player.getConnection().flush();
-                currentTime = System.currentTimeMillis();
-
-                if (!isTimedOut(player, currentTime)) {
-                    queuePlayerPosition(player);
-                    queuePlayerVelocity(player);
-                } else {
-                    timeoutPlayer(player);
-                    player.dispose();
-                }
+    public void execute(Runnable task) {
+        inbound.offer(task);
+    }
+
+    /**
+     * Pin this world to an event loop, it is ticked there from now on instead of by the server.
+     * Players joining after have their channel moved to the same loop, so their packets are handled as they are read.
+     *
+     * @param loop            the event loop
+     * @param tickPeriodNanos the time between ticks in nanoseconds
+     */
+    public void pinTo(EventLoop loop, long tickPeriodNanos) {
+        if (eventLoop != null) throw new IllegalArgumentException("World " + worldName + " is already pinned");
+        if (tickPeriodNanos <= 0) throw new IllegalArgumentException("Tick period must be positive");
+
+        this.eventLoop = loop;
+        loop.execute(() -> {
+            lastTickNanos = System.nanoTime();
+            tickFuture = loop.scheduleAtFixedRate(this::tickPinned, tickPeriodNanos, tickPeriodNanos, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    /**
+     * Tick this world on the event loop it is pinned to
+     */
+    private void tickPinned() {
+        final long now = System.nanoTime();
+        final float delta = (now - lastTickNanos) / (float) TimeUnit.SECONDS.toNanos(1);
+        lastTickNanos = now;
+
+        // an exception would cancel every tick after
+        try {
+            tick(delta);
+        } catch (Exception exception) {
+            Gdx.app.log("AbstractServerWorld", "Exception caught ticking world " + worldName, exception);
+        }
+    }
+
+    @Override
+    public EventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    @Override
+    public boolean canHandleInline() {
+        final EventLoop loop = eventLoop;
+        // anything queued was read first, it must run before
+        return loop != null && loop.inEventLoop() && inbound.isEmpty();
+    }
+
+    /**
+     * Run the packets and tasks queued since the last tick.
+     * At most {@code maxPacketsPerTick} are run, anything left over is run next tick.
+     */
+    protected void drainInbound() {
+        final int max = configuration.getMaxPacketsPerTick();
+        for (int i = 0; i < max; i++) {
+            final Runnable task = inbound.poll();
+            if (task == null) break;
+
+            try {
+                task.run();
+            } catch (Exception exception) {
+                Gdx.app.log("AbstractServerWorld", "Exception caught handling inbound packet in " + worldName, exception);
             }
         }
+    }
+
+    @Override
+    public void tick(float delta) {
+        drainInbound();
+        simulate(delta);
+
+        outboundStartNanos = System.nanoTime();
+        buildOutbound();
+        flushOutbound();
+
         // TODO: Maybe just ++1?
         // TODO: Really just depends on implementation
         currentTick += delta;
+        serverTick++;
+    }
+
+    /**
+     * Simulate this world, by default removing players that timed out.
+     *
+     * @param delta the delta
+     */
+    protected void simulate(float delta) {
+        currentTime = System.currentTimeMillis();
+        if (!configuration.doDefaultTicking) return;
+
+        for (int i = 0; i < playerList.size; i++) {
+            final ServerPlayerEntity player = playerList.get(i);
+            if (isTimedOut(player, currentTime)) timedOut.add(player);
+        }
+
+        // removed after iterating, removing reorders the player list
+        for (int i = 0; i < timedOut.size(); i++) timeoutPlayer(timedOut.get(i));
+        timedOut.clear();
+    }
+
+    /**
+     * Queue the updates of this tick to each player, nothing is flushed until {@link #flushOutbound()}
+     */
+    protected void buildOutbound() {
+        if (!configuration.doDefaultTicking) return;
+        if (grid != null) {
+            for (int i = 0; i < playerList.size; i++) updateInterest(playerList.get(i));
+        }
+
+        collectChanged();
+        if (configuration.sendWorldSnapshots) {
+            queueWorldSnapshot();
+        } else {
+            for (int i = 0; i < playerList.size; i++) {
+                final ServerPlayerEntity player = playerList.get(i);
+                if (!changed.contains(player.getEntityId())) continue;
+
+                queuePlayerPosition(player);
+                queuePlayerVelocity(player);
+            }
+        }
+    }
+
+    /**
+     * Find the players that changed since they were last sent, or are due a keyframe
+     */
+    protected void collectChanged() {
+        changed.clear();
+        for (int i = 0; i < playerList.size; i++) {
+            final ServerPlayerEntity player = playerList.get(i);
+            final int entityId = player.getEntityId();
+            final int version = player.getStateVersion();
+            // never sent if missing
+            if (sentVersions.get(entityId, version - 1) != version || isKeyframe(player)) {
+                changed.add(entityId);
+                sentVersions.put(entityId, version);
+            }
+        }
+
+        changedStored.clear();
+        // only ever sent in snapshots
+        if (configuration.sendWorldSnapshots && hasStoredEntities()) {
+            final OffHeapEntityStateStore store = entityStates;
+            for (int row = 0; row < store.size(); row++) {
+                final int entityId = store.getEntityIdAt(row);
+                final int version = store.getVersion(store.getSlotAt(row));
+                if (sentVersions.get(entityId, version - 1) != version || isKeyframe(entityId)) {
+                    changedStored.add(entityId);
+                    sentVersions.put(entityId, version);
+                }
+            }
+        }
+
+        // deltas are counted per player they are sent to instead
+        if (!configuration.sendWorldSnapshots || !configuration.deltaCompressSnapshots) {
+            final int stored = entityStates == null ? 0 : entityStates.size();
+            statesSent += changed.size + changedStored.size;
+            statesSkipped += playerList.size - changed.size + stored - changedStored.size;
+        }
+    }
+
+    /**
+     * @param entity the entity
+     * @return {@code true} if the entity is sent this tick even if it did not change, entities are spread across ticks
+     */
+    protected boolean isKeyframe(ServerEntity entity) {
+        return isKeyframe(entity.getEntityId());
+    }
+
+    /**
+     * @param entityId the entity ID
+     * @return {@code true} if the entity is sent this tick even if it did not change
+     */
+    protected boolean isKeyframe(int entityId) {
+        final int interval = configuration.keyframeInterval;
+        return interval > 0 && (serverTick + entityId) % interval == 0;
+    }
+
+    /**
+     * @return entity states sent, counted once per entity or once per entity and player for delta snapshots
+     */
+    public long getStatesSent() {
+        return statesSent;
+    }
+
+    /**
+     * @return entity states skipped because they did not change, counted the same as {@link #getStatesSent()}
+     */
+    public long getStatesSkipped() {
+        return statesSkipped;
+    }
+
+    /**
+     * @return the ratio of entity states skipped to all considered, {@code 0} if none were
+     */
+    public float getSkippedRatio() {
+        final long sent = statesSent, skipped = statesSkipped;
+        return sent + skipped == 0 ? 0.0f : (float) skipped / (sent + skipped);
+    }
+
+    /**
+     * Flush every connection in this world once.
+     * Connections are grouped by their event loop and each loop is handed a single task flushing all of them,
+     * so a tick wakes each loop once instead of once per player.
+     */
+    protected void flushOutbound() {
+        if (playerList.isEmpty()) return;
+
+        for (int i = 0; i < playerList.size; i++) {
+            final ServerAbstractConnection connection = playerList.get(i).getConnection();
+            flushGroups.computeIfAbsent(connection.eventLoop(), loop -> new ArrayList<>()).add(connection);
+        }
+
+        final long start = outboundStartNanos;
+        final FlushBatch batch = new FlushBatch(this, start, flushGroups.size());
+        for (Map.Entry<EventLoop, List<ServerAbstractConnection>> entry : flushGroups.entrySet()) {
+            final List<ServerAbstractConnection> group = entry.getValue();
+            if (group.isEmpty()) {
+                batch.complete();
+                continue;
+            }
+
+            final ServerAbstractConnection[] connections = group.toArray(new ServerAbstractConnection[0]);
+            group.clear();
+
+            final EventLoop loop = entry.getKey();
+            if (loop.inEventLoop()) {
+                batch.flush(connections);
+            } else {
+                loop.execute(() -> batch.flush(connections));
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds from the outbound phase starting until every connection was flushed, of the last tick that finished flushing
+     */
+    public long getQueueToWireNanos() {
+        return queueToWireNanos;
+    }
+
+    /**
+     * Queue a snapshot of every player in this world.
+     * If delta compression is enabled each player receives only what changed since their last acknowledged snapshot,
+     * otherwise a snapshot of the players that changed is encoded once and shared, clients ignore their own entry.
+     * Those snapshots are partial, so they are written even while a connection is not writable.
+     */
+    protected void queueWorldSnapshot() {
+        // a single player has nobody else to be updated about, unless there are entities
+        if (playerList.isEmpty() || (playerList.size < 2 && !hasStoredEntities())) return;
+
+        if (configuration.deltaCompressSnapshots) {
+            for (int i = 0; i < playerList.size; i++) queueDeltaSnapshot(playerList.get(i));
+            return;
+        } else if (grid != null) {
+            // each player is sent a different set of players
+            for (int i = 0; i < playerList.size; i++) queueNearbySnapshot(playerList.get(i));
+            return;
+        }
+
+        if (changed.isEmpty() && changedStored.isEmpty()) return;
+
+        final int maxEntities = getMaxSnapshotEntities(playerList.first());
+        S2CPacketWorldSnapshot snapshot = null;
+        for (int i = 0; i < playerList.size; i++) {
+            final ServerPlayerEntity player = playerList.get(i);
+            if (!changed.contains(player.getEntityId())) continue;
+
+            if (snapshot == null) snapshot = newPartialSnapshot(Math.min(changed.size, maxEntities));
+            final int slot = slotOf(player);
+            snapshot.add(player.getEntityId(), states.getX(slot), states.getY(slot),
+                    states.getVelocityX(slot), states.getVelocityY(slot), states.getRotation(slot));
+            if (snapshot.getEntityCount() == maxEntities) {
+                broadcast(snapshot);
+                snapshot = null;
+            }
+        }
+
+        if (!changedStored.isEmpty()) {
+            changedRows.clear();
+            for (int i = 0; i < changedStored.size; i++) entityStates.copyRow(EntityIdAllocator.indexOf(changedStored.get(i)), changedRows);
+
+            // broadcasts encode right away, so the copied rows can be referenced
+            for (int row = 0; row < changedStored.size; ) {
+                if (snapshot == null) snapshot = newPartialSnapshot(0);
+                final int count = Math.min(changedStored.size - row, maxEntities - snapshot.getEntityCount());
+                snapshot.setRows(changedRows.slice(row * S2CPacketWorldSnapshot.ROW_LENGTH, count * S2CPacketWorldSnapshot.ROW_LENGTH), count);
+                broadcast(snapshot);
+                snapshot = null;
+                row += count;
+            }
+        }
+        if (snapshot != null) broadcast(snapshot);
+    }
+
+    /**
+     * @return a new snapshot of this tick that only includes what changed
+     */
+    private S2CPacketWorldSnapshot newPartialSnapshot(int capacity) {
+        final S2CPacketWorldSnapshot snapshot = new S2CPacketWorldSnapshot(serverTick, -1, capacity, configuration.movementCodec);
+        snapshot.setPartial(true);
+        return snapshot;
+    }
+
+    /**
+     * @param player the player
+     * @return the amount of entities a snapshot sent to the player can include
+     */
+    protected int getMaxSnapshotEntities(ServerPlayerEntity player) {
+        return S2CPacketWorldSnapshot.getMaxEntities(player.getConnection().getMaxFrameLength(), configuration.movementCodec);
+    }
+
+    /**
+     * @return {@code true} if any entities are kept off-heap
+     */
+    private boolean hasStoredEntities() {
+        return entityStates != null && entityStates.size() > 0;
+    }
+
+    /**
+     * Queue a snapshot for the provided player relative to the last state they acknowledged.
+     * Nothing is sent if nothing changed, the acknowledged state remains the baseline.
+     * Players and entities are added until the snapshot fits within a single frame, starting at a different one each tick,
+     * so anything left out because others keep changing is still sent within a few ticks.
+     *
+     * @param player the player
+     */
+    protected void queueDeltaSnapshot(ServerPlayerEntity player) {
+        final ServerAbstractConnection connection = player.getConnection();
+        final WorldStateHistory history = connection.getSnapshotHistory();
+        final WorldState baseline = history.getBaseline(connection.getAcknowledgedSnapshotTick(), serverTick);
+
+        final Interest interest = grid == null ? null : interests.get(player.getEntityId());
+        final Array<ServerPlayerEntity> others = interest == null ? playerList : interest.inRange;
+        // entities kept off-heap come after the players
+        final int total = others.size + (hasStoredEntities() ? entityStates.size() : 0);
+
+        final int maxEntities = getMaxSnapshotEntities(player);
+        final S2CPacketWorldSnapshot snapshot = new S2CPacketWorldSnapshot(serverTick, baseline == null ? -1 : baseline.getTick(), 8, configuration.movementCodec);
+        final int start = total == 0 ? 0 : (int) ((serverTick * maxEntities) % total);
+        for (int i = 0; i < total && snapshot.getEntityCount() < maxEntities; i++) {
+            final int index = (start + i) % total;
+            if (index < others.size) {
+                final ServerPlayerEntity other = others.get(index);
+                if (other == player) continue;
+
+                // players coming into range were created at their position only, the baseline may hold an older state of them
+                final boolean entered = interest != null && interest.entered.contains(other.getEntityId());
+                addDeltaState(snapshot, other.getEntityId(), states, slotOf(other), entered ? null : baseline);
+            } else {
+                addStoredEntity(snapshot, player, baseline, index - others.size);
+            }
+        }
+
+        if (baseline != null && snapshot.getEntityCount() == 0) return;
+
+        // record exactly what the client will resolve, after diffing since this may reuse an older slot
+        final WorldState state = history.next(serverTick);
+        if (baseline != null) state.copyFrom(baseline);
+        for (int i = 0; i < snapshot.getEntityCount(); i++) {
+            state.apply(snapshot.getEntityId(i), snapshot.getMask(i), snapshot.getX(i), snapshot.getY(i),
+                    snapshot.getVelocityX(i), snapshot.getVelocityY(i), snapshot.getRotation(i));
+        }
+        connection.queue(snapshot);
+    }
+
+    /**
+     * Add an entity kept off-heap to a delta snapshot queued to a single player, unless it is out of range
+     *
+     * @param snapshot the snapshot
+     * @param viewer   the player
+     * @param baseline the baseline or {@code null}
+     * @param row      the row of the entity
+     */
+    protected void addStoredEntity(S2CPacketWorldSnapshot snapshot, ServerPlayerEntity viewer, WorldState baseline, int row) {
+        final OffHeapEntityStateStore store = entityStates;
+        final int slot = store.getSlotAt(row);
+        if (grid != null) {
+            final Vector2 origin = viewer.getPosition();
+            final float radius = getInterestRadius(viewer);
+            if (store.dst2(slot, origin.x, origin.y) > radius * radius) return;
+        }
+
+        addDeltaState(snapshot, store.getEntityIdAt(row), store, slot, baseline);
+    }
+
+    /**
+     * Add what changed about an entity since the baseline to a delta snapshot
+     *
+     * @param snapshot the snapshot
+     * @param entityId the entity ID
+     * @param store    the store the entity is in
+     * @param slot     the slot of the entity
+     * @param baseline the baseline or {@code null} to add everything
+     */
+    private void addDeltaState(S2CPacketWorldSnapshot snapshot, int entityId, EntityStateStore store, int slot, WorldState baseline) {
+        final float x = store.getX(slot), y = store.getY(slot);
+        final float velocityX = store.getVelocityX(slot), velocityY = store.getVelocityY(slot), rotation = store.getRotation(slot);
+        final int mask = baseline == null ? WorldState.ALL : baseline.diff(entityId, x, y, velocityX, velocityY, rotation);
+        if (mask != 0) {
+            snapshot.add(entityId, mask, x, y, velocityX, velocityY, rotation);
+            statesSent++;
+        } else {
+            statesSkipped++;
+        }
     }
 
     /**
@@ -219,7 +895,11 @@ public abstract class AbstractServerWorld implements World {
      * @param player the player
      */
     protected void queuePlayerPosition(ServerPlayerEntity player) {
-        broadcastWithExclusion(player.getEntityId(), new S2CPacketPlayerPosition(player.getEntityId(), player.getRotation(), player.getPosition()));
+        final Vector2 position = player.getPosition();
+        final S2CPacketPlayerPosition packet = S2CPacketPlayerPosition.obtain(player.getEntityId(), player.getRotation(), position.x, position.y, configuration.movementCodec);
+        // broadcasts encode right away, the packet can be returned once done
+        broadcastToViewers(player, packet);
+        packet.release();
     }
 
     /**
@@ -228,7 +908,153 @@ public abstract class AbstractServerWorld implements World {
      * @param player the player
      */
     private void queuePlayerVelocity(ServerPlayerEntity player) {
-        broadcastWithExclusion(player.getEntityId(), new S2CPacketPlayerVelocity(player.getEntityId(), player.getRotation(), player.getVelocity()));
+        final Vector2 velocity = player.getVelocity();
+        final S2CPacketPlayerVelocity packet = S2CPacketPlayerVelocity.obtain(player.getEntityId(), player.getRotation(), velocity.x, velocity.y, configuration.movementCodec);
+        broadcastToViewers(player, packet);
+        packet.release();
+    }
+
+    /**
+     * Queue a packet about the provided player to every other player that was sent them
+     *
+     * @param player the player
+     * @param packet the packet
+     */
+    protected void broadcastToViewers(ServerPlayerEntity player, Packet packet) {
+        if (grid == null) {
+            broadcastWithExclusion(player.getEntityId(), packet);
+        } else {
+            broadcast(packet, viewer -> viewer != player && isVisibleTo(player, viewer), false);
+        }
+    }
+
+    /**
+     * Queue a snapshot of the players near the provided player that changed or came into range
+     *
+     * @param player the player
+     */
+    protected void queueNearbySnapshot(ServerPlayerEntity player) {
+        final Interest interest = interests.get(player.getEntityId());
+        final Array<ServerPlayerEntity> others = interest.inRange;
+        if (others.isEmpty() && changedStored.isEmpty()) return;
+
+        final ServerAbstractConnection connection = player.getConnection();
+        final int maxEntities = getMaxSnapshotEntities(player);
+        S2CPacketWorldSnapshot snapshot = null;
+        for (int i = 0; i < others.size; i++) {
+            final ServerPlayerEntity other = others.get(i);
+            // players coming into range were only created at their position
+            if (!changed.contains(other.getEntityId()) && !interest.entered.contains(other.getEntityId())) continue;
+
+            if (snapshot == null) snapshot = newPartialSnapshot(Math.min(others.size, maxEntities));
+            final int slot = slotOf(other);
+            snapshot.add(other.getEntityId(), states.getX(slot), states.getY(slot),
+                    states.getVelocityX(slot), states.getVelocityY(slot), states.getRotation(slot));
+            if (snapshot.getEntityCount() == maxEntities) {
+                connection.queue(snapshot);
+                snapshot = null;
+            }
+        }
+
+        // entities are not created for the client, they are sent within range once changed or due a keyframe
+        final Vector2 origin = player.getPosition();
+        final float radius = getInterestRadius(player);
+        for (int i = 0; i < changedStored.size; i++) {
+            final int entityId = changedStored.get(i);
+            final int slot = EntityIdAllocator.indexOf(entityId);
+            if (entityStates.dst2(slot, origin.x, origin.y) > radius * radius) continue;
+
+            if (snapshot == null) snapshot = newPartialSnapshot(8);
+            snapshot.add(entityId, entityStates.getX(slot), entityStates.getY(slot),
+                    entityStates.getVelocityX(slot), entityStates.getVelocityY(slot), entityStates.getRotation(slot));
+            if (snapshot.getEntityCount() == maxEntities) {
+                connection.queue(snapshot);
+                snapshot = null;
+            }
+        }
+        if (snapshot != null) connection.queue(snapshot);
+    }
+
+    /**
+     * Find the players now within range of the viewer.
+     * Players coming into range are created for the viewer, players out of range are removed.
+     *
+     * @param viewer the viewer
+     */
+    protected void updateInterest(ServerPlayerEntity viewer) {
+        final Interest interest = interests.get(viewer.getEntityId());
+        if (interest == null) return;
+
+        final Vector2 origin = viewer.getPosition();
+        final float radius = getInterestRadius(viewer);
+
+        interest.inRange.clear();
+        interest.entered.clear();
+        interest.next.clear();
+
+        // players already sent are kept up to the margin
+        nearby.clear();
+        grid.query(origin.x, origin.y, radius + configuration.interestMargin, nearby);
+        for (int i = 0; i < nearby.size; i++) {
+            final ServerPlayerEntity other = nearby.get(i);
+            if (other == viewer) continue;
+
+            final int entityId = other.getEntityId();
+            if (!interest.visible.contains(entityId)) {
+                final int slot = slotOf(other);
+                if (states.dst2(slot, origin.x, origin.y) > radius * radius) continue;
+
+                interest.entered.add(entityId);
+                viewer.getConnection().queue(new S2CPacketCreatePlayer(other.getName(), entityId, states.getX(slot), states.getY(slot)));
+            }
+            interest.inRange.add(other);
+            interest.next.add(entityId);
+        }
+
+        // anything visible not found again left range
+        if (interest.next.size - interest.entered.size != interest.visible.size) {
+            final IntSet.IntSetIterator iterator = interest.visible.iterator();
+            while (iterator.hasNext) {
+                final int entityId = iterator.next();
+                if (!interest.next.contains(entityId)) viewer.getConnection().queue(new S2CPacketRemovePlayer(entityId));
+            }
+        }
+
+        final IntSet visible = interest.visible;
+        interest.visible = interest.next;
+        interest.next = visible;
+    }
+
+    /**
+     * @param viewer the viewer
+     * @return the radius the viewer is sent players within
+     */
+    protected float getInterestRadius(ServerPlayerEntity viewer) {
+        return configuration.interestRadius;
+    }
+
+    /**
+     * @param player the player
+     * @param viewer the viewer
+     * @return {@code true} if the viewer was sent the player, always if every player is sent to everyone
+     */
+    public boolean isVisibleTo(ServerPlayerEntity player, ServerPlayerEntity viewer) {
+        if (grid == null) return true;
+
+        final Interest interest = interests.get(viewer.getEntityId());
+        return interest != null && interest.visible.contains(player.getEntityId());
+    }
+
+    /**
+     * @return the grid players are sorted into, or {@code null} if every player is sent to everyone
+     */
+    public SpatialHashGrid<ServerPlayerEntity> getGrid() {
+        return grid;
+    }
+
+    @Override
+    public MovementCodec getMovementCodec() {
+        return configuration.movementCodec;
     }
 
     @Override
@@ -241,11 +1067,69 @@ public abstract class AbstractServerWorld implements World {
         return currentTick;
     }
 
+    @Override
+    public long getServerTick() {
+        return serverTick;
+    }
+
+    /**
+     * Connections of a single tick being flushed across event loops, the latency is recorded once the last loop is done.
+     */
+    private static final class FlushBatch {
+        private final AbstractServerWorld world;
+        private final long start;
+        private final AtomicInteger remaining;
+
+        private FlushBatch(AbstractServerWorld world, long start, int loops) {
+            this.world = world;
+            this.start = start;
+            this.remaining = new AtomicInteger(loops);
+        }
+
+        private void flush(ServerAbstractConnection[] connections) {
+            for (ServerAbstractConnection connection : connections) connection.flush();
+            complete();
+        }
+
+        private void complete() {
+            if (remaining.decrementAndGet() == 0) world.queueToWireNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * The players a single player was sent
+     */
+    private static final class Interest {
+        // players the client knows about, and those found this tick
+        private IntSet visible = new IntSet(), next = new IntSet();
+        // players that came into range this tick
+        private final IntSet entered = new IntSet();
+        private final Array<ServerPlayerEntity> inRange = new Array<>(false, 16, ServerPlayerEntity.class);
+    }
+
     @Override
     public void dispose() {
-        players.values().forEach(ServerPlayerEntity::dispose);
+        if (tickFuture != null) tickFuture.cancel(false);
+
+        Runnable task;
+        while ((task = inbound.poll()) != null) {
+            // release any frames that never got handled
+            if (task instanceof QueuedClientFrame frame) frame.discard();
+        }
+
+        for (int i = 0; i < playerList.size; i++) playerList.get(i).dispose();
+        playerList.clear();
         players.clear();
-        entities.values().forEach(ServerEntity::dispose);
+        Arrays.fill(playerSlots, null);
+        Arrays.fill(entitySlots, null);
+        sentVersions.clear();
+        if (grid != null) grid.clear();
+        interests.clear();
+        for (ServerEntity entity : entities.values()) entity.dispose();
         entities.clear();
+        entityIds.clear();
+        changedStored.clear();
+        if (entityStates != null) entityStates.dispose();
+        if (changedRows != null && changedRows.refCnt() > 0) changedRows.release();
     }
 }
@@ -1,10 +1,9 @@
 package gdx.lunar.server.world;
 
 import gdx.lunar.server.game.utilities.Disposable;
+import io.netty.channel.EventLoopGroup;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Manages all the worlds within this server.
@@ -15,6 +14,14 @@ public abstract class AbstractWorldManager implements Disposable {
      * Map of all worlds
      */
     protected final Map<String, World> worlds = new HashMap<>();
+    // ticks worlds in parallel, or null to tick them on the calling thread
+    protected WorldTickScheduler scheduler;
+
+    // the group worlds are pinned to, or null if ticked by the server
+    protected EventLoopGroup pinnedGroup;
+    protected long pinnedTickPeriodNanos;
+    // worlds not pinned to an event loop, reused each tick
+    private final List<World> unpinned = new ArrayList<>();
 
     public AbstractWorldManager() {
 
@@ -28,6 +35,7 @@ public abstract class AbstractWorldManager implements Disposable {
      */
     public void addWorld(String name, World world) {
         this.worlds.put(name, world);
+        if (pinnedGroup != null) pin(world);
     }
 
     /**
@@ -52,16 +60,79 @@ public abstract class AbstractWorldManager implements Disposable {
     }
 
     /**
-     * Update all worlds.
+     * Set the scheduler worlds are ticked in parallel with, any previous scheduler is disposed.
+     *
+     * @param scheduler the scheduler or {@code null} to tick every world on the calling thread
+     */
+    public void setScheduler(WorldTickScheduler scheduler) {
+        if (this.scheduler != null) this.scheduler.dispose();
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return the scheduler worlds are ticked with, or {@code null} if ticked on the calling thread
+     */
+    public WorldTickScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Pin every world, and any added after, to an event loop of the provided group.
+     * Pinned worlds are ticked on their loop instead of by {@link #update(float)}, see {@link AbstractServerWorld#pinTo}.
+     * Worlds that do not extend {@link AbstractServerWorld} are still ticked by {@link #update(float)}.
+     *
+     * @param group           the group, this should be the child group of the server so channels can be moved to the world loops
+     * @param tickPeriodNanos the time between ticks in nanoseconds
+     */
+    public void pinToEventLoops(EventLoopGroup group, long tickPeriodNanos) {
+        if (pinnedGroup != null) throw new IllegalArgumentException("Worlds are already pinned");
+        this.pinnedGroup = group;
+        this.pinnedTickPeriodNanos = tickPeriodNanos;
+        for (World world : worlds.values()) pin(world);
+    }
+
+    /**
+     * @return {@code true} if worlds are pinned to event loops
+     */
+    public boolean isPinnedToEventLoops() {
+        return pinnedGroup != null;
+    }
+
+    private void pin(World world) {
+        if (world instanceof AbstractServerWorld serverWorld && serverWorld.getEventLoop() == null) {
+            serverWorld.pinTo(pinnedGroup.next(), pinnedTickPeriodNanos);
+        }
+    }
+
+    /**
+     * Update all worlds not pinned to an event loop.
+     * Returns once every world finished ticking.
+     *
+     * @param delta the time since the last tick in seconds
      */
     public void update(float delta) {
-        for (World value : worlds.values()) {
+        Collection<World> worlds = this.worlds.values();
+        if (pinnedGroup != null) {
+            unpinned.clear();
+            for (World world : worlds) {
+                if (world.getEventLoop() == null) unpinned.add(world);
+            }
+            worlds = unpinned;
+        }
+
+        if (scheduler != null) {
+            scheduler.tick(worlds, delta);
+            return;
+        }
+
+        for (World value : worlds) {
             value.tick(delta);
         }
     }
 
     @Override
     public void dispose() {
+        if (scheduler != null) scheduler.dispose();
         getWorlds().forEach(World::dispose);
         worlds.clear();
     }
@@ -0,0 +1,114 @@
+package gdx.lunar.server.world;
+
+import java.util.Arrays;
+
+/**
+ * An {@link EntityStateStore} with one primitive array per field, indexed by slot.
+ * Code reading every entity each tick reads a few contiguous arrays instead of an object graph per entity.
+ */
+public final class ArrayEntityStateStore implements EntityStateStore {
+
+    private float[] x, y, velocityX, velocityY, rotation;
+
+    /**
+     * @param capacity the amount of slots to allocate
+     */
+    public ArrayEntityStateStore(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * @return the amount of slots allocated
+     */
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Grow the store to hold the provided slot
+     *
+     * @param slot the slot
+     */
+    private void ensureCapacity(int slot) {
+        if (slot < x.length) return;
+
+        final int capacity = Math.max(slot + 1, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+    }
+
+    @Override
+    public void set(int slot, float x, float y, float velocityX, float velocityY, float rotation) {
+        ensureCapacity(slot);
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.velocityX[slot] = velocityX;
+        this.velocityY[slot] = velocityY;
+        this.rotation[slot] = rotation;
+    }
+
+    @Override
+    public void setPosition(int slot, float x, float y) {
+        this.x[slot] = x;
+        this.y[slot] = y;
+    }
+
+    @Override
+    public void setVelocity(int slot, float velocityX, float velocityY) {
+        this.velocityX[slot] = velocityX;
+        this.velocityY[slot] = velocityY;
+    }
+
+    @Override
+    public void setRotation(int slot, float rotation) {
+        this.rotation[slot] = rotation;
+    }
+
+    @Override
+    public float getX(int slot) {
+        return x[slot];
+    }
+
+    @Override
+    public float getY(int slot) {
+        return y[slot];
+    }
+
+    @Override
+    public float getVelocityX(int slot) {
+        return velocityX[slot];
+    }
+
+    @Override
+    public float getVelocityY(int slot) {
+        return velocityY[slot];
+    }
+
+    @Override
+    public float getRotation(int slot) {
+        return rotation[slot];
+    }
+
+    @Override
+    public float dst2(int slot, float x, float y) {
+        final float dx = this.x[slot] - x, dy = this.y[slot] - y;
+        return dx * dx + dy * dy;
+    }
+
+    @Override
+    public void clear(int slot) {
+        if (slot < x.length) set(slot, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+    }
+
+    private void allocate(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+    }
+
+}
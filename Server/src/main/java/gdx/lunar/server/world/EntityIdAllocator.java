@@ -0,0 +1,126 @@
+package gdx.lunar.server.world;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Hands out entity IDs for a single world.
+ * <p>
+ * An ID is an index in its low {@code INDEX_BITS} and a generation in the bits above.
+ * Indices are dense and start at {@code 1}, so they can be used to index arrays directly. {@code 0} is never assigned.
+ * Freed indices are reused, each time with the next generation, so an ID kept after its entity was removed is never valid again
+ * until the generation wraps around.
+ * <p>
+ * The first generation is {@code 0}, so IDs stay small on the wire until indices are reused.
+ * Not thread safe, an allocator belongs to the thread ticking its world.
+ */
+public final class EntityIdAllocator {
+
+    public static final int INDEX_BITS = 20;
+    public static final int GENERATION_BITS = 11;
+    // IDs are always positive
+    public static final int MAX_INDEX = (1 << INDEX_BITS) - 1;
+
+    private static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+
+    // current generation of each index, and if the index is in use
+    private int[] generations = new int[16];
+    private boolean[] allocated = new boolean[16];
+    // freed indices, most recent last
+    private final IntArray free = new IntArray();
+    // next index never assigned before
+    private int next = 1;
+    private int size;
+
+    /**
+     * @return a new ID
+     */
+    public int allocate() {
+        final int index;
+        if (free.notEmpty()) {
+            index = free.pop();
+        } else {
+            if (next > MAX_INDEX) throw new IllegalArgumentException("Out of entity IDs");
+            index = next++;
+            if (index == generations.length) {
+                generations = Arrays.copyOf(generations, index * 2);
+                allocated = Arrays.copyOf(allocated, index * 2);
+            }
+        }
+
+        allocated[index] = true;
+        size++;
+        return (generations[index] << INDEX_BITS) | index;
+    }
+
+    /**
+     * Free an ID, the index is reused with the next generation
+     *
+     * @param id the ID
+     * @return {@code false} if the ID was not in use
+     */
+    public boolean free(int id) {
+        if (!isAllocated(id)) return false;
+
+        final int index = indexOf(id);
+        allocated[index] = false;
+        generations[index] = (generations[index] + 1) & GENERATION_MASK;
+        free.add(index);
+        size--;
+        return true;
+    }
+
+    /**
+     * @param id the ID
+     * @return {@code true} if the ID is in use, {@code false} if it was freed or never assigned
+     */
+    public boolean isAllocated(int id) {
+        if (id <= 0) return false;
+
+        final int index = indexOf(id);
+        return index < next && allocated[index] && generations[index] == generationOf(id);
+    }
+
+    /**
+     * @return the amount of IDs in use
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return one more than the highest index ever assigned, arrays indexed by ID need at least this length
+     */
+    public int capacity() {
+        return next;
+    }
+
+    /**
+     * Free every ID
+     */
+    public void clear() {
+        Arrays.fill(generations, 0);
+        Arrays.fill(allocated, false);
+        free.clear();
+        next = 1;
+        size = 0;
+    }
+
+    /**
+     * @param id the ID
+     * @return the index of the ID
+     */
+    public static int indexOf(int id) {
+        return id & MAX_INDEX;
+    }
+
+    /**
+     * @param id the ID
+     * @return the generation of the ID
+     */
+    public static int generationOf(int id) {
+        return (id >>> INDEX_BITS) & GENERATION_MASK;
+    }
+
+}
@@ -0,0 +1,59 @@
+package gdx.lunar.server.world;
+
+/**
+ * The movement state of entities within a world, by slot.
+ * <p>
+ * Entities are stored in the slot of their ID, see {@link EntityIdAllocator#indexOf(int)}.
+ * Entities spawned in a world keep their state here instead of in their own fields.
+ * <p>
+ * Not thread safe, a store belongs to the thread ticking its world.
+ */
+public interface EntityStateStore {
+
+    /**
+     * Set every field of a slot
+     *
+     * @param slot      the slot
+     * @param x         position X
+     * @param y         position Y
+     * @param velocityX velocity X
+     * @param velocityY velocity Y
+     * @param rotation  rotation
+     */
+    void set(int slot, float x, float y, float velocityX, float velocityY, float rotation);
+
+    void setPosition(int slot, float x, float y);
+
+    void setVelocity(int slot, float velocityX, float velocityY);
+
+    void setRotation(int slot, float rotation);
+
+    float getX(int slot);
+
+    float getY(int slot);
+
+    float getVelocityX(int slot);
+
+    float getVelocityY(int slot);
+
+    float getRotation(int slot);
+
+    /**
+     * @param slot the slot
+     * @param x    X
+     * @param y    Y
+     * @return the squared distance from the position of the slot to the point
+     */
+    default float dst2(int slot, float x, float y) {
+        final float dx = getX(slot) - x, dy = getY(slot) - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Reset a slot once its entity is removed
+     *
+     * @param slot the slot
+     */
+    void clear(int slot);
+
+}
@@ -0,0 +1,291 @@
+package gdx.lunar.server.world;
+
+import gdx.lunar.protocol.snapshot.WorldState;
+import gdx.lunar.server.game.utilities.Disposable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.Arrays;
+
+import static gdx.lunar.protocol.packet.server.S2CPacketWorldSnapshot.*;
+
+/**
+ * An {@link EntityStateStore} kept off-heap within a single direct buffer, for worlds with many lightweight entities.
+ * <p>
+ * Each entity is a fixed row, laid out the same as {@code S2CPacketWorldSnapshot} writes an entity with V1 framing and raw movement.
+ * Rows are kept packed, removing an entity moves the last row into its place,
+ * so rows can be copied into a frame with {@link #copyRow(int, ByteBuf)} without being read.
+ * <p>
+ * Each row has a version, increased when its position, velocity or rotation changes by more than the change epsilon,
+ * the same as {@code ServerEntity#getStateVersion()}. Versions are unique across the store, a row added or restored never
+ * has a version it had before.
+ * <p>
+ * Entities must be added with {@link #add(int)} before they are bound to this store.
+ * The buffers are released with {@link #dispose()}.
+ */
+public final class OffHeapEntityStateStore implements EntityStateStore, Disposable {
+
+    // per row, the values the version was last increased at, then the version
+    private static final int TRACKED_X = 0, TRACKED_Y = 4, TRACKED_VELOCITY_X = 8, TRACKED_VELOCITY_Y = 12,
+            TRACKED_ROTATION = 16, TRACKED_VERSION = 20, TRACKED_LENGTH = 24;
+
+    private ByteBuf rows, tracked;
+    private float changeEpsilon;
+    private int lastVersion;
+    // row of each slot plus one, 0 if none
+    private int[] rowOf = new int[16];
+    // slot of each row
+    private int[] slotOf = new int[16];
+    private int size;
+
+    /**
+     * @param allocator the allocator the direct buffer is allocated with
+     * @param capacity  the amount of rows to allocate, more are allocated if required
+     */
+    public OffHeapEntityStateStore(ByteBufAllocator allocator, int capacity) {
+        this.rows = allocator.directBuffer(Math.max(1, capacity) * ROW_LENGTH);
+        this.tracked = allocator.directBuffer(Math.max(1, capacity) * TRACKED_LENGTH);
+    }
+
+    /**
+     * @param epsilon changes at or below this do not increase the version of a row
+     */
+    public void setChangeEpsilon(float epsilon) {
+        this.changeEpsilon = epsilon;
+    }
+
+    /**
+     * Add a row for an entity, all fields start at {@code 0}
+     *
+     * @param entityId the entity ID
+     */
+    public void add(int entityId) {
+        final int slot = EntityIdAllocator.indexOf(entityId);
+        if (slot < rowOf.length && rowOf[slot] != 0) throw new IllegalArgumentException("Entity " + entityId + " is already stored");
+
+        if (slot >= rowOf.length) rowOf = Arrays.copyOf(rowOf, Math.max(slot + 1, rowOf.length * 2));
+        if (size == slotOf.length) slotOf = Arrays.copyOf(slotOf, size * 2);
+
+        final int offset = size * ROW_LENGTH;
+        if (offset + ROW_LENGTH > rows.capacity()) rows.capacity(Math.max(offset + ROW_LENGTH, rows.capacity() * 2));
+        rows.setInt(offset + ROW_ENTITY_ID, entityId);
+        // rows are always complete
+        rows.setByte(offset + ROW_MASK, WorldState.ALL);
+        rows.setZero(offset + ROW_X, ROW_LENGTH - ROW_X);
+
+        final int trackedOffset = size * TRACKED_LENGTH;
+        if (trackedOffset + TRACKED_LENGTH > tracked.capacity()) tracked.capacity(Math.max(trackedOffset + TRACKED_LENGTH, tracked.capacity() * 2));
+        tracked.setZero(trackedOffset, TRACKED_VERSION);
+        tracked.setInt(trackedOffset + TRACKED_VERSION, ++lastVersion);
+
+        rowOf[slot] = size + 1;
+        slotOf[size] = slot;
+        size++;
+        rows.writerIndex(size * ROW_LENGTH);
+    }
+
+    /**
+     * @return the amount of entities stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row the row, from {@code 0} to {@code size}
+     * @return the slot of the entity in the row
+     */
+    public int getSlotAt(int row) {
+        return slotOf[row];
+    }
+
+    /**
+     * @param row the row, from {@code 0} to {@code size}
+     * @return the ID of the entity in the row
+     */
+    public int getEntityIdAt(int row) {
+        return rows.getInt(row * ROW_LENGTH + ROW_ENTITY_ID);
+    }
+
+    /**
+     * @return every row, from the reader index to the writer index. This must not be modified.
+     */
+    public ByteBuf getRows() {
+        return rows;
+    }
+
+    /**
+     * Copy the row of a slot, as is
+     *
+     * @param slot the slot
+     * @param out  the buffer written to
+     */
+    public void copyRow(int slot, ByteBuf out) {
+        out.writeBytes(rows, offset(slot), ROW_LENGTH);
+    }
+
+    /**
+     * @param slot the slot
+     * @return the version of the slot, see {@code ServerEntity#getStateVersion()}
+     */
+    public int getVersion(int slot) {
+        return tracked.getInt(trackedOffset(slot) + TRACKED_VERSION);
+    }
+
+    /**
+     * Copy every row, the copy can be restored with {@link #restore(ByteBuf)}
+     *
+     * @param allocator the allocator
+     * @return the copy, which must be released
+     */
+    public ByteBuf checkpoint(ByteBufAllocator allocator) {
+        final int length = size * ROW_LENGTH;
+        return allocator.directBuffer(length).writeBytes(rows, 0, length);
+    }
+
+    /**
+     * Replace every row with those of a checkpoint. The readable bytes of the checkpoint are read, it is not released.
+     * Entities bound to this store keep reading the slot of their ID, every row restored has a new version.
+     *
+     * @param checkpoint the checkpoint
+     */
+    public void restore(ByteBuf checkpoint) {
+        Arrays.fill(rowOf, 0);
+        size = 0;
+        rows.writerIndex(0);
+
+        final int start = checkpoint.readerIndex();
+        final int count = checkpoint.readableBytes() / ROW_LENGTH;
+        for (int i = 0; i < count; i++) {
+            final int row = start + i * ROW_LENGTH;
+            add(checkpoint.getInt(row + ROW_ENTITY_ID));
+            rows.setBytes((size - 1) * ROW_LENGTH, checkpoint, row, ROW_LENGTH);
+            // what the version is compared against from now on
+            final int trackedOffset = (size - 1) * TRACKED_LENGTH;
+            tracked.setBytes(trackedOffset + TRACKED_X, checkpoint, row + ROW_X, ROW_ROTATION + 4 - ROW_X);
+        }
+    }
+
+    @Override
+    public void set(int slot, float x, float y, float velocityX, float velocityY, float rotation) {
+        setPosition(slot, x, y);
+        setVelocity(slot, velocityX, velocityY);
+        setRotation(slot, rotation);
+    }
+
+    @Override
+    public void setPosition(int slot, float x, float y) {
+        final int offset = offset(slot);
+        rows.setFloat(offset + ROW_X, x);
+        rows.setFloat(offset + ROW_Y, y);
+        track(slot, TRACKED_X, x, TRACKED_Y, y);
+    }
+
+    @Override
+    public void setVelocity(int slot, float velocityX, float velocityY) {
+        final int offset = offset(slot);
+        rows.setFloat(offset + ROW_VELOCITY_X, velocityX);
+        rows.setFloat(offset + ROW_VELOCITY_Y, velocityY);
+        track(slot, TRACKED_VELOCITY_X, velocityX, TRACKED_VELOCITY_Y, velocityY);
+    }
+
+    @Override
+    public void setRotation(int slot, float rotation) {
+        rows.setFloat(offset(slot) + ROW_ROTATION, rotation);
+        track(slot, TRACKED_ROTATION, rotation, TRACKED_ROTATION, rotation);
+    }
+
+    /**
+     * Increase the version of a slot if either value changed by more than the epsilon since it was last increased
+     */
+    private void track(int slot, int firstField, float first, int secondField, float second) {
+        final int offset = trackedOffset(slot);
+        if (changed(tracked.getFloat(offset + firstField), first) || changed(tracked.getFloat(offset + secondField), second)) {
+            tracked.setFloat(offset + firstField, first);
+            tracked.setFloat(offset + secondField, second);
+            tracked.setInt(offset + TRACKED_VERSION, ++lastVersion);
+        }
+    }
+
+    private boolean changed(float previous, float current) {
+        return Math.abs(current - previous) > changeEpsilon;
+    }
+
+    @Override
+    public float getX(int slot) {
+        return rows.getFloat(offset(slot) + ROW_X);
+    }
+
+    @Override
+    public float getY(int slot) {
+        return rows.getFloat(offset(slot) + ROW_Y);
+    }
+
+    @Override
+    public float getVelocityX(int slot) {
+        return rows.getFloat(offset(slot) + ROW_VELOCITY_X);
+    }
+
+    @Override
+    public float getVelocityY(int slot) {
+        return rows.getFloat(offset(slot) + ROW_VELOCITY_Y);
+    }
+
+    @Override
+    public float getRotation(int slot) {
+        return rows.getFloat(offset(slot) + ROW_ROTATION);
+    }
+
+    /**
+     * Remove the row of a slot, the last row is moved into its place
+     *
+     * @param slot the slot
+     */
+    @Override
+    public void clear(int slot) {
+        if (slot >= rowOf.length || rowOf[slot] == 0) return;
+
+        final int row = rowOf[slot] - 1;
+        final int last = size - 1;
+        if (row != last) {
+            rows.setBytes(row * ROW_LENGTH, rows, last * ROW_LENGTH, ROW_LENGTH);
+            tracked.setBytes(row * TRACKED_LENGTH, tracked, last * TRACKED_LENGTH, TRACKED_LENGTH);
+            slotOf[row] = slotOf[last];
+            rowOf[slotOf[row]] = row + 1;
+        }
+
+        rowOf[slot] = 0;
+        size--;
+        rows.writerIndex(size * ROW_LENGTH);
+    }
+
+    private int offset(int slot) {
+        return rowOf(slot) * ROW_LENGTH;
+    }
+
+    private int trackedOffset(int slot) {
+        return rowOf(slot) * TRACKED_LENGTH;
+    }
+
+    private int rowOf(int slot) {
+        final int row = slot < rowOf.length ? rowOf[slot] - 1 : -1;
+        if (row < 0) throw new IllegalArgumentException("Slot " + slot + " is not stored");
+        return row;
+    }
+
+    /**
+     * Release the buffers, nothing happens if already released
+     */
+    @Override
+    public void dispose() {
+        if (rows == null) return;
+
+        rows.release();
+        tracked.release();
+        rows = null;
+        tracked = null;
+        Arrays.fill(rowOf, 0);
+        size = 0;
+    }
+
+}
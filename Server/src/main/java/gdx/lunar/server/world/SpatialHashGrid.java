@@ -0,0 +1,141 @@
+package gdx.lunar.server.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.LongMap;
+import gdx.lunar.server.entity.ServerEntity;
+
+/**
+ * A uniform grid of entity positions, used to find entities near a point without checking every entity.
+ * <p>
+ * Only cells containing entities exist, they are stored by their coordinates so the world has no bounds.
+ * Entities are moved between cells with {@link #update(ServerEntity)} whenever their position changes,
+ * nothing happens unless they crossed into another cell.
+ * <p>
+ * Not thread safe, a grid belongs to the thread ticking its world.
+ *
+ * @param <T> the entity type
+ */
+public class SpatialHashGrid<T extends ServerEntity> {
+
+    private final float cellSize;
+    private final LongMap<Cell<T>> cells = new LongMap<>();
+    // the cell each entity is in
+    private final IntMap<Cell<T>> entities = new IntMap<>();
+
+    /**
+     * @param cellSize the width and height of each cell, ideally close to the radius queried
+     */
+    public SpatialHashGrid(float cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("Cell size must be positive");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @return the width and height of each cell
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the amount of entities within this grid
+     */
+    public int size() {
+        return entities.size;
+    }
+
+    /**
+     * Add an entity, or move it to the cell of its current position
+     *
+     * @param entity the entity
+     */
+    public void update(T entity) {
+        final Vector2 position = entity.getPosition();
+        final long key = key(cell(position.x), cell(position.y));
+
+        final Cell<T> current = entities.get(entity.getEntityId());
+        if (current != null) {
+            if (current.key == key) return;
+            leave(current, entity);
+        }
+
+        Cell<T> cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell<>(key);
+            cells.put(key, cell);
+        }
+        cell.entities.add(entity);
+        entities.put(entity.getEntityId(), cell);
+    }
+
+    /**
+     * Remove an entity
+     *
+     * @param entity the entity
+     */
+    public void remove(T entity) {
+        final Cell<T> cell = entities.remove(entity.getEntityId());
+        if (cell != null) leave(cell, entity);
+    }
+
+    /**
+     * Find every entity within the radius of a point
+     *
+     * @param x      X
+     * @param y      Y
+     * @param radius the radius
+     * @param out    entities found are added to this array, it is not cleared
+     */
+    public void query(float x, float y, float radius, Array<T> out) {
+        final int minX = cell(x - radius), maxX = cell(x + radius);
+        final int minY = cell(y - radius), maxY = cell(y + radius);
+        final float radiusSquared = radius * radius;
+
+        for (int cellX = minX; cellX <= maxX; cellX++) {
+            for (int cellY = minY; cellY <= maxY; cellY++) {
+                final Cell<T> cell = cells.get(key(cellX, cellY));
+                if (cell == null) continue;
+
+                final Array<T> entities = cell.entities;
+                for (int i = 0; i < entities.size; i++) {
+                    final T entity = entities.get(i);
+                    if (entity.getPosition().dst2(x, y) <= radiusSquared) out.add(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove every entity
+     */
+    public void clear() {
+        cells.clear();
+        entities.clear();
+    }
+
+    private void leave(Cell<T> cell, T entity) {
+        cell.entities.removeValue(entity, true);
+        // only cells with entities are kept
+        if (cell.entities.isEmpty()) cells.remove(cell.key);
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static final class Cell<T> {
+        private final long key;
+        private final Array<T> entities = new Array<>(false, 8);
+
+        private Cell(long key) {
+            this.key = key;
+        }
+    }
+
+}
@@ -1,11 +1,15 @@
 package gdx.lunar.server.world;
 
+import com.badlogic.gdx.utils.IntMap;
+import gdx.lunar.protocol.codec.MovementCodec;
 import gdx.lunar.protocol.packet.Packet;
 import gdx.lunar.server.entity.ServerEntity;
 import gdx.lunar.server.entity.ServerPlayerEntity;
 import gdx.lunar.server.game.utilities.Disposable;
+import io.netty.channel.EventLoop;
+import lunar.shared.utility.EntityFacingDirection;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 
 /**
  * Represents a world within the server with handling of basic functions
@@ -37,12 +41,12 @@ public interface World extends Disposable {
     /**
      * @return a map of all players in this world
      */
-    ConcurrentMap<Integer, ServerPlayerEntity> getPlayers();
+    IntMap<ServerPlayerEntity> getPlayers();
 
     /**
      * @return a map of all entities in this world
      */
-    ConcurrentMap<Integer, ServerEntity> getEntities();
+    IntMap<ServerEntity> getEntities();
 
     /**
      * Check if a player is timed out based on the world configuration
@@ -94,6 +98,19 @@ public interface World extends Disposable {
      */
     void handlePlayerVelocity(ServerPlayerEntity player, float x, float y, float rotation);
 
+    /**
+     * Handle a complete player state update
+     *
+     * @param player    the player
+     * @param x         their X
+     * @param y         their Y
+     * @param velocityX their vel X
+     * @param velocityY their vel Y
+     * @param rotation  their rotation
+     * @param direction their facing direction or {@code null} if none was sent
+     */
+    void handlePlayerState(ServerPlayerEntity player, float x, float y, float velocityX, float velocityY, float rotation, EntityFacingDirection direction);
+
     /**
      * Spawn a player in this world
      *
@@ -144,6 +161,23 @@ public interface World extends Disposable {
      */
     void broadcast(Packet packet);
 
+    /**
+     * Broadcast a packet to all players accepted by the filter.
+     * This is queued and not sent instantly.
+     *
+     * @param packet the packet
+     * @param filter the filter, {@code true} to send to that player
+     */
+    void broadcast(Packet packet, Predicate<ServerPlayerEntity> filter);
+
+    /**
+     * Broadcast a packet (now) to all players accepted by the filter.
+     *
+     * @param packet the packet
+     * @param filter the filter, {@code true} to send to that player
+     */
+    void broadcastNow(Packet packet, Predicate<ServerPlayerEntity> filter);
+
     /**
      * Broadcast a packet (now) but exclude an entity ID from that broadcast.
      *
@@ -177,4 +211,40 @@ public interface World extends Disposable {
      */
     float getTick();
 
+    /**
+     * @return the amount of ticks this world has processed, used to tag world snapshots
+     */
+    long getServerTick();
+
+    /**
+     * @return the codec movement packets are written with within this world
+     */
+    MovementCodec getMovementCodec();
+
+    /**
+     * Queue a task to be run at the start of the next tick of this world.
+     * Packets from players within this world are queued the same way, tasks and packets run in the order they were queued.
+     * This is safe to call from any thread.
+     *
+     * @param task the task
+     */
+    void execute(Runnable task);
+
+    /**
+     * @return the event loop this world is pinned to and ticked on, or {@code null} if ticked by the server
+     */
+    default EventLoop getEventLoop() {
+        return null;
+    }
+
+    /**
+     * Check if a packet can be handled right away instead of being queued with {@link #execute(Runnable)}.
+     * Only the thread this world is pinned to can, and only once nothing queued before is left to run.
+     *
+     * @return {@code true} if the calling thread owns this world and nothing is queued
+     */
+    default boolean canHandleInline() {
+        return false;
+    }
+
 }
@@ -0,0 +1,236 @@
+package gdx.lunar.server.world;
+
+import com.badlogic.gdx.Gdx;
+import gdx.lunar.server.game.utilities.Disposable;
+
+import java.util.*;
+import java.util.concurrent.Phaser;
+
+/**
+ * Ticks worlds in parallel across a bounded set of worker threads.
+ * <p>
+ * Each world is pinned to a single worker, so it is only ever ticked by one thread at a time and always in order.
+ * Worlds are only moved between workers between ticks, every {@code REBALANCE_INTERVAL} ticks,
+ * by assigning the most expensive worlds first to the worker with the least measured cost.
+ * A worker never holds more than {@code maxWorldsPerThread} worlds, more workers are started if required.
+ * <p>
+ * {@link #tick(Collection, float)} returns once every world finished its tick, the slowest world of that tick is recorded.
+ * Workers removed by a rebalance exit once the next tick starts.
+ */
+public class WorldTickScheduler implements Disposable {
+
+    // ticks between moving worlds across workers
+    private static final int REBALANCE_INTERVAL = 100;
+    // weight of each new sample within the measured cost of a world, as a shift
+    private static final int COST_SMOOTHING = 3;
+
+    private final int threads, maxWorldsPerThread;
+    // the calling thread is a party, so each tick starts and ends with every worker
+    private final Phaser barrier = new Phaser(1);
+    private final List<Worker> workers = new ArrayList<>();
+    private final Map<World, Worker> assignments = new IdentityHashMap<>();
+
+    private volatile float delta;
+    private long ticks;
+
+    private World slowestWorld;
+    private long slowestWorldNanos;
+
+    /**
+     * @param threads            the amount of workers to use when not limited by {@code maxWorldsPerThread}
+     * @param maxWorldsPerThread the max amount of worlds per worker, {@code 0} for no limit
+     */
+    public WorldTickScheduler(int threads, int maxWorldsPerThread) {
+        if (threads <= 0) throw new IllegalArgumentException("Threads must be positive");
+        this.threads = threads;
+        this.maxWorldsPerThread = Math.max(0, maxWorldsPerThread);
+    }
+
+    /**
+     * Tick the provided worlds and wait for all of them to finish.
+     * Must always be called from the same thread.
+     *
+     * @param worlds the worlds
+     * @param delta  the time since the last tick in seconds
+     */
+    public void tick(Collection<World> worlds, float delta) {
+        if (barrier.isTerminated()) return;
+        if (assign(worlds) || ++ticks % REBALANCE_INTERVAL == 0) rebalance();
+        // nothing to tick and no removed workers waiting to exit
+        if (barrier.getRegisteredParties() == 1) return;
+
+        this.delta = delta;
+        // start, then wait for every worker to finish
+        barrier.arriveAndAwaitAdvance();
+        barrier.arriveAndAwaitAdvance();
+
+        World slowest = null;
+        long slowestNanos = 0;
+        for (Worker worker : workers) {
+            for (int i = 0; i < worker.size; i++) {
+                if (worker.lastNanos[i] >= slowestNanos) {
+                    slowest = worker.worlds[i];
+                    slowestNanos = worker.lastNanos[i];
+                }
+            }
+        }
+        slowestWorld = slowest;
+        slowestWorldNanos = slowestNanos;
+    }
+
+    /**
+     * @return the world that took the longest during the last tick, or {@code null} if none
+     */
+    public World getSlowestWorld() {
+        return slowestWorld;
+    }
+
+    /**
+     * @return the time the slowest world took during the last tick, in nanoseconds
+     */
+    public long getSlowestWorldNanos() {
+        return slowestWorldNanos;
+    }
+
+    /**
+     * @return the amount of worker threads
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Track worlds that were added or removed since the last tick
+     *
+     * @param worlds the current worlds
+     * @return {@code true} if anything changed
+     */
+    private boolean assign(Collection<World> worlds) {
+        boolean changed = false;
+        for (World world : worlds) {
+            if (!assignments.containsKey(world)) {
+                assignments.put(world, null);
+                changed = true;
+            }
+        }
+
+        if (assignments.size() != worlds.size()) {
+            final Set<World> current = Collections.newSetFromMap(new IdentityHashMap<>());
+            current.addAll(worlds);
+            assignments.keySet().retainAll(current);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Resize the workers to the amount of worlds and assign the most expensive worlds first to the cheapest worker
+     */
+    private void rebalance() {
+        final int count = assignments.size();
+        final int required = maxWorldsPerThread == 0 ? 0 : (count + maxWorldsPerThread - 1) / maxWorldsPerThread;
+        final int target = Math.max(required, Math.min(count, threads));
+
+        // carry over the measured cost of each world
+        final List<World> worlds = new ArrayList<>(assignments.keySet());
+        final Map<World, Long> costs = new IdentityHashMap<>();
+        for (Worker worker : workers) {
+            for (int i = 0; i < worker.size; i++) costs.put(worker.worlds[i], worker.costs[i]);
+            worker.clear();
+        }
+
+        while (workers.size() > target) workers.remove(workers.size() - 1).stop();
+        while (workers.size() < target) workers.add(new Worker(workers.size()));
+
+        worlds.sort((a, b) -> Long.compare(costs.getOrDefault(b, 0L), costs.getOrDefault(a, 0L)));
+        for (World world : worlds) {
+            Worker cheapest = null;
+            for (Worker worker : workers) {
+                if (maxWorldsPerThread != 0 && worker.size >= maxWorldsPerThread) continue;
+                if (cheapest == null || worker.totalCost < cheapest.totalCost) cheapest = worker;
+            }
+            cheapest.add(world, costs.getOrDefault(world, 0L));
+            assignments.put(world, cheapest);
+        }
+    }
+
+    /**
+     * Stop every worker, a tick in progress is allowed to finish
+     */
+    @Override
+    public void dispose() {
+        barrier.forceTermination();
+    }
+
+    /**
+     * A thread ticking a fixed set of worlds each tick
+     */
+    private final class Worker implements Runnable {
+
+        private volatile boolean stopped;
+
+        // only modified between ticks
+        private World[] worlds = new World[4];
+        private long[] costs = new long[4], lastNanos = new long[4];
+        private int size;
+        private long totalCost;
+
+        private Worker(int index) {
+            barrier.register();
+            Thread.ofPlatform().name("lunar-world-tick-" + index).daemon().start(this);
+        }
+
+        private void add(World world, long cost) {
+            if (size == worlds.length) {
+                worlds = Arrays.copyOf(worlds, size * 2);
+                costs = Arrays.copyOf(costs, size * 2);
+                lastNanos = Arrays.copyOf(lastNanos, size * 2);
+            }
+            worlds[size] = world;
+            costs[size] = cost;
+            lastNanos[size] = 0;
+            totalCost += cost;
+            size++;
+        }
+
+        private void clear() {
+            Arrays.fill(worlds, 0, size, null);
+            size = 0;
+            totalCost = 0;
+        }
+
+        /**
+         * Stop once the next tick starts, called between ticks
+         */
+        private void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                // negative once terminated
+                if (barrier.arriveAndAwaitAdvance() < 0) return;
+                if (stopped) {
+                    barrier.arriveAndDeregister();
+                    return;
+                }
+
+                final float delta = WorldTickScheduler.this.delta;
+                for (int i = 0; i < size; i++) {
+                    final long start = System.nanoTime();
+                    try {
+                        worlds[i].tick(delta);
+                    } catch (Exception exception) {
+                        Gdx.app.log("WorldTickScheduler", "Exception caught ticking world " + worlds[i].getName(), exception);
+                    }
+                    final long elapsed = System.nanoTime() - start;
+                    lastNanos[i] = elapsed;
+                    costs[i] += (elapsed - costs[i]) >> COST_SMOOTHING;
+                }
+                if (barrier.arriveAndAwaitAdvance() < 0) return;
+            }
+        }
+    }
+
+}
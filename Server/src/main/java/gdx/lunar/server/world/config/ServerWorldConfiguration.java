@@ -1,13 +1,16 @@
 package gdx.lunar.server.world.config;
 
+import gdx.lunar.protocol.codec.MovementCodec;
+
 /**
  * A per world configuration
  */
 public class ServerWorldConfiguration {
 
-    // max packets to process per tick.
+    // max packets to process per tick, anything over is processed next tick.
+    // this is shared by every player, each connection is limited by ServerConfiguration.maxQueuedFramesPerConnection.
     // max capacity allowed in the world.
-    protected int maxPacketsPerTick = 100, capacity = 100;
+    protected int maxPacketsPerTick = 1024, capacity = 100;
 
     // max entities allowed in the world.
     protected int maxEntities = 100;
@@ -18,6 +21,31 @@ public class ServerWorldConfiguration {
     // world will handle ticking itself and update all players each tick
     public boolean doDefaultTicking = true;
 
+    // send one snapshot of all players each tick instead of individual position and velocity packets
+    public boolean sendWorldSnapshots = true;
+
+    // send each player a delta of what changed since the last snapshot they acknowledged
+    public boolean deltaCompressSnapshots = true;
+
+    // how movement fields are written, see QuantizedMovementCodec to pack them into fixed-point
+    public MovementCodec movementCodec = MovementCodec.RAW;
+
+    // changes to position, velocity or rotation at or below this do not count as the entity changing.
+    public float changeEpsilon = 0.001f;
+    // entities that did not change are still sent every keyframeInterval ticks, so clients recover from anything missed. 0 to never.
+    public int keyframeInterval = 20;
+
+    // players are only sent the players within this radius of them, 0 to send every player in the world to everyone.
+    // players already sent are kept until further than interestRadius + interestMargin, so players at the edge do not flicker.
+    // read when the world is created.
+    public float interestRadius = 0, interestMargin = 2;
+    // size of the grid cells players are sorted into by position, 0 to use the interest radius.
+    public float interestCellSize = 0;
+
+    // keep entities off-heap in rows of this initial capacity and include them in snapshots, 0 to keep them with players.
+    // read when the world is created.
+    public int offHeapEntityCapacity = 0;
+
     public ServerWorldConfiguration(int maxPacketsPerTick, int capacity, int maxEntities, long playerTimeoutMs) {
         this.maxPacketsPerTick = maxPacketsPerTick;
         this.capacity = capacity;
@@ -0,0 +1,92 @@
+package gdx.lunar.server.world;
+
+import com.badlogic.gdx.utils.IntSet;
+import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.protocol.packet.server.S2CPacketWorldSnapshot;
+import gdx.lunar.server.entity.ServerPlayerEntity;
+import gdx.lunar.server.entity.impl.LunarServerPlayerEntity;
+import gdx.lunar.server.game.GameServer;
+import gdx.lunar.server.game.LunarServer;
+import gdx.lunar.server.network.connection.ServerPlayerConnection;
+import gdx.lunar.server.world.config.ServerWorldConfiguration;
+import gdx.lunar.server.world.impl.WorldAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaSnapshotTest {
+
+    private static final int MAX_ENTITIES = 2;
+    private static final int PLAYERS = 7;
+
+    private final LunarServer server = new GameServer(new GdxProtocol(2, "test", true), "1.0");
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private final AbstractServerWorld world;
+
+    DeltaSnapshotTest() {
+        final ServerWorldConfiguration configuration = new ServerWorldConfiguration();
+        configuration.setPlayerTimeoutMs(Long.MAX_VALUE);
+        configuration.keyframeInterval = 0;
+        world = new WorldAdapter(configuration, "test") {
+            @Override
+            protected int getMaxSnapshotEntities(ServerPlayerEntity player) {
+                return MAX_ENTITIES;
+            }
+        };
+    }
+
+    @AfterEach
+    void dispose() {
+        world.dispose();
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+        server.dispose();
+    }
+
+    @Test
+    void playersPastTheLimitAreSentWhileOthersKeepMoving() {
+        final List<ServerPlayerEntity> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) players.add(spawn());
+
+        final ServerPlayerEntity viewer = players.get(PLAYERS - 1);
+        final EmbeddedChannel channel = channels.get(PLAYERS - 1);
+        final IntSet received = new IntSet();
+        for (int tick = 0; tick < PLAYERS; tick++) {
+            // every player keeps moving, so each has changed since any baseline
+            for (ServerPlayerEntity player : players) world.handlePlayerPosition(player, tick, player.getEntityId(), 0.0f);
+            world.tick(1.0f);
+
+            Object message;
+            while ((message = channel.readOutbound()) != null) {
+                if (message instanceof S2CPacketWorldSnapshot snapshot) {
+                    assertTrue(snapshot.getEntityCount() <= MAX_ENTITIES);
+                    for (int i = 0; i < snapshot.getEntityCount(); i++) received.add(snapshot.getEntityId(i));
+                    viewer.getConnection().acknowledgeSnapshot(snapshot.getServerTick());
+                }
+                ReferenceCountUtil.release(message);
+            }
+        }
+
+        for (ServerPlayerEntity player : players) {
+            if (player != viewer) assertTrue(received.contains(player.getEntityId()), "Player " + player.getEntityId() + " was never sent");
+        }
+        assertFalse(received.contains(viewer.getEntityId()));
+    }
+
+    private ServerPlayerEntity spawn() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channels.add(channel);
+
+        final ServerPlayerEntity player = new LunarServerPlayerEntity(server, new ServerPlayerConnection(channel, server));
+        player.setEntityId(world.assignEntityIdFor(true));
+        player.setName("player" + player.getEntityId());
+        world.spawnPlayerInWorld(player);
+        return player;
+    }
+
+}
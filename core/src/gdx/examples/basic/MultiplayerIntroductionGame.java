@@ -75,7 +75,7 @@ public final class MultiplayerIntroductionGame extends Game {
         world.addDefaultPlayerCollisionListener();
 
         // initialize our default protocol and connect to the remote server,
-        final GdxProtocol protocol = new GdxProtocol(1, "1.0", true);
+        final GdxProtocol protocol = new GdxProtocol(2, "1.0", true);
         final LunarClientServer server = new LunarClientServer(protocol, "localhost", 6969);
         // set provider because we want {@link PlayerConnectionHandler}
         server.setConnectionProvider(channel -> new PlayerConnectionHandler(channel, protocol));
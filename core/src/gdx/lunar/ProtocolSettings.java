@@ -6,8 +6,12 @@ package gdx.lunar;
  */
 public final class ProtocolSettings {
 
-    public static int protocolVersion = 1;
+    public static int protocolVersion = 2;
     public static String gameVersion = "1.0";
+    // allow the server to compress large frames
+    public static boolean acceptCompression = true;
+    // allow the server to send repeated strings as tokens
+    public static boolean acceptStringTable = true;
 
     private ProtocolSettings() {
         throw new UnsupportedOperationException();
@@ -5,15 +5,24 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Disposable;
 import gdx.lunar.protocol.GdxProtocol;
 import gdx.lunar.protocol.PacketFactory;
+import gdx.lunar.protocol.codec.FrameInflater;
+import gdx.lunar.protocol.codec.MovementCodec;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.handlers.ServerPacketHandler;
+import gdx.lunar.protocol.packet.BackpressurePolicy;
 import gdx.lunar.protocol.packet.Packet;
 import gdx.lunar.protocol.packet.client.*;
+import gdx.lunar.protocol.snapshot.WorldState;
+import gdx.lunar.protocol.snapshot.WorldStateHistory;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import lunar.shared.entity.player.LunarEntityPlayer;
+import lunar.shared.utility.EntityFacingDirection;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -21,6 +30,10 @@ import java.util.function.Consumer;
 
 /**
  * Handles the basic maintenance of a players connection
+ * <p>
+ * Packets sent to the queue go out together in a single flush each update interval.
+ * State packets ({@link BackpressurePolicy#SUPERSEDE}) occupy a slot by their key, a newer packet replaces the pending one,
+ * everything else is kept in order within the reliable queue and written before them.
  */
 public abstract class AbstractConnectionHandler implements ServerPacketHandler, Disposable {
 
@@ -36,9 +49,21 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
     protected float updateInterval = 50.0f;
     protected long lastUpdate = System.currentTimeMillis();
     protected long lastPacketReceived;
-
-    // queue of packets
+    // the server tick of the last world snapshot applied, acknowledged with each position update
+    protected long lastSnapshotTick = -1;
+    // world states received, baselines for delta snapshots
+    protected final WorldStateHistory snapshotHistory = new WorldStateHistory();
+    // the state of the last world snapshot applied, a snapshot may be split into parts sharing its tick
+    protected WorldState lastSnapshotState;
+    // the codec of the world this player is in, sent when joining
+    protected MovementCodec movementCodec = MovementCodec.RAW;
+    // sequence of the last player state sent
+    protected int stateSequence;
+
+    // queue of reliable packets, written in order
     protected final ConcurrentLinkedQueue<Packet> queue = new ConcurrentLinkedQueue<>();
+    // the latest pending state packet by its supersede key
+    protected final Map<Long, Packet> latest = new ConcurrentHashMap<>();
     // single threaded executor for flushing player connections
     protected final ExecutorService single = Executors.newSingleThreadExecutor();
     // map of handlers by packet ID.
@@ -57,6 +82,35 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
         this.lastPacketReceived = lastPacketReceived;
     }
 
+    /**
+     * @return the server tick of the last world snapshot applied, or {@code -1} if none yet.
+     */
+    public long getLastSnapshotTick() {
+        return lastSnapshotTick;
+    }
+
+    @Override
+    public MovementCodec getMovementCodec() {
+        return movementCodec;
+    }
+
+    @Override
+    public ProtocolFraming getFraming() {
+        return ProtocolFraming.inbound(channel);
+    }
+
+    @Override
+    public StringTable getStringTable() {
+        return StringTable.inbound(channel);
+    }
+
+    /**
+     * @return the inflater of this connection, also providing received vs inflated byte counts, or {@code null} if not enabled.
+     */
+    public FrameInflater getInflater() {
+        return FrameInflater.of(channel);
+    }
+
     public void setPlayer(LunarEntityPlayer player) {
         this.player = player;
     }
@@ -110,7 +164,7 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * @param rotation rotation
      */
     public void updatePosition(float x, float y, float rotation) {
-        this.sendImmediately(new C2SPacketPlayerPosition(x, y, rotation));
+        this.sendToQueue(C2SPacketPlayerPosition.obtain(x, y, rotation, lastSnapshotTick, movementCodec));
     }
 
     /**
@@ -120,7 +174,7 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * @param rotation rotation
      */
     public void updatePosition(Vector2 position, float rotation) {
-        sendImmediately(new C2SPacketPlayerPosition(position, rotation));
+        sendToQueue(C2SPacketPlayerPosition.obtain(position.x, position.y, rotation, lastSnapshotTick, movementCodec));
     }
 
     /**
@@ -131,7 +185,7 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * @param rotation rotation
      */
     public void updateVelocity(float x, float y, float rotation) {
-        this.sendImmediately(new C2SPacketPlayerVelocity(x, y, rotation));
+        this.sendToQueue(C2SPacketPlayerVelocity.obtain(x, y, rotation, movementCodec));
     }
 
     /**
@@ -141,9 +195,21 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * @param rotation rotation
      */
     public void updateVelocity(Vector2 velocity, float rotation) {
-        sendImmediately(new C2SPacketPlayerVelocity(velocity, rotation));
+        sendToQueue(C2SPacketPlayerVelocity.obtain(velocity.x, velocity.y, rotation, movementCodec));
     }
 
+    /**
+     * Update the server on this players' complete state, replacing separate position and velocity updates
+     *
+     * @param position  position
+     * @param velocity  velocity
+     * @param rotation  rotation
+     * @param direction facing direction or {@code null}
+     */
+    public void updateState(Vector2 position, Vector2 velocity, float rotation, EntityFacingDirection direction) {
+        sendToQueue(C2SPacketPlayerState.obtain(++stateSequence, position.x, position.y, velocity.x, velocity.y, rotation,
+                direction == null ? -1 : direction.ordinal(), lastSnapshotTick, movementCodec));
+    }
 
     /**
      * Notify the server of this disconnect
@@ -201,12 +267,17 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
     /**
      * Will send the provided {@code packet} to the send queue.
      * Used for situations where priority is low.
+     * A state packet replaces any pending packet with the same key, which is released without being sent.
      *
      * @param packet the packet
      */
     public void sendToQueue(Packet packet) {
-        packet.alloc(alloc());
-        queue.add(packet);
+        if (packet.getBackpressurePolicy() == BackpressurePolicy.SUPERSEDE) {
+            final Packet superseded = latest.put(packet.getSupersedeKey(), packet);
+            if (superseded != null) superseded.release();
+        } else {
+            queue.add(packet);
+        }
     }
 
 
@@ -216,7 +287,6 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * @param packet the packet
      */
     public void sendImmediately(Packet packet) {
-        packet.alloc(alloc());
         channel.writeAndFlush(packet);
     }
 
@@ -235,11 +305,16 @@ public abstract class AbstractConnectionHandler implements ServerPacketHandler,
      * Flush the current packet queue.
      */
     public void flush() {
-        if (queue.isEmpty()) return;
+        if (queue.isEmpty() && latest.isEmpty()) return;
 
         for (Packet packet = queue.poll(); packet != null; packet = queue.poll()) {
             channel.write(packet);
         }
+        // each key is removed once, a packet replacing it meanwhile goes out next flush
+        for (Long key : latest.keySet()) {
+            final Packet packet = latest.remove(key);
+            if (packet != null) channel.write(packet);
+        }
 
         channel.flush();
     }
@@ -3,8 +3,16 @@ package gdx.lunar.network;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.Vector2;
 import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.protocol.codec.FrameInflater;
+import gdx.lunar.protocol.codec.ProtocolFraming;
+import gdx.lunar.protocol.codec.StringTable;
 import gdx.lunar.protocol.packet.Packet;
 import gdx.lunar.protocol.packet.server.*;
+import gdx.lunar.protocol.packet.view.S2CPingView;
+import gdx.lunar.protocol.packet.view.S2CPlayerPositionView;
+import gdx.lunar.protocol.packet.view.S2CPlayerVelocityView;
+import gdx.lunar.protocol.snapshot.WorldState;
+import gdx.lunar.world.LunarWorld;
 import io.netty.channel.Channel;
 import lunar.shared.entity.player.adapter.NetworkPlayerAdapter;
 
@@ -31,6 +39,17 @@ public class PlayerConnectionHandler extends AbstractConnectionHandler {
         return false;
     }
 
+    /**
+     * Check if a handler is registered for the provided packet ID
+     * Registered handlers expect the decoded packet, so views are not handled in place if one is.
+     *
+     * @param pid the packet ID
+     * @return {@code true} if so
+     */
+    protected boolean hasRegisteredHandler(int pid) {
+        return !handlers.isEmpty() && handlers.containsKey(pid);
+    }
+
     /**
      * Check if the provided id is the local player
      * Used for avoiding packets the client sent and received back
@@ -59,6 +78,13 @@ public class PlayerConnectionHandler extends AbstractConnectionHandler {
 
     @Override
     public void handleAuthentication(S2CPacketAuthenticate packet) {
+        // the server writes with the accepted version after this response
+        if (packet.isAuthenticationSuccessful()) {
+            ProtocolFraming.setInbound(channel, ProtocolFraming.forVersion(packet.getProtocolVersion()));
+            if (packet.getCompressionThreshold() >= 0) FrameInflater.enable(channel, protocol.getMaxPacketFrameLength());
+            if (packet.getStringTableCapacity() > 0) StringTable.setInbound(channel, new StringTable(packet.getStringTableCapacity()));
+        }
+
         if (checkRegisteredHandlers(packet)) return;
         if (!packet.isAuthenticationSuccessful()) {
             this.close();
@@ -107,13 +133,89 @@ public class PlayerConnectionHandler extends AbstractConnectionHandler {
         }
     }
 
+    @Override
+    public boolean handlePlayerPosition(S2CPlayerPositionView view) {
+        if (hasRegisteredHandler(S2CPacketPlayerPosition.PACKET_ID)) return false;
+
+        final int entityId = view.getEntityId();
+        if (!isLocalPlayer(entityId) && doesPlayerExistInWorld(entityId)) {
+            player.getWorld().updatePlayerPositionInWorld(entityId, view.getX(), view.getY(), view.getRotation());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean handlePlayerVelocity(S2CPlayerVelocityView view) {
+        if (hasRegisteredHandler(S2CPacketPlayerVelocity.PACKET_ID)) return false;
+
+        final int entityId = view.getEntityId();
+        if (!isLocalPlayer(entityId) && doesPlayerExistInWorld(entityId)) {
+            player.getWorld().updatePlayerVelocityInWorld(entityId, view.getX(), view.getY(), view.getRotation());
+        }
+        return true;
+    }
+
+    @Override
+    public void handleWorldSnapshot(S2CPacketWorldSnapshot packet) {
+        if (checkRegisteredHandlers(packet)) return;
+        if (!player.isInWorld()) return;
+        // snapshots too large for a single frame are split into parts with the same tick, never deltas
+        final boolean part = !packet.isDelta() && lastSnapshotState != null && packet.getServerTick() == lastSnapshotTick;
+        // ignore snapshots that arrived after a newer one
+        if (!part && packet.getServerTick() <= lastSnapshotTick) return;
+
+        WorldState baseline = null;
+        if (packet.isDelta()) {
+            baseline = snapshotHistory.getBaseline(packet.getBaseTick(), packet.getServerTick());
+            // cannot be resolved, wait for the server to catch up with our acknowledgement
+            if (baseline == null) return;
+        }
+
+        final WorldState state;
+        if (part) {
+            state = lastSnapshotState;
+        } else {
+            state = snapshotHistory.next(packet.getServerTick());
+            if (baseline != null) state.copyFrom(baseline);
+            lastSnapshotTick = packet.getServerTick();
+            lastSnapshotState = state;
+        }
+
+        final LunarWorld world = player.getWorld();
+        for (int i = 0; i < packet.getEntityCount(); i++) {
+            final int entityId = packet.getEntityId(i);
+            final int index = state.apply(entityId, packet.getMask(i), packet.getX(i), packet.getY(i),
+                    packet.getVelocityX(i), packet.getVelocityY(i), packet.getRotation(i));
+            if (isLocalPlayer(entityId)) continue;
+
+            if (world.hasPlayer(entityId)) {
+                world.updatePlayerStateInWorld(entityId, state.getX(index), state.getY(index),
+                        state.getVelocityX(index), state.getVelocityY(index), state.getRotation(index));
+            } else {
+                world.updateEntityStateInWorld(entityId, state.getX(index), state.getY(index),
+                        state.getVelocityX(index), state.getVelocityY(index), state.getRotation(index));
+            }
+        }
+    }
+
     @Override
     public void handlePing(S2CPacketPing packet) {
         checkRegisteredHandlers(packet);
     }
 
+    @Override
+    public boolean handlePing(S2CPingView view) {
+        // nothing to do unless a handler is registered
+        return !hasRegisteredHandler(S2CPacketPing.PACKET_ID);
+    }
+
     @Override
     public void handleJoinWorld(S2CPacketJoinWorld packet) {
+        // server ticks are per world, start over
+        lastSnapshotTick = -1;
+        lastSnapshotState = null;
+        snapshotHistory.clear();
+        movementCodec = packet.getMovementCodec();
         checkRegisteredHandlers(packet);
     }
 
@@ -3,6 +3,7 @@ package gdx.lunar.network.adapter;
 import com.badlogic.gdx.Gdx;
 import gdx.lunar.ProtocolSettings;
 import gdx.lunar.network.AbstractConnectionHandler;
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import gdx.lunar.protocol.packet.client.C2SPacketAuthenticate;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -28,7 +29,9 @@ public class FirstInboundConnectionHandler extends ChannelInboundHandlerAdapter
      */
     @Override
     public void channelActive(ChannelHandlerContext context) {
-        connection.sendImmediately(new C2SPacketAuthenticate(ProtocolSettings.gameVersion, ProtocolSettings.protocolVersion));
+        connection.sendImmediately(new C2SPacketAuthenticate(ProtocolSettings.gameVersion, ProtocolSettings.protocolVersion, ProtocolSettings.acceptCompression, ProtocolSettings.acceptStringTable));
+        // the server only accepts versions it supports, so switch right away instead of waiting for the response.
+        ProtocolFraming.setOutbound(context.channel(), ProtocolFraming.forVersion(ProtocolSettings.protocolVersion));
     }
 
     @Override
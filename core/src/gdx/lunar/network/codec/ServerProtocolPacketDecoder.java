@@ -3,6 +3,8 @@ package gdx.lunar.network.codec;
 import com.badlogic.gdx.Gdx;
 import gdx.lunar.network.AbstractConnectionHandler;
 import gdx.lunar.protocol.GdxProtocol;
+import gdx.lunar.protocol.codec.FrameInflater;
+import gdx.lunar.protocol.codec.ProtocolFraming;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
@@ -24,7 +26,7 @@ public class ServerProtocolPacketDecoder extends LengthFieldBasedFrameDecoder {
      * @param handler the handler
      */
     public ServerProtocolPacketDecoder(AbstractConnectionHandler handler, GdxProtocol protocol) {
-        super(protocol.getMaxPacketFrameLength(), 0, 4);
+        super(protocol.getMaxPacketFrameLength(), 0, 4, 0, 4);
         this.handler = handler;
         this.protocol = protocol;
     }
@@ -33,18 +35,26 @@ public class ServerProtocolPacketDecoder extends LengthFieldBasedFrameDecoder {
     protected Object decode(ChannelHandlerContext ctx, ByteBuf in) {
         ByteBuf buf = null;
         try {
-            buf = (ByteBuf) super.decode(ctx, in);
+            final ProtocolFraming framing = ProtocolFraming.inbound(ctx.channel());
+            // the length is stripped either way
+            buf = framing == ProtocolFraming.V1
+                    ? (ByteBuf) super.decode(ctx, in)
+                    : ProtocolFraming.readVarIntFrame(in, protocol.getMaxPacketFrameLength());
             if (buf != null) {
-                // ignore the length of the packet.
-                buf.readInt();
+                final FrameInflater inflater = FrameInflater.of(ctx.channel());
+                if (inflater != null) {
+                    final ByteBuf inflated = inflater.inflate(buf, ctx.alloc());
+                    if (inflated != buf) {
+                        buf.release();
+                        buf = inflated;
+                    }
+                }
+
                 // retrieve packet from PID
-                final int pid = buf.readInt();
-                if (protocol.isCustomPacket(pid)) {
-                    handler.setLastPacketReceived(System.currentTimeMillis());
-                    protocol.handleCustomPacket(pid, buf, ctx);
-                } else if (protocol.isServerPacket(pid)) {
+                final int pid = framing.readId(buf);
+                // custom and server packets are resolved in one lookup
+                if (protocol.handleServerPacket(pid, buf, handler, ctx)) {
                     handler.setLastPacketReceived(System.currentTimeMillis());
-                    protocol.handleServerPacket(pid, buf, handler, ctx);
                 } else {
                     Gdx.app.log("ServerProtocolPacketDecoder", "Received unknown packet from server %d".formatted(pid));
                 }
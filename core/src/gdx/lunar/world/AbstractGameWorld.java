@@ -269,6 +269,41 @@ public abstract class AbstractGameWorld<P extends LunarEntityNetworkPlayer, E ex
         getPlayers().get(entityId).updateVelocityFromNetwork(x, y, angle);
     }
 
+    @Override
+    public void updatePlayerStateInWorld(int entityId, float x, float y, float velocityX, float velocityY, float angle) {
+        final P player = getPlayers().get(entityId);
+        player.updatePositionFromNetwork(x, y, angle);
+        player.updateVelocityFromNetwork(velocityX, velocityY, angle);
+    }
+
+    @Override
+    public void updateEntityStateInWorld(int entityId, float x, float y, float velocityX, float velocityY, float angle) {
+        final E entity = getEntities().get(entityId);
+        if (entity == null) {
+            handleUnknownEntityState(entityId, x, y, velocityX, velocityY, angle);
+            return;
+        }
+
+        entity.setPosition(x, y, true);
+        entity.setVelocity(velocityX, velocityY, true);
+        entity.setAngle(angle);
+    }
+
+    /**
+     * Invoked when a world snapshot includes an entity not within this world.
+     * The server does not tell clients about entities it spawns, override this to create them.
+     *
+     * @param entityId  the entity ID
+     * @param x         their X
+     * @param y         their Y
+     * @param velocityX their vel X
+     * @param velocityY their vel Y
+     * @param angle     angle
+     */
+    protected void handleUnknownEntityState(int entityId, float x, float y, float velocityX, float velocityY, float angle) {
+
+    }
+
     @Override
     public void dispose() {
         engine.removeAllEntities();
@@ -158,6 +158,30 @@ public interface LunarWorld extends Disposable {
      */
     void updatePlayerVelocityInWorld(int entityId, float x, float y, float angle);
 
+    /**
+     * Update a players position and velocity within this world, usually from a world snapshot
+     *
+     * @param entityId  the entity ID
+     * @param x         their X
+     * @param y         their Y
+     * @param velocityX their vel X
+     * @param velocityY their vel Y
+     * @param angle     angle
+     */
+    void updatePlayerStateInWorld(int entityId, float x, float y, float velocityX, float velocityY, float angle);
+
+    /**
+     * Update an entities position and velocity within this world from a world snapshot
+     *
+     * @param entityId  the entity ID
+     * @param x         their X
+     * @param y         their Y
+     * @param velocityX their vel X
+     * @param velocityY their vel Y
+     * @param angle     angle
+     */
+    void updateEntityStateInWorld(int entityId, float x, float y, float velocityX, float velocityY, float angle);
+
     /**
      * Update player properties
      *